@@ -0,0 +1,108 @@
+package com.restaurant.kitchen.benchmark;
+
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.service.DeadlockResolver;
+import com.restaurant.kitchen.service.WaitForGraphDetector;
+import com.restaurant.kitchen.strategy.LockStrategies;
+import com.restaurant.kitchen.strategy.LockStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures one chef's {@link Chef#processOrder()} while {@code chefCount - 1} background chefs
+ * compete for the same equipment.
+ *
+ * <p>Throughput mode reports orders/ms for the measured chef; SampleTime mode reports the
+ * per-order latency distribution (p50 ... p99.99). Contention is controlled by
+ * {@code equipmentSets}: chefs are spread round-robin over that many Stove/Blender kitchens, and
+ * the measured chef always works in kitchen 0.
+ *
+ * <p>Plain DEADLOCK mode would freeze the benchmark, so the deadlock-prone setup is RECOVERY:
+ * chefs keep their clashing lock orders, and each kitchen's wait-for-graph detector breaks
+ * every deadlock by aborting a victim, which retries its dish after a backoff.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-jmh.xml")
+public class ChefBenchmark {
+
+    @Param({"SAFE", "RECOVERY", "TRY_LOCK", "WAITER", "COARSE", "AVOIDANCE", "PRIORITY"})
+    public SimulationMode mode;
+
+    @Param({"2", "4", "8"})
+    public int chefCount;
+
+    @Param({"1", "2"})
+    public int equipmentSets;
+
+    @Param({"0", "1", "5"})
+    public long useMillis;
+
+    @Param({"YOUNGEST_ORDER"})
+    public VictimPolicy victimPolicy;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final KitchenStats stats = new KitchenStats();
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<WaitForGraphDetector> detectors = new ArrayList<>();
+    private Chef measuredChef;
+
+    @Setup(Level.Trial)
+    public void openKitchen() {
+        EquipmentRegistry[] kitchens = new EquipmentRegistry[equipmentSets];
+        LockStrategy[] strategies = new LockStrategy[equipmentSets];
+        for (int i = 0; i < equipmentSets; i++) {
+            int chefsAtSet = (chefCount - i + equipmentSets - 1) / equipmentSets;
+            kitchens[i] = EquipmentRegistry.of(new Stove(useMillis), new Blender(useMillis));
+            strategies[i] = LockStrategies.forMode(mode, chefsAtSet, kitchens[i]);
+            if (mode == SimulationMode.RECOVERY) {
+                WaitForGraphDetector detector = new WaitForGraphDetector(1);
+                detector.setCycleHandler(new DeadlockResolver(victimPolicy));
+                kitchens[i].setLockListener(detector);
+                detector.start();
+                detectors.add(detector);
+            }
+        }
+
+        running.set(true);
+        measuredChef = new Chef(0, kitchens[0], strategies[0], stats, running);
+        for (int id = 1; id < chefCount; id++) {
+            int set = id % equipmentSets;
+            Chef chef = new Chef(id, kitchens[set], strategies[set], stats, running);
+            threads.add(new Thread(chef, "bench-chef-" + id));
+        }
+        threads.forEach(Thread::start);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeKitchen() throws InterruptedException {
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        threads.clear();
+        detectors.forEach(WaitForGraphDetector::stop);
+        detectors.clear();
+    }
+
+    @Benchmark
+    public void processOrder() throws InterruptedException {
+        measuredChef.processOrder();
+    }
+}
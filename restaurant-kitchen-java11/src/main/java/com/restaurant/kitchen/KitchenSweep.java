@@ -0,0 +1,347 @@
+package com.restaurant.kitchen;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.model.KitchenEngine;
+import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.service.KitchenSimulator;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a grid of kitchen experiments from the command line, without Spring or Tomcat. Every
+ * combination of engine, mode, chef count, station count, equipment duration and lock fairness gets its own
+ * {@link KitchenSimulator}, the experiments run in parallel on a fork-join pool, and each result
+ * is written out (CSV or JSON lines) as soon as its experiment finishes.
+ *
+ * <pre>
+ * ./gradlew sweep -Psweep="--modes=SAFE,TRY_LOCK,AVOIDANCE --chefs=4,16,64 --use-millis=1,5 --out=sweep.csv"
+ * </pre>
+ *
+ * <p>Options (lists are comma-separated):
+ * <ul>
+ *   <li>{@code --engines}: THREADS, ASYNC and/or VIRTUAL (the virtual clock, which replays
+ *       {@code --seconds} of service as fast as the CPU allows). Default THREADS.</li>
+ *   <li>{@code --modes}: default every mode but DEADLOCK.</li>
+ *   <li>{@code --chefs}, {@code --use-millis}, {@code --fair}: defaults 4, 50 and false.</li>
+ *   <li>{@code --equipment}: units per type, e.g. {@code STOVE:4,BLENDER:2}; default one of each.</li>
+ *   <li>{@code --stations}: THREADS only, default 1. Each station gets its own copy of
+ *       {@code --equipment} and its share of the chefs, e.g. {@code --chefs=16 --stations=1,2,4,8}.</li>
+ *   <li>{@code --seconds}: length of each experiment, default 3.</li>
+ *   <li>{@code --parallel}: experiments at once, default one per core. THREADS and ASYNC
+ *       experiments run on the wall clock and share the machine, so numbers from busy sweeps
+ *       are best compared with each other rather than with a quiet run.</li>
+ *   <li>{@code --seed}: VIRTUAL only, default 42.</li>
+ *   <li>{@code --out}: file to write; {@code .json} gives JSON lines, anything else CSV. Default
+ *       CSV on standard output.</li>
+ *   <li>{@code --verbose}: keep the kitchens' own logging (quiet by default).</li>
+ * </ul>
+ * An experiment that cannot run (say WAITER on the ASYNC engine) still gets a row, with the
+ * reason in {@code error}.
+ */
+public final class KitchenSweep {
+
+    private static final String VIRTUAL = "VIRTUAL";
+    private static final String[] COLUMNS = {
+            "experiment", "engine", "mode", "chefs", "stations", "useMillis", "fairLocks", "seconds",
+            "ordersCompleted", "ordersPerSecond", "meanWaitMillis", "p99WaitMillis", "recoveries",
+            "stolen", "deadlocked", "wallClockMillis", "error"};
+
+    private KitchenSweep() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        List<String> engines = list(options, "engines", "THREADS");
+        List<SimulationMode> modes = new ArrayList<>();
+        for (String mode : list(options, "modes", "")) {
+            modes.add(SimulationMode.valueOf(mode.toUpperCase()));
+        }
+        if (modes.isEmpty()) {
+            modes.addAll(Arrays.asList(SimulationMode.values()));
+            modes.remove(SimulationMode.DEADLOCK);
+        }
+        List<String> chefs = list(options, "chefs", "4");
+        List<String> stations = list(options, "stations", "1");
+        List<String> useMillis = list(options, "use-millis", "50");
+        List<String> fair = list(options, "fair", "false");
+        Map<String, Integer> equipment = new LinkedHashMap<>();
+        for (String entry : list(options, "equipment", "")) {
+            String[] typeAndCount = entry.split(":");
+            equipment.put(typeAndCount[0].trim(), typeAndCount.length > 1 ? Integer.parseInt(typeAndCount[1].trim()) : 1);
+        }
+        double seconds = Double.parseDouble(options.getOrDefault("seconds", "3"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int parallel = Integer.parseInt(options.getOrDefault("parallel",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        String out = options.get("out");
+        if (!options.containsKey("verbose")) {
+            Configurator.setLevel("com.restaurant.kitchen", Level.WARN);
+        }
+
+        List<Experiment> grid = new ArrayList<>();
+        for (String engine : engines) {
+            for (SimulationMode mode : modes) {
+                for (String chefCount : chefs) {
+                    for (String stationCount : stations) {
+                        for (String millis : useMillis) {
+                            for (String fairLocks : fair) {
+                                grid.add(new Experiment(grid.size() + 1, engine.toUpperCase(), mode,
+                                        Integer.parseInt(chefCount), Integer.parseInt(stationCount),
+                                        Long.parseLong(millis), Boolean.parseBoolean(fairLocks), equipment,
+                                        seconds, seed));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        Writer writer = out == null
+                ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.UTF_8);
+        try (ResultWriter results = new ResultWriter(new BufferedWriter(writer),
+                out != null && out.endsWith(".json"), out != null)) {
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallel));
+            try {
+                pool.invoke(new Sweep(grid, 0, grid.size(), results));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        System.err.printf("%d experiments in %.1f s%n", grid.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /** Splits the grid in halves until a single experiment is left, then runs it. */
+    private static final class Sweep extends RecursiveAction {
+        private final List<Experiment> grid;
+        private final int from;
+        private final int to;
+        private final ResultWriter results;
+
+        Sweep(List<Experiment> grid, int from, int to, ResultWriter results) {
+            this.grid = grid;
+            this.from = from;
+            this.to = to;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Experiment experiment = grid.get(from);
+                results.write(experiment.run());
+                return;
+            }
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Sweep(grid, from, middle, results), new Sweep(grid, middle, to, results));
+            }
+        }
+    }
+
+    /** One point of the grid, run in a kitchen of its own. */
+    private static final class Experiment {
+        private final int number;
+        private final String engine;
+        private final SimulationMode mode;
+        private final int chefs;
+        private final int stations;
+        private final long useMillis;
+        private final boolean fairLocks;
+        private final Map<String, Integer> equipment;
+        private final double seconds;
+        private final long seed;
+
+        Experiment(int number, String engine, SimulationMode mode, int chefs, int stations, long useMillis,
+                   boolean fairLocks, Map<String, Integer> equipment, double seconds, long seed) {
+            this.number = number;
+            this.engine = engine;
+            this.mode = mode;
+            this.chefs = chefs;
+            this.stations = stations;
+            this.useMillis = useMillis;
+            this.fairLocks = fairLocks;
+            this.equipment = equipment;
+            this.seconds = seconds;
+            this.seed = seed;
+        }
+
+        Map<String, Object> run() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("experiment", number);
+            row.put("engine", engine);
+            row.put("mode", mode);
+            row.put("chefs", chefs);
+            row.put("stations", stations);
+            row.put("useMillis", useMillis);
+            row.put("fairLocks", fairLocks);
+            row.put("seconds", seconds);
+            long start = System.nanoTime();
+            KitchenSimulator simulator = null;
+            try {
+                KitchenProperties properties = new KitchenProperties();
+                properties.setChefCount(chefs);
+                properties.setUseMillis(useMillis);
+                properties.setFairLocks(fairLocks);
+                properties.getStations().setCount(stations);
+                properties.getJournal().setEnabled(false);
+                if (!VIRTUAL.equals(engine)) {
+                    properties.setEngine(KitchenEngine.valueOf(engine));
+                }
+                simulator = new KitchenSimulator(EquipmentRegistry.fromCounts(equipment, useMillis), properties);
+                if (VIRTUAL.equals(engine)) {
+                    if (stations != 1) {
+                        throw new IllegalArgumentException("Stations need the THREADS engine");
+                    }
+                    SimulationReport report = simulator.simulate(mode, properties.getRecovery().getVictimPolicy(), chefs, seconds, seed);
+                    row.put("ordersCompleted", report.getOrdersCompleted());
+                    row.put("ordersPerSecond", report.getOrdersPerSecond());
+                    row.put("meanWaitMillis", report.getMeanWaitMillis());
+                    row.put("p99WaitMillis", report.getP99WaitMillis());
+                    row.put("recoveries", report.getRecoveries());
+                    row.put("deadlocked", report.isDeadlocked());
+                } else {
+                    simulator.start(mode, null, fairLocks);
+                    TimeUnit.MILLISECONDS.sleep((long) (seconds * 1000));
+                    KitchenStatus status = simulator.getStatus();
+                    simulator.stop();
+                    row.put("stolen", simulator.getStationReport().getStolen());
+                    row.put("ordersCompleted", status.getOrdersCompleted());
+                    row.put("ordersPerSecond", status.getOrdersPerSecond());
+                    row.put("meanWaitMillis", status.getMeanWaitMillis());
+                    row.put("p99WaitMillis", status.getP99WaitMillis());
+                    row.put("recoveries", status.getRecoveries());
+                    row.put("deadlocked", status.isDeadlocked());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                row.put("error", "interrupted");
+            } catch (RuntimeException e) {
+                row.put("error", e.getMessage() == null ? e.toString() : e.getMessage());
+            } finally {
+                if (simulator != null) {
+                    simulator.cleanup();
+                }
+            }
+            row.put("wallClockMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return row;
+        }
+    }
+
+    /** Writes rows in the order experiments finish, flushing each so a long sweep can be watched. */
+    private static final class ResultWriter implements AutoCloseable {
+        private final Writer out;
+        private final boolean json;
+        private final boolean ownsOut;
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        ResultWriter(Writer out, boolean json, boolean ownsOut) throws IOException {
+            this.out = out;
+            this.json = json;
+            this.ownsOut = ownsOut;
+            if (!json) {
+                out.write(String.join(",", COLUMNS));
+                out.write('\n');
+                out.flush();
+            }
+        }
+
+        synchronized void write(Map<String, Object> row) {
+            try {
+                if (json) {
+                    out.write(mapper.writeValueAsString(row));
+                } else {
+                    StringBuilder line = new StringBuilder();
+                    for (String column : COLUMNS) {
+                        if (line.length() > 0) {
+                            line.append(',');
+                        }
+                        line.append(csv(row.get(column)));
+                    }
+                    out.write(line.toString());
+                }
+                out.write('\n');
+                out.flush();
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize experiment " + row.get("experiment"), e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String csv(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof Double) {
+                return String.format("%.3f", (Double) value);
+            }
+            String text = value.toString();
+            if (text.contains(",") || text.contains("\"") || text.contains("\n")) {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+            return text;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (ownsOut) {
+                out.close();
+            } else {
+                out.flush(); // standard output stays open
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                System.err.println("usage: KitchenSweep [--engines=THREADS,ASYNC,VIRTUAL] [--modes=SAFE,...] "
+                        + "[--chefs=4,16] [--stations=1,4] [--use-millis=1,50] [--fair=false,true] [--equipment=STOVE:2,BLENDER:2] "
+                        + "[--seconds=3] [--parallel=N] [--seed=42] [--out=file.csv|file.json] [--verbose]");
+                System.exit(2);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    private static List<String> list(Map<String, String> options, String name, String defaults) {
+        List<String> values = new ArrayList<>();
+        for (String value : options.getOrDefault(name, defaults).split(",")) {
+            if (!value.trim().isEmpty()) {
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+}
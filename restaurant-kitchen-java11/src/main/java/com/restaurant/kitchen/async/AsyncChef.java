@@ -0,0 +1,140 @@
+package com.restaurant.kitchen.async;
+
+import com.restaurant.kitchen.metrics.ChefTally;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A chef as a state machine: pick a dish, collect equipment grants one at a time, schedule the
+ * end of cooking, release, repeat. Every step runs as a short task on the kitchen's pool and no
+ * step ever blocks, so a chef only costs memory while it waits.
+ *
+ * <p>Transitions of one chef never overlap: each step is triggered by exactly one grant or timer.
+ */
+final class AsyncChef {
+
+    private final int id;
+    private final String name;
+    private final AsyncKitchen kitchen;
+    private final Equipment[] needs;
+    private final AsyncEquipmentLock[] plan;
+    private final ChefTally tally;
+
+    private volatile ChefState state = ChefState.IDLE;
+    private volatile AsyncEquipmentLock waitingFor;
+    private int steps;
+    private int acquired;
+    private long cookNanos;
+    private long waitStartNanos;
+    private long backoffWindowMicros;
+    private CompletableFuture<Void> pending;
+    private ScheduledFuture<?> timeout;
+
+    AsyncChef(int id, AsyncKitchen kitchen, int maxEquipmentPerDish) {
+        this.id = id;
+        this.name = Chef.nameFor(id);
+        this.kitchen = kitchen;
+        this.needs = new Equipment[maxEquipmentPerDish];
+        this.plan = new AsyncEquipmentLock[maxEquipmentPerDish + 1];
+        this.tally = kitchen.stats().newChef(id, name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ChefState getState() {
+        return state;
+    }
+
+    AsyncEquipmentLock getWaitingFor() {
+        return waitingFor;
+    }
+
+    void nextOrder() {
+        if (!kitchen.isRunning()) {
+            state = ChefState.OFF;
+            return;
+        }
+        Dish dish = kitchen.pickDish();
+        int count = Chef.gatherEquipment(id, dish, kitchen.getRegistry(), ThreadLocalRandom.current(), needs);
+        steps = kitchen.plan(needs, count, plan);
+        cookNanos = 0;
+        for (int i = 0; i < count; i++) {
+            cookNanos += TimeUnit.MILLISECONDS.toNanos(needs[i].getUseMillis());
+        }
+        backoffWindowMicros = kitchen.initialBackoffMicros();
+        waitStartNanos = System.nanoTime();
+        acquired = 0;
+        acquireRemaining();
+    }
+
+    private void acquireRemaining() {
+        while (acquired < steps) {
+            AsyncEquipmentLock lock = plan[acquired];
+            CompletableFuture<Void> grant = lock.acquire(this);
+            if (!grant.isDone()) {
+                state = ChefState.WAITING;
+                waitingFor = lock;
+                pending = grant;
+                if (kitchen.tryTimeoutMillis() > 0) {
+                    timeout = kitchen.scheduler().schedule(() -> giveUp(grant), kitchen.tryTimeoutMillis(), TimeUnit.MILLISECONDS);
+                }
+                grant.thenRun(this::granted);
+                return;
+            }
+            acquired++;
+        }
+        kitchen.stats().recordWait(System.nanoTime() - waitStartNanos);
+        state = ChefState.COOKING;
+        kitchen.scheduler().schedule(this::doneCooking, cookNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void granted() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+        waitingFor = null;
+        pending = null;
+        acquired++;
+        acquireRemaining();
+    }
+
+    // TRY_LOCK: waited too long, so put everything back and retry after a random pause.
+    private void giveUp(CompletableFuture<Void> grant) {
+        if (grant != pending || !plan[acquired].cancel(grant)) {
+            return; // the grant won the race; granted() will carry on
+        }
+        waitingFor = null;
+        pending = null;
+        timeout = null;
+        releaseHeld();
+        state = ChefState.BACKING_OFF;
+        long pauseMicros = 1 + ThreadLocalRandom.current().nextLong(backoffWindowMicros);
+        backoffWindowMicros = Math.min(backoffWindowMicros * 2, kitchen.maxBackoffMicros());
+        kitchen.scheduler().schedule(this::acquireRemaining, pauseMicros, TimeUnit.MICROSECONDS);
+    }
+
+    private void doneCooking() {
+        releaseHeld();
+        tally.orderCompleted();
+        kitchen.stats().batchCooked();
+        state = ChefState.IDLE;
+        nextOrder();
+    }
+
+    private void releaseHeld() {
+        for (int i = acquired - 1; i >= 0; i--) {
+            plan[i].release();
+        }
+        acquired = 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.restaurant.kitchen.async;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A non-blocking FIFO mutex. {@link #acquire} never parks the caller: it returns a future that
+ * is already complete when the equipment was free, or completes later when the previous holder
+ * hands it over.
+ */
+final class AsyncEquipmentLock {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final String name;
+    private final Executor handoff;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private AsyncChef owner;
+
+    private static final class Waiter {
+        final AsyncChef chef;
+        final CompletableFuture<Void> grant = new CompletableFuture<>();
+
+        Waiter(AsyncChef chef) {
+            this.chef = chef;
+        }
+    }
+
+    AsyncEquipmentLock(String name, Executor handoff) {
+        this.name = name;
+        this.handoff = handoff;
+    }
+
+    synchronized CompletableFuture<Void> acquire(AsyncChef chef) {
+        if (owner == null) {
+            owner = chef;
+            return GRANTED;
+        }
+        Waiter waiter = new Waiter(chef);
+        waiters.addLast(waiter);
+        return waiter.grant;
+    }
+
+    /**
+     * Hands the lock to the next waiter. The grant is completed on the executor, not on the
+     * releasing chef's stack, so long queues cannot build deep call chains.
+     */
+    void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiters.pollFirst();
+            owner = next == null ? null : next.chef;
+        }
+        if (next != null) {
+            CompletableFuture<Void> grant = next.grant;
+            handoff.execute(() -> grant.complete(null));
+        }
+    }
+
+    /**
+     * Withdraws a pending request. Returns false if the lock was already handed to the chef, in
+     * which case the grant will still complete and the chef owns the lock.
+     */
+    synchronized boolean cancel(CompletableFuture<Void> grant) {
+        return waiters.removeIf(waiter -> waiter.grant == grant);
+    }
+
+    synchronized AsyncChef owner() {
+        return owner;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,221 @@
+package com.restaurant.kitchen.async;
+
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.restaurant.kitchen.strategy.LockStrategies.INITIAL_BACKOFF_MICROS;
+import static com.restaurant.kitchen.strategy.LockStrategies.MAX_BACKOFF_MICROS;
+import static com.restaurant.kitchen.strategy.LockStrategies.TRY_LOCK_TIMEOUT_MILLIS;
+
+/**
+ * The kitchen without a thread per chef. Chefs are {@link AsyncChef} state machines, equipment
+ * is granted through {@link AsyncEquipmentLock} futures and cooking time is a scheduled
+ * continuation, so the whole kitchen runs on whatever {@link ScheduledExecutorService} it is
+ * given, however many chefs there are.
+ *
+ * <p>Supports the lock protocols that make sense without blocking: DEADLOCK (preferred order),
+ * SAFE (rank order), TRY_LOCK (grant timeouts with backoff) and COARSE (a kitchen-wide lock
+ * first). WAITER and RECOVERY rely on parking and interrupting threads and need the THREADS
+ * engine.
+ */
+public class AsyncKitchen {
+
+    // A scan looks at every waiting chef, so with tens of thousands of chefs it runs rarely.
+    private static final long DETECTION_INTERVAL_MILLIS = 250;
+
+    private final EquipmentRegistry registry;
+    private final SimulationMode mode;
+    private final ScheduledExecutorService scheduler;
+    private final KitchenStats stats;
+    private final List<Dish> menu;
+    private final AsyncEquipmentLock[] locksByRank;
+    private final AsyncEquipmentLock kitchenLock;
+    private final List<AsyncChef> chefs = new ArrayList<>();
+
+    private volatile boolean running;
+    private volatile List<DeadlockCycle> deadlocks = Collections.emptyList();
+    private Set<Set<AsyncChef>> candidates = Collections.emptySet();
+    private ScheduledFuture<?> detection;
+
+    public AsyncKitchen(EquipmentRegistry registry, SimulationMode mode, int chefCount,
+                        ScheduledExecutorService scheduler, KitchenStats stats) {
+        if (mode == SimulationMode.WAITER || mode == SimulationMode.RECOVERY || mode == SimulationMode.AVOIDANCE
+                || mode == SimulationMode.PRIORITY) {
+            throw new IllegalArgumentException(mode + " mode needs the THREADS engine");
+        }
+        this.registry = registry;
+        this.mode = mode;
+        this.scheduler = scheduler;
+        this.stats = stats;
+        this.menu = Chef.menuFor(registry);
+        if (menu.isEmpty()) {
+            throw new IllegalStateException("Nothing on the menu can be cooked with " + registry.counts());
+        }
+        this.locksByRank = new AsyncEquipmentLock[registry.size()];
+        for (Equipment piece : registry.all()) {
+            locksByRank[piece.getRank()] = new AsyncEquipmentLock(piece.getName(), scheduler);
+        }
+        this.kitchenLock = new AsyncEquipmentLock("KITCHEN", scheduler);
+        int maxEquipment = Chef.maxEquipmentPerDish(menu);
+        for (int i = 0; i < chefCount; i++) {
+            chefs.add(new AsyncChef(i, this, maxEquipment));
+        }
+    }
+
+    public void start() {
+        running = true;
+        for (AsyncChef chef : chefs) {
+            scheduler.execute(chef::nextOrder);
+        }
+        detection = scheduler.scheduleWithFixedDelay(this::detectDeadlocks,
+                DETECTION_INTERVAL_MILLIS, DETECTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Chefs finish the step they are on and then stop; the scheduler is left to its owner. */
+    public void stop() {
+        running = false;
+        if (detection != null) {
+            detection.cancel(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public List<DeadlockCycle> latestDeadlocks() {
+        return deadlocks;
+    }
+
+    public List<String> chefNames(int limit) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, chefs.size()); i++) {
+            names.add(chefs.get(i).getName());
+        }
+        return names;
+    }
+
+    /** The state of each of the first {@code limit} chefs, in chef order. */
+    public List<ChefState> chefStates(int limit) {
+        List<ChefState> states = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, chefs.size()); i++) {
+            states.add(chefs.get(i).getState());
+        }
+        return states;
+    }
+
+    EquipmentRegistry getRegistry() {
+        return registry;
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    KitchenStats stats() {
+        return stats;
+    }
+
+    Dish pickDish() {
+        return menu.get(ThreadLocalRandom.current().nextInt(menu.size()));
+    }
+
+    long tryTimeoutMillis() {
+        return mode == SimulationMode.TRY_LOCK ? TRY_LOCK_TIMEOUT_MILLIS : 0;
+    }
+
+    long initialBackoffMicros() {
+        return INITIAL_BACKOFF_MICROS;
+    }
+
+    long maxBackoffMicros() {
+        return MAX_BACKOFF_MICROS;
+    }
+
+    /** Turns the chef's equipment list into the sequence of locks the mode asks for. */
+    int plan(Equipment[] needs, int count, AsyncEquipmentLock[] plan) {
+        if (mode == SimulationMode.SAFE) {
+            Equipment.sortByRank(needs, count);
+        }
+        int steps = 0;
+        if (mode == SimulationMode.COARSE) {
+            plan[steps++] = kitchenLock;
+        }
+        for (int i = 0; i < count; i++) {
+            plan[steps++] = locksByRank[needs[i].getRank()];
+        }
+        return steps;
+    }
+
+    /**
+     * Every waiting chef waits for exactly one lock, so following owner links from each waiting
+     * chef finds every cycle in one pass over the chefs. As with the threaded detector, a cycle
+     * is only reported once two scans in a row have seen it.
+     */
+    private void detectDeadlocks() {
+        Map<AsyncChef, Integer> visitedInWalk = new IdentityHashMap<>();
+        Set<Set<AsyncChef>> found = new HashSet<>();
+        List<DeadlockCycle> confirmed = new ArrayList<>();
+        for (int start = 0; start < chefs.size(); start++) {
+            AsyncChef chef = chefs.get(start);
+            List<AsyncChef> path = new ArrayList<>();
+            while (waitingOwnerOf(chef) != null && !visitedInWalk.containsKey(chef)) {
+                visitedInWalk.put(chef, start);
+                path.add(chef);
+                chef = waitingOwnerOf(chef);
+            }
+            if (chef != null && visitedInWalk.get(chef) != null && visitedInWalk.get(chef) == start) {
+                List<AsyncChef> cycle = path.subList(path.indexOf(chef), path.size());
+                Set<AsyncChef> members = Collections.newSetFromMap(new IdentityHashMap<>());
+                members.addAll(cycle);
+                found.add(members);
+                if (candidates.contains(members)) {
+                    confirmed.add(describe(cycle));
+                }
+            }
+        }
+        candidates = found;
+        deadlocks = Collections.unmodifiableList(confirmed);
+    }
+
+    private static AsyncChef waitingOwnerOf(AsyncChef chef) {
+        AsyncEquipmentLock lock = chef.getState() == ChefState.WAITING ? chef.getWaitingFor() : null;
+        return lock == null ? null : lock.owner();
+    }
+
+    private static DeadlockCycle describe(List<AsyncChef> cycle) {
+        List<String> names = new ArrayList<>();
+        List<String> equipment = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < cycle.size(); i++) {
+            AsyncChef chef = cycle.get(i);
+            String wanted = String.valueOf(chef.getWaitingFor());
+            names.add(chef.getName());
+            equipment.add(wanted);
+            if (i > 0) {
+                description.append("; ");
+            }
+            description.append(chef.getName()).append(" waits for ").append(wanted)
+                    .append(" held by ").append(cycle.get((i + 1) % cycle.size()).getName());
+        }
+        return new DeadlockCycle(names, equipment, description.toString());
+    }
+}
@@ -0,0 +1,259 @@
+package com.restaurant.kitchen.async;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One bounded pool shared by many kitchens. Each kitchen gets its own {@link Lane}, whose tasks
+ * run one at a time and in order (so a kitchen behaves like an actor). Lanes with work queue up
+ * for the workers round-robin and give their worker back after at most {@code quantum} tasks,
+ * so a busy kitchen cannot starve a quiet one. All delays are kept by one shared timer thread,
+ * which only moves due tasks onto their lane.
+ */
+public class FairScheduler {
+    private static final Logger logger = LogManager.getLogger(FairScheduler.class);
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final Thread[] workers;
+    private final LinkedBlockingQueue<Lane> ready = new LinkedBlockingQueue<>();
+    private final int quantum;
+    private final AtomicInteger openLanes = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    public FairScheduler(int threads, int quantum) {
+        if (threads < 1 || quantum < 1) {
+            throw new IllegalArgumentException("Need at least one worker and a quantum of at least one task");
+        }
+        this.quantum = quantum;
+        this.timer = new ScheduledThreadPoolExecutor(1, task -> daemon(task, "kitchen-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = daemon(this::work, "kitchen-worker-" + i);
+            workers[i].start();
+        }
+    }
+
+    public Lane newLane(String name) {
+        if (shutdown) {
+            throw new IllegalStateException("The scheduler has been shut down");
+        }
+        openLanes.incrementAndGet();
+        return new Lane(name);
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    public int getOpenLanes() {
+        return openLanes.get();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        timer.shutdownNow();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (!shutdown) {
+            Lane lane;
+            try {
+                lane = ready.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            lane.runTurn();
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * One kitchen's view of the pool. Tasks arriving after {@link #shutdown()} are dropped rather
+     * than rejected: they are late timer callbacks of a kitchen that has already been stopped.
+     */
+    public final class Lane extends AbstractExecutorService implements ScheduledExecutorService {
+        private final String name;
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private final LongAdder tasksRun = new LongAdder();
+        private volatile boolean closed;
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Tasks this lane has run so far; compare across lanes to check the sharing is fair. */
+        public long getTasksRun() {
+            return tasksRun.sum();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (closed) {
+                return;
+            }
+            tasks.offer(task);
+            if (queued.compareAndSet(false, true)) {
+                ready.offer(this);
+            }
+        }
+
+        private void runTurn() {
+            for (int i = 0; i < quantum && !closed; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    logger.warn("A task of kitchen {} failed", name, e);
+                }
+                tasksRun.increment();
+            }
+            queued.set(false);
+            // Anything that arrived during the turn goes to the back of the line, behind the other lanes.
+            if (!tasks.isEmpty() && !closed && queued.compareAndSet(false, true)) {
+                ready.offer(this);
+            }
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            return schedule(Executors.callable(command), delay, unit);
+        }
+
+        /** The returned future completes when the task has run on this lane, not when it was due. */
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            FutureTask<V> task = new FutureTask<>(callable);
+            return new LaneFuture<>(task, timer.schedule(() -> execute(task), delay, unit));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            return timer.scheduleAtFixedRate(() -> execute(command), initialDelay, period, unit);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            return timer.scheduleWithFixedDelay(() -> execute(command), initialDelay, delay, unit);
+        }
+
+        @Override
+        public void shutdown() {
+            if (!closed) {
+                closed = true;
+                openLanes.decrementAndGet();
+            }
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            tasks.clear();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return closed;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return closed && !queued.get();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!isTerminated()) {
+                if (System.nanoTime() >= deadline) {
+                    return false;
+                }
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            return true;
+        }
+    }
+
+    /** A task on its way to a lane: timed by the shared timer, completed by the lane. */
+    private static final class LaneFuture<V> implements ScheduledFuture<V> {
+        private final FutureTask<V> task;
+        private final ScheduledFuture<?> due;
+
+        LaneFuture(FutureTask<V> task, ScheduledFuture<?> due) {
+            this.task = task;
+            this.due = due;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return due.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return due.compareTo(other);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            due.cancel(false);
+            return task.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return task.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return task.get(timeout, unit);
+        }
+    }
+}
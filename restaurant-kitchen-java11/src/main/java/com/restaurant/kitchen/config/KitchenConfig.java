@@ -1,20 +1,16 @@
 package com.restaurant.kitchen.config;
 
-import com.restaurant.kitchen.resources.Blender;
-import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(KitchenProperties.class)
 public class KitchenConfig {
 
     @Bean
-    public Stove stove() {
-        return new Stove();
-    }
-
-    @Bean
-    public Blender blender() {
-        return new Blender();
+    public EquipmentRegistry equipmentRegistry(KitchenProperties properties) {
+        return EquipmentRegistry.fromCounts(properties.getEquipment(), properties.getUseMillis());
     }
 }
@@ -0,0 +1,209 @@
+package com.restaurant.kitchen.config;
+
+import com.restaurant.kitchen.model.KitchenEngine;
+import com.restaurant.kitchen.model.VictimPolicy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "kitchen")
+public class KitchenProperties {
+
+    private int chefCount = 4;
+
+    /** THREADS: one thread per chef. ASYNC: chefs are state machines on a small pool. */
+    private KitchenEngine engine = KitchenEngine.THREADS;
+
+    /** Pool size for the ASYNC engine; 0 means one thread per core. */
+    private int engineThreads = 0;
+
+    /** How long one use of any piece of equipment takes. */
+    private long useMillis = 50;
+
+    /**
+     * Units to install per equipment type, e.g. {@code stove: 6}. Ranks follow this order.
+     * Left empty, the kitchen gets the classic one Stove and one Blender.
+     */
+    private Map<String, Integer> equipment = new LinkedHashMap<>();
+
+    /** How often the deadlock detector sweeps the wait-for graph. */
+    private long detectorIntervalMillis = 5;
+
+    /** First-come-first-served equipment locks instead of barging ones (threaded engine). */
+    private boolean fairLocks = false;
+
+    /** Report lock-order inversions as they first appear, before they deadlock (threaded engine). */
+    private boolean lockOrderValidation = false;
+
+    private final Recovery recovery = new Recovery();
+
+    private final Orders orders = new Orders();
+
+    private final Journal journal = new Journal();
+
+    private final Manager manager = new Manager();
+
+    private final Stream stream = new Stream();
+
+    private final Stations stations = new Stations();
+
+    private final Priorities priorities = new Priorities();
+
+    public int getChefCount() { return chefCount; }
+    public void setChefCount(int chefCount) { this.chefCount = chefCount; }
+    public KitchenEngine getEngine() { return engine; }
+    public void setEngine(KitchenEngine engine) { this.engine = engine; }
+    public int getEngineThreads() { return engineThreads; }
+    public void setEngineThreads(int engineThreads) { this.engineThreads = engineThreads; }
+    public long getUseMillis() { return useMillis; }
+    public void setUseMillis(long useMillis) { this.useMillis = useMillis; }
+    public Map<String, Integer> getEquipment() { return equipment; }
+    public void setEquipment(Map<String, Integer> equipment) { this.equipment = equipment; }
+    public long getDetectorIntervalMillis() { return detectorIntervalMillis; }
+    public void setDetectorIntervalMillis(long detectorIntervalMillis) { this.detectorIntervalMillis = detectorIntervalMillis; }
+    public boolean isFairLocks() { return fairLocks; }
+    public void setFairLocks(boolean fairLocks) { this.fairLocks = fairLocks; }
+    public boolean isLockOrderValidation() { return lockOrderValidation; }
+    public void setLockOrderValidation(boolean lockOrderValidation) { this.lockOrderValidation = lockOrderValidation; }
+    public Recovery getRecovery() { return recovery; }
+    public Orders getOrders() { return orders; }
+    public Journal getJournal() { return journal; }
+    public Manager getManager() { return manager; }
+    public Stream getStream() { return stream; }
+    public Stations getStations() { return stations; }
+    public Priorities getPriorities() { return priorities; }
+
+    public static class Recovery {
+        /** Which chef on a deadlock cycle gives up its order in RECOVERY mode. */
+        private VictimPolicy victimPolicy = VictimPolicy.YOUNGEST_ORDER;
+
+        public VictimPolicy getVictimPolicy() { return victimPolicy; }
+        public void setVictimPolicy(VictimPolicy victimPolicy) { this.victimPolicy = victimPolicy; }
+    }
+
+    public static class Orders {
+        /** How many tickets fit on the rail before the front of house has to wait. */
+        private int queueCapacity = 64;
+
+        /** Most tickets for the same recipe a chef cooks under one acquisition of the equipment. */
+        private int batchSize = 1;
+
+        /** How long a chef waits for a batch to fill before cooking what it has. */
+        private long maxBatchDelayMillis = 0;
+
+        /** REPLAY load: the only directory replay files are read from; a relative path is against the working directory. */
+        private String replayDirectory = "replays";
+
+        /** REPLAY load: largest replay file accepted. */
+        private long maxReplayBytes = 16L << 20;
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        public long getMaxBatchDelayMillis() { return maxBatchDelayMillis; }
+        public void setMaxBatchDelayMillis(long maxBatchDelayMillis) { this.maxBatchDelayMillis = maxBatchDelayMillis; }
+        public String getReplayDirectory() { return replayDirectory; }
+        public void setReplayDirectory(String replayDirectory) { this.replayDirectory = replayDirectory; }
+        public long getMaxReplayBytes() { return maxReplayBytes; }
+        public void setMaxReplayBytes(long maxReplayBytes) { this.maxReplayBytes = maxReplayBytes; }
+    }
+
+    public static class Journal {
+        /** Record every order, acquisition, release and completion in the binary event journal. */
+        private boolean enabled = false;
+
+        /** Journal file; empty means kitchen-journal.bin in the temp directory. */
+        private String path = "";
+
+        /** Events kept before the oldest are overwritten (rounded up to a power of two, 32 bytes each). */
+        private int capacity = 1 << 16;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public String getPath() { return path; }
+        public void setPath(String path) { this.path = path; }
+        public int getCapacity() { return capacity; }
+        public void setCapacity(int capacity) { this.capacity = capacity; }
+    }
+
+    public static class Manager {
+        /** Worker threads shared by every kitchen under /api/kitchens; 0 means one per core. */
+        private int threads = 0;
+
+        /** Steps a kitchen may run before the next kitchen waiting for a thread gets its turn. */
+        private int quantum = 32;
+
+        private int maxKitchens = 500;
+
+        private int maxChefsPerKitchen = 1000;
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+        public int getQuantum() { return quantum; }
+        public void setQuantum(int quantum) { this.quantum = quantum; }
+        public int getMaxKitchens() { return maxKitchens; }
+        public void setMaxKitchens(int maxKitchens) { this.maxKitchens = maxKitchens; }
+        public int getMaxChefsPerKitchen() { return maxChefsPerKitchen; }
+        public void setMaxChefsPerKitchen(int maxChefsPerKitchen) { this.maxChefsPerKitchen = maxChefsPerKitchen; }
+    }
+
+    public static class Stream {
+        /** How often the status is sampled for /api/kitchen/status and pushed to stream subscribers. */
+        private long tickMillis = 250;
+
+        public long getTickMillis() { return tickMillis; }
+        public void setTickMillis(long tickMillis) { this.tickMillis = tickMillis; }
+    }
+
+    public static class Stations {
+        /**
+         * Stations the threaded kitchen is split into, each with its own copy of the equipment,
+         * its own share of the chefs and its own ticket rail; 1 is one shared kitchen.
+         */
+        private int count = 1;
+
+        /** Idle stations take tickets off the longest rail instead of waiting for their own. */
+        private boolean stealing = true;
+
+        public int getCount() { return count; }
+        public void setCount(int count) { this.count = count; }
+        public boolean isStealing() { return stealing; }
+        public void setStealing(boolean stealing) { this.stealing = stealing; }
+    }
+
+    public static class Priorities {
+        /**
+         * Place VIP and batch-prep orders in every mode, not just PRIORITY, e.g. to compare each
+         * class's latency across modes. Off, other modes get all NORMAL orders.
+         */
+        private boolean allModes = false;
+
+        /** Share of orders, in percent, placed as VIP orders; the rest of the split is below. */
+        private int vipPercent = 10;
+
+        /** Share of orders, in percent, that are batch prep, which can wait the longest. */
+        private int batchPrepPercent = 20;
+
+        /**
+         * How long an order waits before it counts as urgent as one placed a class above it: a
+         * batch-prep order placed this long before a normal one is served first.
+         */
+        private long agingMillis = 200;
+
+        /** PRIORITY mode: how long a chef may keep a piece someone else is waiting for; 0 for no limit. */
+        private long leaseMillis = 250;
+
+        public boolean isAllModes() { return allModes; }
+        public void setAllModes(boolean allModes) { this.allModes = allModes; }
+        public int getVipPercent() { return vipPercent; }
+        public void setVipPercent(int vipPercent) { this.vipPercent = vipPercent; }
+        public int getBatchPrepPercent() { return batchPrepPercent; }
+        public void setBatchPrepPercent(int batchPrepPercent) { this.batchPrepPercent = batchPrepPercent; }
+        public long getAgingMillis() { return agingMillis; }
+        public void setAgingMillis(long agingMillis) { this.agingMillis = agingMillis; }
+        public long getLeaseMillis() { return leaseMillis; }
+        public void setLeaseMillis(long leaseMillis) { this.leaseMillis = leaseMillis; }
+    }
+}
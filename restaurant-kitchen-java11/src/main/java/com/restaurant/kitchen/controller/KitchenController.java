@@ -1,22 +1,56 @@
 package com.restaurant.kitchen.controller;
 
+import com.restaurant.kitchen.journal.EventJournal;
+import com.restaurant.kitchen.journal.JournalEvent;
+import com.restaurant.kitchen.metrics.LatencyHistogram;
+import com.restaurant.kitchen.metrics.LockTimes;
+import com.restaurant.kitchen.model.ArrivalPattern;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.FairnessReport;
 import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.LoadCurve;
+import com.restaurant.kitchen.model.LoadProfile;
+import com.restaurant.kitchen.model.LoadReport;
 import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.model.StationReport;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
 import com.restaurant.kitchen.service.KitchenSimulator;
+import com.restaurant.kitchen.service.LockOrderValidator;
+import com.restaurant.kitchen.service.StatusBroadcaster;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/kitchen")
 public class KitchenController {
 
+    // A curve keeps the kitchen busy until it is done; keep that within a sensible time.
+    private static final double MAX_CURVE_SECONDS = 600;
+    // A simulation runs on the request thread; a day of virtual service is plenty.
+    private static final double MAX_SIMULATED_SECONDS = 24 * 3600;
+    private static final int MAX_SIMULATED_CHEFS = 1000;
+
     private final KitchenSimulator simulator;
+    private final EquipmentRegistry kitchen;
+    private final StatusBroadcaster broadcaster;
 
-    public KitchenController(KitchenSimulator simulator) {
+    public KitchenController(KitchenSimulator simulator, EquipmentRegistry kitchen, StatusBroadcaster broadcaster) {
         this.simulator = simulator;
+        this.kitchen = kitchen;
+        this.broadcaster = broadcaster;
     }
 
     @GetMapping("/")
@@ -29,8 +63,39 @@ public class KitchenController {
         Map<String, String> endpoints = new LinkedHashMap<>();
         endpoints.put("POST /api/kitchen/start?mode=DEADLOCK", "Start simulation in DEADLOCK mode (chefs will get stuck!)");
         endpoints.put("POST /api/kitchen/start?mode=SAFE", "Start simulation in SAFE mode (no deadlock)");
+        endpoints.put("POST /api/kitchen/start?mode=TRY_LOCK", "Chefs keep their own order but time out and back off");
+        endpoints.put("POST /api/kitchen/start?mode=WAITER", "A waiter limits how many chefs may reach for equipment");
+        endpoints.put("POST /api/kitchen/start?mode=COARSE", "One chef at a time (baseline for comparisons)");
+        endpoints.put("POST /api/kitchen/start?mode=RECOVERY&victim=YOUNGEST_ORDER",
+                "DEADLOCK habits, but each deadlock is broken by aborting a victim (YOUNGEST_ORDER, FEWEST_LOCKS, LOWEST_PRIORITY)");
+        endpoints.put("POST /api/kitchen/start?mode=AVOIDANCE", "Chefs keep their own order; a banker never lets a deadlock form");
+        endpoints.put("POST /api/kitchen/start?mode=PRIORITY", "VIP orders get equipment first; grants are leases that can be revoked");
+        endpoints.put("POST /api/kitchen/load?mode=SAFE&pattern=POISSON&rate=20",
+                "Open with customers arriving at a set rate (POISSON, BURST with burst=, REPLAY with file=)");
+        endpoints.put("GET  /api/kitchen/load", "Order latency (placed to served) per dish and priority: p50/p90/p99/p99.9");
+        endpoints.put("POST /api/kitchen/load/curve?rates=10,20,40,80&seconds=10",
+                "Latency-vs-load curve in the background: one measured run per arrival rate (takes rates x (warmup + seconds))");
+        endpoints.put("GET  /api/kitchen/load/curve", "The curve measured so far; POST /api/kitchen/stop ends it early");
+        endpoints.put("POST /api/kitchen/simulate?mode=SAFE&seconds=3600&seed=42",
+                "Replay an hour of service on a virtual clock (optional chefs=, victim=); returns in well under a second");
         endpoints.put("GET  /api/kitchen/status", "Check kitchen status, deadlock detection, orders served");
+        endpoints.put("GET  /api/kitchen/status/stream",
+                "Server-Sent Events: a snapshot, then only what changed (orders, chef states, deadlocks) each tick");
+        endpoints.put("GET  /api/kitchen/equipment", "Installed equipment per type and the dishes it can cook");
+        endpoints.put("POST /api/kitchen/start?mode=SAFE&fair=true", "Same, with first-come-first-served equipment locks");
+        endpoints.put("GET  /api/kitchen/fairness",
+                "Per-chef orders/sec over the last 10s, Jain fairness index, starved chefs and longest gaps");
+        endpoints.put("GET  /api/kitchen/stations",
+                "Per-station orders/sec, utilization, home/overflow routing and steals (kitchen.stations.count)");
+        endpoints.put("GET  /api/kitchen/lock-order",
+                "Equipment taken in conflicting orders, with stacks, before it deadlocks (kitchen.lock-order-validation)");
+        endpoints.put("GET  /api/kitchen/metrics", "Lock wait and hold time percentiles per equipment type and per chef");
+        endpoints.put("GET  /api/kitchen/journal?limit=200", "The latest order/acquire/release/complete events, decoded");
         endpoints.put("POST /api/kitchen/stop", "Stop the current simulation");
+        endpoints.put("POST /api/kitchens/{id}", "Build another, independent kitchen (body: chefCount, useMillis, equipment)");
+        endpoints.put("POST /api/kitchens/{id}/start?mode=SAFE", "Open it; all extra kitchens share one pool of threads");
+        endpoints.put("GET  /api/kitchens/", "Every extra kitchen with its mode and orders/sec; GET /api/kitchens/{id} for details");
+        endpoints.put("DELETE /api/kitchens/{id}", "Stop and tear down a kitchen (POST /api/kitchens/{id}/stop just stops it)");
         welcome.put("endpoints", endpoints);
 
         Map<String, String> howItWorks = new LinkedHashMap<>();
@@ -38,35 +103,162 @@ public class KitchenController {
                 + "Both wait forever for each other's equipment. Classic deadlock!");
         howItWorks.put("SAFE mode", "Both chefs always grab STOVE first, then BLENDER. "
                 + "Consistent lock ordering prevents deadlock.");
+        howItWorks.put("TRY_LOCK mode", "Chefs grab equipment in their own order, but give up after a short wait, "
+                + "put everything back and retry after a random, growing pause.");
+        howItWorks.put("WAITER mode", "Like the dining philosophers' waiter: only as many chefs as can never "
+                + "deadlock are allowed to reach for equipment at once.");
+        howItWorks.put("COARSE mode", "A single kitchen-wide lock. Never deadlocks, never overlaps either.");
+        howItWorks.put("RECOVERY mode", "Chefs deadlock just like in DEADLOCK mode, but the detector spots each cycle, "
+                + "picks a victim, and the victim puts its equipment back and retries the dish after a short pause.");
+        howItWorks.put("AVOIDANCE mode", "The banker's algorithm: each chef says up front what its order needs, and "
+                + "a piece of equipment is only handed over if every chef could still finish afterwards.");
+        howItWorks.put("PRIORITY mode", "Each piece of equipment has a queue served most urgent order first: VIP, then "
+                + "normal, then batch prep, with waiting orders moving up a class as they age. A chef keeping a piece "
+                + "past its lease while others wait is sent back to retry, like a RECOVERY victim.");
         welcome.put("howItWorks", howItWorks);
 
         return ResponseEntity.ok(welcome);
     }
 
     @PostMapping("/start")
-    public ResponseEntity<Map<String, Object>> start(@RequestParam(defaultValue = "DEADLOCK") String mode) {
+    public ResponseEntity<Map<String, Object>> start(@RequestParam(defaultValue = "DEADLOCK") String mode,
+                                                     @RequestParam(required = false) String victim,
+                                                     @RequestParam(required = false) Boolean fair) {
         SimulationMode simMode = SimulationMode.valueOf(mode.toUpperCase());
-        simulator.start(simMode);
+        if (fair != null) {
+            simulator.start(simMode, victim != null ? VictimPolicy.valueOf(victim.toUpperCase()) : null, fair);
+        } else if (victim != null) {
+            simulator.start(simMode, VictimPolicy.valueOf(victim.toUpperCase()));
+        } else {
+            simulator.start(simMode);
+        }
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("status", "STARTED");
         response.put("mode", simMode.name());
 
-        if (simMode == SimulationMode.DEADLOCK) {
-            response.put("message", "Kitchen is open in DEADLOCK mode! "
-                    + "Chef Gordon will grab the Stove first, while Chef Julia grabs the Blender first. "
-                    + "Check /api/kitchen/status to see the deadlock happen!");
-            response.put("warning", "Chefs will get stuck! This demonstrates a real deadlock scenario.");
-        } else {
-            response.put("message", "Kitchen is open in SAFE mode! "
-                    + "Both chefs follow the same lock order (Stove -> Blender). "
-                    + "Check /api/kitchen/status to see orders being completed!");
-            response.put("tip", "Compare the ordersCompleted count with DEADLOCK mode (which will be 0).");
+        switch (simMode) {
+            case DEADLOCK:
+                response.put("message", "Kitchen is open in DEADLOCK mode! "
+                        + "Chef Gordon will grab the Stove first, while Chef Julia grabs the Blender first. "
+                        + "Check /api/kitchen/status to see the deadlock happen!");
+                response.put("warning", "Chefs will get stuck! This demonstrates a real deadlock scenario.");
+                break;
+            case SAFE:
+                response.put("message", "Kitchen is open in SAFE mode! "
+                        + "Both chefs follow the same lock order (Stove -> Blender). "
+                        + "Check /api/kitchen/status to see orders being completed!");
+                response.put("tip", "Compare the ordersCompleted count with DEADLOCK mode (which will be 0).");
+                break;
+            case RECOVERY:
+                response.put("message", "Kitchen is open in RECOVERY mode! "
+                        + "Chefs will keep deadlocking, and every deadlock will be broken by sending one chef back. "
+                        + "Check /api/kitchen/status for recoveriesPerSecond and lostThroughputPercent.");
+                break;
+            default:
+                response.put("message", "Kitchen is open in " + simMode.name() + " mode! "
+                        + "Chefs keep their own habits, but the protocol keeps them from getting stuck. "
+                        + "Check /api/kitchen/status for orders/sec and wait times.");
+                response.put("tip", "Run each mode for the same time and compare ordersPerSecond and p99WaitMillis.");
+                break;
         }
 
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/load")
+    public ResponseEntity<Map<String, Object>> load(@RequestParam(defaultValue = "SAFE") String mode,
+                                                    @RequestParam(defaultValue = "POISSON") String pattern,
+                                                    @RequestParam(defaultValue = "20") double rate,
+                                                    @RequestParam(defaultValue = "10") int burst,
+                                                    @RequestParam(required = false) String file,
+                                                    @RequestParam(defaultValue = "42") long seed) {
+        SimulationMode simMode = SimulationMode.valueOf(mode.toUpperCase());
+        LoadProfile profile = loadProfile(pattern, rate, burst, file, seed);
+        simulator.start(simMode, profile);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "STARTED");
+        response.put("mode", simMode.name());
+        response.put("pattern", profile.getPattern().name());
+        response.put("ordersPerSecond", profile.getOrdersPerSecond());
+        response.put("message", "Customers are arriving! Check /api/kitchen/load for order latency per dish.");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/load")
+    public ResponseEntity<LoadReport> loadReport() {
+        return ResponseEntity.ok(simulator.getLoadReport());
+    }
+
+    @PostMapping("/load/curve")
+    public ResponseEntity<Map<String, Object>> loadCurve(@RequestParam(defaultValue = "SAFE") String mode,
+                                                      @RequestParam(defaultValue = "POISSON") String pattern,
+                                                      @RequestParam(defaultValue = "10,20,40,80") double[] rates,
+                                                      @RequestParam(defaultValue = "10") double seconds,
+                                                      @RequestParam(defaultValue = "2") double warmup,
+                                                      @RequestParam(defaultValue = "10") int burst,
+                                                      @RequestParam(required = false) String file,
+                                                      @RequestParam(defaultValue = "42") long seed) {
+        if (rates.length == 0 || seconds <= 0 || warmup < 0) {
+            throw new IllegalArgumentException("A load curve needs at least one rate and a positive measuring time");
+        }
+        if (rates.length * (seconds + warmup) > MAX_CURVE_SECONDS) {
+            throw new IllegalArgumentException("A load curve may take at most " + MAX_CURVE_SECONDS + " seconds");
+        }
+        SimulationMode simMode = SimulationMode.valueOf(mode.toUpperCase());
+        LoadCurve curve = simulator.startLoadCurve(simMode, loadProfile(pattern, 0, burst, file, seed),
+                rates, warmup, seconds);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "MEASURING");
+        response.put("mode", simMode.name());
+        response.put("ratesPerSecond", curve.getRatesPerSecond());
+        response.put("expectedSeconds", rates.length * curve.getSecondsPerRate());
+        response.put("message", "Measuring in the background. Check /api/kitchen/load/curve for the points so far.");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/load/curve")
+    public ResponseEntity<LoadCurve> loadCurveProgress() {
+        LoadCurve curve = simulator.getLoadCurve();
+        return curve == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(curve);
+    }
+
+    private static LoadProfile loadProfile(String pattern, double rate, int burst, String file, long seed) {
+        LoadProfile profile = new LoadProfile(ArrivalPattern.valueOf(pattern.toUpperCase()), rate);
+        profile.setBurstSize(burst);
+        profile.setReplayFile(file);
+        profile.setSeed(seed);
+        return profile;
+    }
+
+    @PostMapping("/simulate")
+    public ResponseEntity<SimulationReport> simulate(@RequestParam(defaultValue = "SAFE") String mode,
+                                                     @RequestParam(defaultValue = "3600") double seconds,
+                                                     @RequestParam(defaultValue = "42") long seed,
+                                                     @RequestParam(required = false) Integer chefs,
+                                                     @RequestParam(required = false) String victim) {
+        if (!(seconds > 0 && seconds <= MAX_SIMULATED_SECONDS)) {
+            throw new IllegalArgumentException("A simulation may cover more than 0 and at most "
+                    + MAX_SIMULATED_SECONDS + " seconds, was " + seconds);
+        }
+        if (chefs != null && (chefs < 1 || chefs > MAX_SIMULATED_CHEFS)) {
+            throw new IllegalArgumentException("A simulation may have 1 to " + MAX_SIMULATED_CHEFS + " chefs, was " + chefs);
+        }
+        SimulationMode simMode = SimulationMode.valueOf(mode.toUpperCase());
+        SimulationReport report;
+        if (chefs == null && victim == null) {
+            report = simulator.simulate(simMode, seconds, seed);
+        } else {
+            KitchenStatus current = simulator.getStatus();
+            report = simulator.simulate(simMode,
+                    victim != null ? VictimPolicy.valueOf(victim.toUpperCase()) : VictimPolicy.YOUNGEST_ORDER,
+                    chefs != null ? chefs : current.getActiveChefs(), seconds, seed);
+        }
+        return ResponseEntity.ok(report);
+    }
+
     @PostMapping("/stop")
     public ResponseEntity<Map<String, Object>> stop() {
         KitchenStatus statusBeforeStop = simulator.getStatus();
@@ -76,6 +268,13 @@ public class KitchenController {
         response.put("status", "STOPPED");
         response.put("totalOrdersServed", statusBeforeStop.getOrdersCompleted());
         response.put("wasDeadlocked", statusBeforeStop.isDeadlocked());
+        response.put("ordersPerSecond", statusBeforeStop.getOrdersPerSecond());
+        response.put("meanWaitMillis", statusBeforeStop.getMeanWaitMillis());
+        response.put("p99WaitMillis", statusBeforeStop.getP99WaitMillis());
+        if (statusBeforeStop.getMode() == SimulationMode.RECOVERY) {
+            response.put("deadlocksBroken", statusBeforeStop.getRecoveries());
+            response.put("lostThroughputPercent", statusBeforeStop.getLostThroughputPercent());
+        }
 
         if (statusBeforeStop.isDeadlocked()) {
             response.put("message", "Kitchen was DEADLOCKED when stopped. "
@@ -91,6 +290,125 @@ public class KitchenController {
 
     @GetMapping("/status")
     public ResponseEntity<KitchenStatus> status() {
-        return ResponseEntity.ok(simulator.getStatus());
+        return ResponseEntity.ok(broadcaster.latestStatus());
+    }
+
+    @GetMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter statusStream() {
+        return broadcaster.subscribe();
+    }
+
+    @GetMapping("/equipment")
+    public ResponseEntity<Map<String, Object>> equipment() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("units", kitchen.counts());
+        response.put("totalUnits", kitchen.size());
+
+        Map<String, Object> menu = new LinkedHashMap<>();
+        for (Dish dish : Chef.menuFor(kitchen)) {
+            menu.put(dish.getName(), dish.getEquipment());
+        }
+        response.put("menu", menu);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/fairness")
+    public ResponseEntity<FairnessReport> fairness() {
+        return ResponseEntity.ok(simulator.getFairnessReport());
+    }
+
+    @GetMapping("/stations")
+    public ResponseEntity<StationReport> stations() {
+        return ResponseEntity.ok(simulator.getStationReport());
+    }
+
+    @GetMapping("/lock-order")
+    public ResponseEntity<Map<String, Object>> lockOrder() {
+        LockOrderValidator validator = simulator.getLockOrderValidator();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("enabled", validator != null);
+        if (validator == null) {
+            response.put("message", "Set kitchen.lock-order-validation=true and start the kitchen on the THREADS engine.");
+        } else {
+            response.put("orderingsSeen", validator.getOrderings());
+            response.put("violationCount", validator.getViolationCount());
+            response.put("violations", validator.getViolations());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("unit", "milliseconds");
+
+        Map<String, Object> byType = new LinkedHashMap<>();
+        for (Map.Entry<EquipmentType, LockTimes> entry : simulator.getLockTimesByType().entrySet()) {
+            byType.put(entry.getKey().name(), lockTimes(entry.getValue()));
+        }
+        response.put("byEquipmentType", byType);
+
+        Map<String, Object> byChef = new LinkedHashMap<>();
+        for (Map.Entry<String, LockTimes> entry : simulator.getLockTimesByChef().entrySet()) {
+            byChef.put(entry.getKey(), lockTimes(entry.getValue()));
+        }
+        response.put("byChef", byChef);
+        response.put("tip", "High wait with normal hold means contention; high hold means slow cooking "
+                + "(or, for the first piece of a recipe, waiting for the rest of it).");
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/journal")
+    public ResponseEntity<Map<String, Object>> journal(@RequestParam(defaultValue = "200") int limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        EventJournal journal = simulator.getJournal();
+        if (journal == null) {
+            response.put("message", "No event journal yet. Start a simulation with kitchen.journal.enabled=true.");
+            return ResponseEntity.ok(response);
+        }
+        List<String> events = new ArrayList<>();
+        for (JournalEvent event : journal.tail(limit)) {
+            events.add(event.toString());
+        }
+        response.put("file", journal.getFile().toString());
+        response.put("capacity", journal.getCapacity());
+        response.put("eventsWritten", journal.written());
+        response.put("events", events);
+        return ResponseEntity.ok(response);
+    }
+
+    private static Map<String, Object> lockTimes(LockTimes times) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("wait", percentiles(times.getWaits()));
+        summary.put("hold", percentiles(times.getHolds()));
+        return summary;
+    }
+
+    private static Map<String, Object> percentiles(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.count());
+        summary.put("mean", histogram.meanNanos() / 1e6);
+        summary.put("p50", histogram.valueAtPercentile(50) / 1e6);
+        summary.put("p90", histogram.valueAtPercentile(90) / 1e6);
+        summary.put("p99", histogram.valueAtPercentile(99) / 1e6);
+        summary.put("p999", histogram.valueAtPercentile(99.9) / 1e6);
+        summary.put("max", histogram.maxNanos() / 1e6);
+        return summary;
+    }
+
+    /** Bad modes, patterns or settings, and combinations the chosen engine cannot run. */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, e);
+    }
+
+    /** The kitchen is busy, e.g. with a load curve. */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> conflict(IllegalStateException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, RuntimeException e) {
+        return ResponseEntity.status(status).body(Collections.<String, Object>singletonMap("error", e.getMessage()));
     }
 }
@@ -0,0 +1,130 @@
+package com.restaurant.kitchen.controller;
+
+import com.restaurant.kitchen.model.KitchenSpec;
+import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.service.KitchenManager;
+import com.restaurant.kitchen.service.ManagedKitchen;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/** Many independent kitchens side by side, each addressed by its own id. */
+@RestController
+@RequestMapping("/api/kitchens")
+public class KitchensController {
+
+    private final KitchenManager manager;
+
+    public KitchensController(KitchenManager manager) {
+        this.manager = manager;
+    }
+
+    @GetMapping("/")
+    public ResponseEntity<Map<String, Object>> list() {
+        List<Map<String, Object>> kitchens = new ArrayList<>();
+        for (ManagedKitchen kitchen : manager.list()) {
+            KitchenStatus status = kitchen.getStatus();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("id", kitchen.getId());
+            summary.put("running", status.isRunning());
+            summary.put("mode", status.getMode());
+            summary.put("deadlocked", status.isDeadlocked());
+            summary.put("ordersCompleted", status.getOrdersCompleted());
+            summary.put("ordersPerSecond", status.getOrdersPerSecond());
+            kitchens.add(summary);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("sharedThreads", manager.getThreads());
+        response.put("kitchens", kitchens);
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> create(@PathVariable String id,
+                                                      @RequestBody(required = false) KitchenSpec spec) {
+        ManagedKitchen kitchen = manager.create(id, spec != null ? spec : new KitchenSpec());
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "CREATED");
+        response.put("id", kitchen.getId());
+        response.put("equipment", kitchen.getEquipment());
+        response.put("message", "Kitchen '" + id + "' is built. POST /api/kitchens/" + id + "/start?mode=SAFE to open it.");
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping("/{id}/start")
+    public ResponseEntity<Map<String, Object>> start(@PathVariable String id,
+                                                     @RequestParam(defaultValue = "SAFE") String mode) {
+        SimulationMode simMode = SimulationMode.valueOf(mode.toUpperCase());
+        manager.start(id, simMode);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "STARTED");
+        response.put("id", id);
+        response.put("mode", simMode.name());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{id}/stop")
+    public ResponseEntity<Map<String, Object>> stop(@PathVariable String id) {
+        // Looked up once: a concurrent DELETE can take the id away, but not the kitchen we hold.
+        ManagedKitchen kitchen = require(id);
+        boolean wasRunning = kitchen.stop();
+        KitchenStatus status = kitchen.getStatus();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", wasRunning ? "STOPPED" : "NOT_RUNNING");
+        response.put("id", id);
+        response.put("totalOrdersServed", status.getOrdersCompleted());
+        response.put("ordersPerSecond", status.getOrdersPerSecond());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<KitchenStatus> status(@PathVariable String id) {
+        return ResponseEntity.ok(require(id).getStatus());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> delete(@PathVariable String id) {
+        if (!manager.delete(id)) {
+            throw new NoSuchElementException("No kitchen '" + id + "'");
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", "DELETED");
+        response.put("id", id);
+        return ResponseEntity.ok(response);
+    }
+
+    private ManagedKitchen require(String id) {
+        ManagedKitchen kitchen = manager.find(id);
+        if (kitchen == null) {
+            throw new NoSuchElementException("No kitchen '" + id + "'");
+        }
+        return kitchen;
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, Object>> notFound(NoSuchElementException e) {
+        return error(HttpStatus.NOT_FOUND, e);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, e);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> conflict(IllegalStateException e) {
+        return error(HttpStatus.CONFLICT, e);
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, RuntimeException e) {
+        return ResponseEntity.status(status).body(Collections.<String, Object>singletonMap("error", e.getMessage()));
+    }
+}
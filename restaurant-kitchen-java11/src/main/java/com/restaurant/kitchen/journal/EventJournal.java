@@ -0,0 +1,175 @@
+package com.restaurant.kitchen.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fixed-size ring of binary event records in a memory-mapped file, so a full trace of every
+ * order costs a few stores instead of a formatted log line. Once full, the oldest records are
+ * overwritten.
+ *
+ * <p>Writers are lock-free: each claims a sequence number with one atomic add on the file
+ * header, fills in its 32-byte slot and then publishes it by storing {@code sequence + 1} in the
+ * slot's first word. Readers treat that word like a seqlock, skipping slots that are unpublished
+ * or were overwritten while being read. The file can be decoded while the kitchen is running,
+ * from this process ({@link #tail}) or another one ({@link #readTail}, {@link JournalDump}).
+ *
+ * <pre>
+ * header (64 bytes): magic, version, capacity, record size, epoch millis, nanoTime at epoch, next sequence
+ * record (32 bytes): commit word, nanoTime, chef id, event type, subject, value
+ * </pre>
+ */
+public class EventJournal implements Closeable {
+
+    private static final int MAGIC = 0x4C4E4A4B; // "KJNL" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 32;
+    private static final int CAPACITY_AT = 8;
+    private static final int EPOCH_MILLIS_AT = 16;
+    private static final int EPOCH_NANOS_AT = 24;
+    private static final int NEXT_SEQUENCE_AT = 32;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    private EventJournal(Path file, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    /** Creates (or truncates) {@code file} as an empty journal of at least {@code capacity} records. */
+    public static EventJournal create(Path file, int capacity) throws IOException {
+        if (capacity < 1 || capacity > 1 << 26) {
+            throw new IllegalArgumentException("Journal capacity must be between 1 and 2^26 records, was " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity - 1) << 1;
+        if (capacity == 1) {
+            slots = 1;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer buffer;
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * RECORD_BYTES);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_AT, slots);
+        buffer.putInt(12, RECORD_BYTES);
+        buffer.putLong(EPOCH_MILLIS_AT, System.currentTimeMillis());
+        buffer.putLong(EPOCH_NANOS_AT, System.nanoTime());
+        LONGS.setVolatile(buffer, NEXT_SEQUENCE_AT, 0L);
+        return new EventJournal(file, channel, buffer, slots);
+    }
+
+    /** Appends one event. Allocation-free and lock-free; safe from any number of threads. */
+    public void record(EventType type, int chefId, int subject, int value) {
+        long sequence = (long) LONGS.getAndAdd(buffer, NEXT_SEQUENCE_AT, 1L);
+        int at = HEADER_BYTES + (int) (sequence & mask) * RECORD_BYTES;
+        LONGS.setOpaque(buffer, at, 0L);
+        VarHandle.storeStoreFence();
+        buffer.putLong(at + 8, System.nanoTime());
+        buffer.putInt(at + 16, chefId);
+        buffer.putInt(at + 20, type.ordinal());
+        buffer.putInt(at + 24, subject);
+        buffer.putInt(at + 28, value);
+        LONGS.setRelease(buffer, at, sequence + 1);
+    }
+
+    public Path getFile() { return file; }
+    public int getCapacity() { return capacity; }
+
+    /** How many events have been recorded since the journal was created, including overwritten ones. */
+    public long written() {
+        return (long) LONGS.getVolatile(buffer, NEXT_SEQUENCE_AT);
+    }
+
+    /** The last {@code limit} (at most) readable events, oldest first. */
+    public List<JournalEvent> tail(int limit) {
+        return tail(buffer, limit);
+    }
+
+    /** Decodes the last {@code limit} events of a journal file, which may still be being written. */
+    public static List<JournalEvent> readTail(Path file, int limit) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + " is not a kitchen event journal");
+            }
+            if (buffer.getInt(4) != VERSION || buffer.getInt(12) != RECORD_BYTES) {
+                throw new IOException(file + " was written by an incompatible journal version " + buffer.getInt(4));
+            }
+            // The ring indexes records by sequence modulo capacity, so the header must describe this file.
+            int capacity = buffer.getInt(CAPACITY_AT);
+            if (capacity <= 0 || Integer.bitCount(capacity) != 1
+                    || HEADER_BYTES + (long) capacity * RECORD_BYTES > channel.size()) {
+                throw new IOException(file + " is damaged: a capacity of " + capacity + " records does not fit its "
+                        + channel.size() + " bytes");
+            }
+            if (buffer.getLong(NEXT_SEQUENCE_AT) < 0) {
+                throw new IOException(file + " is damaged: negative next sequence " + buffer.getLong(NEXT_SEQUENCE_AT));
+            }
+            return tail(buffer, limit);
+        }
+    }
+
+    private static List<JournalEvent> tail(ByteBuffer buffer, int limit) {
+        int capacity = buffer.getInt(CAPACITY_AT);
+        long epochMillis = buffer.getLong(EPOCH_MILLIS_AT);
+        long epochNanos = buffer.getLong(EPOCH_NANOS_AT);
+        long next = (long) LONGS.getVolatile(buffer, NEXT_SEQUENCE_AT);
+        long from = Math.max(0, next - Math.min(capacity, Math.max(0, limit)));
+        List<JournalEvent> events = new ArrayList<>((int) (next - from));
+        for (long sequence = from; sequence < next; sequence++) {
+            int at = HEADER_BYTES + (int) (sequence % capacity) * RECORD_BYTES;
+            long commit = (long) LONGS.getAcquire(buffer, at);
+            if (commit != sequence + 1) {
+                continue; // still being written, or already overwritten by a later lap
+            }
+            long nanos = buffer.getLong(at + 8);
+            int chefId = buffer.getInt(at + 16);
+            EventType type = EventType.of(buffer.getInt(at + 20));
+            int subject = buffer.getInt(at + 24);
+            int value = buffer.getInt(at + 28);
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(buffer, at) != commit || type == null) {
+                continue; // torn by a writer lapping us
+            }
+            long sinceEpoch = nanos - epochNanos;
+            Instant time = Instant.ofEpochMilli(epochMillis).plusNanos(sinceEpoch);
+            events.add(new JournalEvent(sequence, time, chefId, type, subject, value));
+        }
+        return events;
+    }
+
+    /** Unmapping is left to the garbage collector; the mapped records stay readable until then. */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
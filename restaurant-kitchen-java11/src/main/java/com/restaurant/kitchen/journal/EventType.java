@@ -0,0 +1,24 @@
+package com.restaurant.kitchen.journal;
+
+/**
+ * What a journal record says happened. The meaning of a record's {@code subject} and
+ * {@code value} fields depends on its type.
+ */
+public enum EventType {
+    /** subject: dish number, value: portions in the batch. */
+    ORDER,
+    /** subject: equipment type ordinal, value: unit number. */
+    ACQUIRED,
+    /** subject: equipment type ordinal, value: unit number. */
+    RELEASED,
+    /** subject: dish number, value: orders this chef has served so far. */
+    COMPLETED,
+    /** subject: dish number, value: portions of the batch already served. */
+    ABORTED;
+
+    private static final EventType[] VALUES = values();
+
+    static EventType of(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.restaurant.kitchen.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Prints a journal file as text, oldest event first. Works on a journal that is still being
+ * written.
+ *
+ * <pre>
+ * ./gradlew journalDump -Pjournal=/tmp/kitchen-journal.bin -Plimit=200
+ * </pre>
+ */
+public final class JournalDump {
+
+    private JournalDump() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: JournalDump <journal file> [max events]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        int limit = args.length == 2 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+        for (JournalEvent event : EventJournal.readTail(file, limit)) {
+            System.out.println(event);
+        }
+    }
+}
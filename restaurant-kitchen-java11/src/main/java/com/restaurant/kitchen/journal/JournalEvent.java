@@ -0,0 +1,69 @@
+package com.restaurant.kitchen.journal;
+
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.resources.Chef;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/** One decoded journal record. */
+public class JournalEvent {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS")
+            .withZone(ZoneId.systemDefault());
+    private static final EquipmentType[] EQUIPMENT = EquipmentType.values();
+
+    private final long sequence;
+    private final Instant time;
+    private final int chefId;
+    private final EventType type;
+    private final int subject;
+    private final int value;
+
+    JournalEvent(long sequence, Instant time, int chefId, EventType type, int subject, int value) {
+        this.sequence = sequence;
+        this.time = time;
+        this.chefId = chefId;
+        this.type = type;
+        this.subject = subject;
+        this.value = value;
+    }
+
+    public long getSequence() { return sequence; }
+    public Instant getTime() { return time; }
+    public int getChefId() { return chefId; }
+    public EventType getType() { return type; }
+    public int getSubject() { return subject; }
+    public int getValue() { return value; }
+
+    /** The record as the old log line would have put it, e.g. {@code 12:00:01.234567 [Chef Gordon#0] Got STOVE#1}. */
+    @Override
+    public String toString() {
+        return TIME.format(time) + " [Chef " + Chef.nameFor(chefId) + "#" + chefId + "] " + describe();
+    }
+
+    private String describe() {
+        switch (type) {
+            case ORDER:
+                return "New order received: " + dish() + " x" + value;
+            case ACQUIRED:
+                return "Got " + equipment();
+            case RELEASED:
+                return "Put back " + equipment();
+            case COMPLETED:
+                return "Ding ding! " + dish() + " is READY! (Orders this chef served today: " + value + ")";
+            case ABORTED:
+                return "Chosen to break a deadlock! Dropping " + dish() + " after " + value + " portions";
+            default:
+                return type + " " + subject + " " + value;
+        }
+    }
+
+    private String dish() {
+        return subject >= 0 && subject < Chef.dishCount() ? Chef.dishNumbered(subject).getName() : "dish " + subject;
+    }
+
+    private String equipment() {
+        return (subject >= 0 && subject < EQUIPMENT.length ? EQUIPMENT[subject].name() : "equipment " + subject) + "#" + value;
+    }
+}
@@ -0,0 +1,111 @@
+package com.restaurant.kitchen.metrics;
+
+import java.util.Arrays;
+
+/**
+ * One chef's own order counter: the total, the last {@value #WINDOW_SECONDS} seconds in
+ * one-second buckets, and the longest gap between two orders.
+ *
+ * <p>Only the chef writes it (a threaded chef from its thread, an async chef from whichever
+ * pool thread runs its step, never two at once), so counting is a handful of plain writes
+ * and one volatile write, with no CAS. Its bucket arrays are allocated right after it, so the
+ * next chef's tally does not start on the same cache line. Readers get a consistent-enough
+ * picture for monitoring.
+ */
+public final class ChefTally {
+
+    public static final int WINDOW_SECONDS = 10;
+    private static final long BUCKET_NANOS = 1_000_000_000L;
+
+    private final int chefId;
+    private final String name;
+    private final long startedAtNanos;
+    private final long[] bucketSecond = new long[WINDOW_SECONDS];
+    private final long[] bucketOrders = new long[WINDOW_SECONDS];
+    private long lastOrderNanos;
+    private long longestGapNanos;
+    private volatile long equipmentNanos;
+    // Written last by the owner, read first by readers, so everything above is visible with it.
+    private volatile long orders;
+
+    ChefTally(int chefId, String name, long startedAtNanos) {
+        this.chefId = chefId;
+        this.name = name;
+        this.startedAtNanos = startedAtNanos;
+        this.lastOrderNanos = startedAtNanos;
+        Arrays.fill(bucketSecond, -1);
+    }
+
+    /** Counts one served order and returns how many this chef has served. Owner only. */
+    public long orderCompleted() {
+        long now = System.nanoTime();
+        long gap = now - lastOrderNanos;
+        if (gap > longestGapNanos) {
+            longestGapNanos = gap;
+        }
+        lastOrderNanos = now;
+        long second = (now - startedAtNanos) / BUCKET_NANOS;
+        int bucket = (int) (second % WINDOW_SECONDS);
+        if (bucketSecond[bucket] != second) {
+            bucketSecond[bucket] = second;
+            bucketOrders[bucket] = 0;
+        }
+        bucketOrders[bucket]++;
+        long served = orders + 1;
+        orders = served;
+        return served;
+    }
+
+    /**
+     * Adds equipment time spent on an order: how long it was held, once per piece held, aborted
+     * attempts included. Owner only.
+     */
+    public void cooked(long equipmentNanos) {
+        this.equipmentNanos = this.equipmentNanos + equipmentNanos;
+    }
+
+    public int getChefId() {
+        return chefId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getEquipmentNanos() {
+        return equipmentNanos;
+    }
+
+    /** Orders served in the sliding window ending {@code now}. */
+    public long ordersInWindow(long now) {
+        if (orders == 0) return 0;
+        long second = (now - startedAtNanos) / BUCKET_NANOS;
+        long total = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long s = bucketSecond[i];
+            if (s > second - WINDOW_SECONDS && s <= second) {
+                total += bucketOrders[i];
+            }
+        }
+        return total;
+    }
+
+    /** How long the sliding window ending {@code now} is; shorter than the full window early in a run. */
+    public long windowNanos(long now) {
+        long second = (now - startedAtNanos) / BUCKET_NANOS;
+        long windowStart = Math.max(0, second - WINDOW_SECONDS + 1) * BUCKET_NANOS;
+        return now - startedAtNanos - windowStart;
+    }
+
+    /** The longest stretch without an order, counting the one still going on at {@code now}. */
+    public long longestGapNanos(long now) {
+        if (orders == 0) {
+            return now - startedAtNanos;
+        }
+        return Math.max(longestGapNanos, now - lastOrderNanos);
+    }
+}
@@ -0,0 +1,167 @@
+package com.restaurant.kitchen.metrics;
+
+import com.restaurant.kitchen.model.FairnessReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of one run. Orders are counted per chef in {@link ChefTally ChefTallies}, so chefs
+ * never contend on a shared counter; totals are summed when someone asks, without a lock.
+ */
+public class KitchenStats {
+    // A chef with less than this fraction of its fair share over the window is starved.
+    private static final double STARVED_SHARE = 0.5;
+
+    // Replaced when a chef joins or the run is reset, under the lock; read without it.
+    private final Object joining = new Object();
+    private volatile Roster roster = Roster.EMPTY;
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder recoveries = new LongAdder();
+    private final LongAdder nanosLostToRecovery = new LongAdder();
+
+    /** The order counter for a chef joining this run. */
+    public ChefTally newChef(int chefId, String name) {
+        ChefTally tally = new ChefTally(chefId, name, System.nanoTime());
+        synchronized (joining) {
+            roster = roster.with(tally);
+        }
+        return tally;
+    }
+
+    /** One acquisition of equipment was used to cook one or more orders. */
+    public void batchCooked() {
+        batches.increment();
+    }
+
+    public void recordWait(long nanos) {
+        waitTimes.record(nanos);
+    }
+
+    /** One order attempt was aborted to break a deadlock; {@code lostNanos} of chef time were wasted. */
+    public void recordRecovery(long lostNanos) {
+        recoveries.increment();
+        nanosLostToRecovery.add(lostNanos);
+    }
+
+    public long getOrdersCompleted() {
+        Roster chefs = roster;
+        long total = 0;
+        for (int i = 0; i < chefs.count; i++) {
+            total += chefs.tallies[i].getOrders();
+        }
+        return total;
+    }
+
+    /** Every chef's counter so far, in the order they joined. */
+    public List<ChefTally> getTallies() {
+        Roster chefs = roster;
+        return Arrays.asList(Arrays.copyOf(chefs.tallies, chefs.count));
+    }
+
+    public LatencyHistogram getWaitTimes() { return waitTimes; }
+    public long getBatches() { return batches.sum(); }
+    public long getRecoveries() { return recoveries.sum(); }
+    public long getNanosLostToRecovery() { return nanosLostToRecovery.sum(); }
+
+    /**
+     * Jain index, starvation and gaps over every chef of this run as of {@code now}; the first
+     * {@code listed} chefs are itemised.
+     */
+    public FairnessReport fairness(long now, int listed) {
+        Roster joined = roster;
+        ChefTally[] chefs = joined.tallies;
+        int n = joined.count;
+        long[] window = new long[n];
+        long windowTotal = 0;
+        double windowSquares = 0;
+        long overallTotal = 0;
+        double overallSquares = 0;
+        long longestGap = 0;
+        for (int i = 0; i < n; i++) {
+            ChefTally tally = chefs[i];
+            long orders = tally.getOrders();
+            window[i] = tally.ordersInWindow(now);
+            windowTotal += window[i];
+            windowSquares += (double) window[i] * window[i];
+            overallTotal += orders;
+            overallSquares += (double) orders * orders;
+            longestGap = Math.max(longestGap, tally.longestGapNanos(now));
+        }
+        double windowSeconds = n == 0 ? 0 : chefs[0].windowNanos(now) / 1e9;
+        double fairShare = n == 0 ? 0 : (double) windowTotal / n;
+
+        FairnessReport report = new FairnessReport();
+        report.setChefs(n);
+        report.setWindowSeconds(windowSeconds);
+        report.setOrdersPerSecond(windowSeconds > 0 ? windowTotal / windowSeconds : 0);
+        report.setJainIndex(jain(windowTotal, windowSquares, n));
+        report.setJainIndexOverall(jain(overallTotal, overallSquares, n));
+        report.setLongestGapMillis(longestGap / 1e6);
+
+        int starved = 0;
+        List<FairnessReport.ChefShare> perChef = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            boolean isStarved = fairShare > 0 && window[i] < STARVED_SHARE * fairShare;
+            if (isStarved) {
+                starved++;
+            }
+            if (i < listed) {
+                ChefTally tally = chefs[i];
+                FairnessReport.ChefShare share = new FairnessReport.ChefShare();
+                share.setChef(tally.getName() + "#" + tally.getChefId());
+                share.setOrders(tally.getOrders());
+                share.setOrdersPerSecond(windowSeconds > 0 ? window[i] / windowSeconds : 0);
+                share.setSharePercent(windowTotal > 0 ? 100.0 * window[i] / windowTotal : 0);
+                share.setLongestGapMillis(tally.longestGapNanos(now) / 1e6);
+                share.setStarved(isStarved);
+                perChef.add(share);
+            }
+        }
+        report.setStarvedChefs(starved);
+        report.setPerChef(perChef);
+        return report;
+    }
+
+    /** (sum x)^2 / (n * sum x^2); 1.0 for an idle kitchen, where nobody is favoured. */
+    private static double jain(long total, double squares, int n) {
+        return squares == 0 ? 1.0 : (double) total * total / (n * squares);
+    }
+
+    /** Forgets the previous run, chefs included. */
+    public void reset() {
+        synchronized (joining) {
+            roster = Roster.EMPTY;
+        }
+        waitTimes.reset();
+        batches.reset();
+        recoveries.reset();
+        nanosLostToRecovery.reset();
+    }
+
+    /**
+     * The chefs who have joined: the first {@code count} entries of an array that only ever
+     * grows by doubling, so joining costs amortised O(1) even with tens of thousands of chefs.
+     * Rosters taken before a join share the array but never look past their own count.
+     */
+    private static final class Roster {
+        static final Roster EMPTY = new Roster(new ChefTally[0], 0);
+
+        final ChefTally[] tallies;
+        final int count;
+
+        Roster(ChefTally[] tallies, int count) {
+            this.tallies = tallies;
+            this.count = count;
+        }
+
+        Roster with(ChefTally tally) {
+            ChefTally[] grown = count < tallies.length ? tallies : Arrays.copyOf(tallies, Math.max(16, count * 2));
+            grown[count] = tally;
+            return new Roster(grown, count + 1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.restaurant.kitchen.metrics;
+
+import com.restaurant.kitchen.model.EquipmentType;
+
+/**
+ * Lock wait and hold times per equipment type. Everything is allocated up front, so recording
+ * from inside the equipment locks never allocates.
+ */
+public class LockMetrics {
+    private final LockTimes[] byType = new LockTimes[EquipmentType.values().length];
+
+    public LockMetrics() {
+        for (int i = 0; i < byType.length; i++) {
+            byType[i] = new LockTimes();
+        }
+    }
+
+    public LockTimes forType(EquipmentType type) {
+        return byType[type.ordinal()];
+    }
+
+    public void reset() {
+        for (LockTimes times : byType) {
+            times.reset();
+        }
+    }
+}
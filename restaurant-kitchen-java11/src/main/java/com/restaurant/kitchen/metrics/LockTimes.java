@@ -0,0 +1,26 @@
+package com.restaurant.kitchen.metrics;
+
+/** How long one chef, or everyone on one type of equipment, waited for locks and then held them. */
+public class LockTimes {
+    private final LatencyHistogram waits = new LatencyHistogram();
+    private final LatencyHistogram holds = new LatencyHistogram();
+
+    public void recordWait(long nanos) {
+        waits.record(nanos);
+    }
+
+    public void recordHold(long nanos) {
+        holds.record(nanos);
+    }
+
+    /** From asking for a lock until getting it; zero when it was free. */
+    public LatencyHistogram getWaits() { return waits; }
+
+    /** From getting a lock until giving it back: cooking time plus any wait for the rest of the recipe. */
+    public LatencyHistogram getHolds() { return holds; }
+
+    public void reset() {
+        waits.reset();
+        holds.reset();
+    }
+}
@@ -0,0 +1,56 @@
+package com.restaurant.kitchen.metrics;
+
+import com.restaurant.kitchen.model.OrderPriority;
+
+/**
+ * Time from a customer placing an order to the portion being served, per dish, per priority and overall.
+ * Like every histogram here, recording is allocation-free and safe from any thread.
+ */
+public class OrderLatencies {
+    private final LatencyHistogram all = new LatencyHistogram();
+    private final LatencyHistogram[] byDish;
+    private final LatencyHistogram[] byPriority = new LatencyHistogram[OrderPriority.values().length];
+
+    /** @param dishes how many dishes there are; dishes are numbered from 0 */
+    public OrderLatencies(int dishes) {
+        byDish = new LatencyHistogram[dishes];
+        for (int i = 0; i < dishes; i++) {
+            byDish[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < byPriority.length; i++) {
+            byPriority[i] = new LatencyHistogram();
+        }
+    }
+
+    public void record(int dishNumber, OrderPriority priority, long nanos) {
+        all.record(nanos);
+        byDish[dishNumber].record(nanos);
+        byPriority[priority.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram all() {
+        return all;
+    }
+
+    public LatencyHistogram forDish(int dishNumber) {
+        return byDish[dishNumber];
+    }
+
+    public LatencyHistogram forPriority(OrderPriority priority) {
+        return byPriority[priority.ordinal()];
+    }
+
+    public int dishes() {
+        return byDish.length;
+    }
+
+    public void reset() {
+        all.reset();
+        for (LatencyHistogram dish : byDish) {
+            dish.reset();
+        }
+        for (LatencyHistogram priority : byPriority) {
+            priority.reset();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.restaurant.kitchen.model;
+
+public enum ArrivalPattern {
+    POISSON,  // Customers arrive independently at random, averaging the target rate
+    BURST,    // Tables of burstSize order at once, often enough to average the target rate
+    REPLAY    // Arrival times (and dishes) from a recorded service, sped up or slowed to the target rate
+}
@@ -0,0 +1,9 @@
+package com.restaurant.kitchen.model;
+
+public enum ChefState {
+    IDLE,         // Between orders, or waiting for a ticket
+    WAITING,      // Holds some or none of the dish's equipment, waiting for the rest
+    COOKING,      // Holds everything the dish needs
+    BACKING_OFF,  // Put everything back and pausing before a retry
+    OFF           // Clocked out
+}
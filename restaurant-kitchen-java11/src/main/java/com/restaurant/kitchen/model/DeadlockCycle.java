@@ -0,0 +1,25 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/** One wait cycle: {@code chefs[i]} waits for {@code equipment[i]}, which {@code chefs[i + 1]} holds (wrapping around). */
+public class DeadlockCycle {
+    private List<String> chefs;
+    private List<String> equipment;
+    private String description;
+
+    public DeadlockCycle() {}
+
+    public DeadlockCycle(List<String> chefs, List<String> equipment, String description) {
+        this.chefs = chefs;
+        this.equipment = equipment;
+        this.description = description;
+    }
+
+    public List<String> getChefs() { return chefs; }
+    public void setChefs(List<String> chefs) { this.chefs = chefs; }
+    public List<String> getEquipment() { return equipment; }
+    public void setEquipment(List<String> equipment) { this.equipment = equipment; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+}
@@ -0,0 +1,32 @@
+package com.restaurant.kitchen.model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/** A menu item and the equipment it needs, in the order the recipe uses it. */
+public class Dish {
+    private final String name;
+    private final EquipmentType[] equipment;
+
+    public Dish(String name, EquipmentType... equipment) {
+        if (equipment.length == 0) {
+            throw new IllegalArgumentException(name + " needs at least one piece of equipment");
+        }
+        if (EnumSet.copyOf(Arrays.asList(equipment)).size() != equipment.length) {
+            throw new IllegalArgumentException(name + " lists the same equipment twice");
+        }
+        this.name = name;
+        this.equipment = equipment.clone();
+    }
+
+    public String getName() { return name; }
+    public int getEquipmentCount() { return equipment.length; }
+    public EquipmentType getEquipment(int index) { return equipment[index]; }
+    public List<EquipmentType> getEquipment() { return Arrays.asList(equipment.clone()); }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
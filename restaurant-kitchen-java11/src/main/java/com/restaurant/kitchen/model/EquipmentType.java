@@ -0,0 +1,9 @@
+package com.restaurant.kitchen.model;
+
+public enum EquipmentType {
+    STOVE,
+    BLENDER,
+    OVEN,
+    FRYER,
+    GRILL
+}
@@ -0,0 +1,68 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/**
+ * How evenly the work is spread across chefs. The Jain index is 1.0 when every chef serves the
+ * same number of orders and 1/n when one chef serves them all; a chef is starved when it served
+ * less than half its fair share over the sliding window.
+ */
+public class FairnessReport {
+    private boolean running;
+    private KitchenEngine engine;
+    private boolean fairLocks;
+    private int chefs;
+    private double windowSeconds;
+    private double ordersPerSecond;
+    private double jainIndex;
+    private double jainIndexOverall;
+    private int starvedChefs;
+    private double longestGapMillis;
+    private List<ChefShare> perChef;
+
+    public boolean isRunning() { return running; }
+    public void setRunning(boolean running) { this.running = running; }
+    public KitchenEngine getEngine() { return engine; }
+    public void setEngine(KitchenEngine engine) { this.engine = engine; }
+    public boolean isFairLocks() { return fairLocks; }
+    public void setFairLocks(boolean fairLocks) { this.fairLocks = fairLocks; }
+    public int getChefs() { return chefs; }
+    public void setChefs(int chefs) { this.chefs = chefs; }
+    public double getWindowSeconds() { return windowSeconds; }
+    public void setWindowSeconds(double windowSeconds) { this.windowSeconds = windowSeconds; }
+    public double getOrdersPerSecond() { return ordersPerSecond; }
+    public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+    public double getJainIndex() { return jainIndex; }
+    public void setJainIndex(double jainIndex) { this.jainIndex = jainIndex; }
+    public double getJainIndexOverall() { return jainIndexOverall; }
+    public void setJainIndexOverall(double jainIndexOverall) { this.jainIndexOverall = jainIndexOverall; }
+    public int getStarvedChefs() { return starvedChefs; }
+    public void setStarvedChefs(int starvedChefs) { this.starvedChefs = starvedChefs; }
+    public double getLongestGapMillis() { return longestGapMillis; }
+    public void setLongestGapMillis(double longestGapMillis) { this.longestGapMillis = longestGapMillis; }
+    public List<ChefShare> getPerChef() { return perChef; }
+    public void setPerChef(List<ChefShare> perChef) { this.perChef = perChef; }
+
+    /** One chef's part of the work. */
+    public static class ChefShare {
+        private String chef;
+        private long orders;
+        private double ordersPerSecond;
+        private double sharePercent;
+        private double longestGapMillis;
+        private boolean starved;
+
+        public String getChef() { return chef; }
+        public void setChef(String chef) { this.chef = chef; }
+        public long getOrders() { return orders; }
+        public void setOrders(long orders) { this.orders = orders; }
+        public double getOrdersPerSecond() { return ordersPerSecond; }
+        public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+        public double getSharePercent() { return sharePercent; }
+        public void setSharePercent(double sharePercent) { this.sharePercent = sharePercent; }
+        public double getLongestGapMillis() { return longestGapMillis; }
+        public void setLongestGapMillis(double longestGapMillis) { this.longestGapMillis = longestGapMillis; }
+        public boolean isStarved() { return starved; }
+        public void setStarved(boolean starved) { this.starved = starved; }
+    }
+}
@@ -0,0 +1,6 @@
+package com.restaurant.kitchen.model;
+
+public enum KitchenEngine {
+    THREADS,    // One OS thread per chef, blocking locks (the original kitchen)
+    ASYNC       // Chefs are state machines on a small pool, equipment granted as futures
+}
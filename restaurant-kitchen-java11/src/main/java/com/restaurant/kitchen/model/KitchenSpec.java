@@ -0,0 +1,19 @@
+package com.restaurant.kitchen.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** What to build when a new kitchen is created through {@code POST /api/kitchens/{id}}. */
+public class KitchenSpec {
+    private int chefCount = 4;
+    private long useMillis = 50;
+    /** Units per equipment type, e.g. {@code {"stove": 6, "blender": 2}}; empty means one Stove and one Blender. */
+    private Map<String, Integer> equipment = new LinkedHashMap<>();
+
+    public int getChefCount() { return chefCount; }
+    public void setChefCount(int chefCount) { this.chefCount = chefCount; }
+    public long getUseMillis() { return useMillis; }
+    public void setUseMillis(long useMillis) { this.useMillis = useMillis; }
+    public Map<String, Integer> getEquipment() { return equipment; }
+    public void setEquipment(Map<String, Integer> equipment) { this.equipment = equipment; }
+}
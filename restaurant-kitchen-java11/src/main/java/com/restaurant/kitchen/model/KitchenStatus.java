@@ -5,15 +5,26 @@ import java.util.List;
 public class KitchenStatus {
     private boolean running;
     private boolean deadlocked;
-    private int ordersCompleted;
+    private long ordersCompleted;
     private int activeChefs;
     private SimulationMode mode;
     private String message;
     private List<String> chefNames;
+    private double ordersPerSecond;
+    private double meanWaitMillis;
+    private double p99WaitMillis;
+    private List<DeadlockCycle> deadlockCycles;
+    private long recoveries;
+    private double recoveriesPerSecond;
+    private double lostThroughputPercent;
+    private KitchenEngine engine;
+    private int ordersQueued;
+    private double meanBatchSize;
+    private boolean fairLocks;
 
     public KitchenStatus() {}
 
-    public KitchenStatus(boolean running, boolean deadlocked, int ordersCompleted,
+    public KitchenStatus(boolean running, boolean deadlocked, long ordersCompleted,
                          int activeChefs, SimulationMode mode, String message,
                          List<String> chefNames) {
         this.running = running;
@@ -29,8 +40,8 @@ public class KitchenStatus {
     public void setRunning(boolean running) { this.running = running; }
     public boolean isDeadlocked() { return deadlocked; }
     public void setDeadlocked(boolean deadlocked) { this.deadlocked = deadlocked; }
-    public int getOrdersCompleted() { return ordersCompleted; }
-    public void setOrdersCompleted(int ordersCompleted) { this.ordersCompleted = ordersCompleted; }
+    public long getOrdersCompleted() { return ordersCompleted; }
+    public void setOrdersCompleted(long ordersCompleted) { this.ordersCompleted = ordersCompleted; }
     public int getActiveChefs() { return activeChefs; }
     public void setActiveChefs(int activeChefs) { this.activeChefs = activeChefs; }
     public SimulationMode getMode() { return mode; }
@@ -39,4 +50,26 @@ public class KitchenStatus {
     public void setMessage(String message) { this.message = message; }
     public List<String> getChefNames() { return chefNames; }
     public void setChefNames(List<String> chefNames) { this.chefNames = chefNames; }
+    public double getOrdersPerSecond() { return ordersPerSecond; }
+    public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+    public double getMeanWaitMillis() { return meanWaitMillis; }
+    public void setMeanWaitMillis(double meanWaitMillis) { this.meanWaitMillis = meanWaitMillis; }
+    public double getP99WaitMillis() { return p99WaitMillis; }
+    public void setP99WaitMillis(double p99WaitMillis) { this.p99WaitMillis = p99WaitMillis; }
+    public List<DeadlockCycle> getDeadlockCycles() { return deadlockCycles; }
+    public void setDeadlockCycles(List<DeadlockCycle> deadlockCycles) { this.deadlockCycles = deadlockCycles; }
+    public long getRecoveries() { return recoveries; }
+    public void setRecoveries(long recoveries) { this.recoveries = recoveries; }
+    public double getRecoveriesPerSecond() { return recoveriesPerSecond; }
+    public void setRecoveriesPerSecond(double recoveriesPerSecond) { this.recoveriesPerSecond = recoveriesPerSecond; }
+    public double getLostThroughputPercent() { return lostThroughputPercent; }
+    public void setLostThroughputPercent(double lostThroughputPercent) { this.lostThroughputPercent = lostThroughputPercent; }
+    public KitchenEngine getEngine() { return engine; }
+    public void setEngine(KitchenEngine engine) { this.engine = engine; }
+    public int getOrdersQueued() { return ordersQueued; }
+    public void setOrdersQueued(int ordersQueued) { this.ordersQueued = ordersQueued; }
+    public double getMeanBatchSize() { return meanBatchSize; }
+    public void setMeanBatchSize(double meanBatchSize) { this.meanBatchSize = meanBatchSize; }
+    public boolean isFairLocks() { return fairLocks; }
+    public void setFairLocks(boolean fairLocks) { this.fairLocks = fairLocks; }
 }
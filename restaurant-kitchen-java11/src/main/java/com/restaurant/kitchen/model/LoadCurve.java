@@ -0,0 +1,31 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/**
+ * A latency-vs-load curve being measured in the background: one {@link LoadReport} per arrival
+ * rate measured so far, in the order the rates were given.
+ */
+public class LoadCurve {
+    private volatile boolean running;
+    private SimulationMode mode;
+    private double[] ratesPerSecond;
+    private double secondsPerRate;
+    private List<LoadReport> points;
+    private volatile String error;
+
+    public boolean isRunning() { return running; }
+    public void setRunning(boolean running) { this.running = running; }
+    public SimulationMode getMode() { return mode; }
+    public void setMode(SimulationMode mode) { this.mode = mode; }
+    public double[] getRatesPerSecond() { return ratesPerSecond; }
+    public void setRatesPerSecond(double[] ratesPerSecond) { this.ratesPerSecond = ratesPerSecond; }
+    /** Warmup plus measurement: how long each rate takes. */
+    public double getSecondsPerRate() { return secondsPerRate; }
+    public void setSecondsPerRate(double secondsPerRate) { this.secondsPerRate = secondsPerRate; }
+    public List<LoadReport> getPoints() { return points; }
+    public void setPoints(List<LoadReport> points) { this.points = points; }
+    /** Why the curve stopped early; null while it runs or once it finished. */
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
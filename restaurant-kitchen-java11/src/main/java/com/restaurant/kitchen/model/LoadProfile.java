@@ -0,0 +1,42 @@
+package com.restaurant.kitchen.model;
+
+/** How customers arrive when the kitchen is driven by a load generator instead of a full rail. */
+public class LoadProfile {
+    private ArrivalPattern pattern = ArrivalPattern.POISSON;
+    /** Target arrivals per second; for REPLAY, 0 keeps the recording's own pace. */
+    private double ordersPerSecond = 20;
+    private int burstSize = 10;
+    /**
+     * REPLAY only: a file in the configured replay directory, one arrival per line,
+     * {@code offsetMillis[,dish name]}; '#' starts a comment.
+     */
+    private String replayFile;
+    private long seed = 42;
+
+    public LoadProfile() {}
+
+    public LoadProfile(ArrivalPattern pattern, double ordersPerSecond) {
+        this.pattern = pattern;
+        this.ordersPerSecond = ordersPerSecond;
+    }
+
+    /** A copy of this profile with another target rate, for sweeping the load. */
+    public LoadProfile atRate(double ordersPerSecond) {
+        LoadProfile copy = new LoadProfile(pattern, ordersPerSecond);
+        copy.burstSize = burstSize;
+        copy.replayFile = replayFile;
+        copy.seed = seed;
+        return copy;
+    }
+
+    public ArrivalPattern getPattern() { return pattern; }
+    public void setPattern(ArrivalPattern pattern) { this.pattern = pattern; }
+    public double getOrdersPerSecond() { return ordersPerSecond; }
+    public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+    public int getBurstSize() { return burstSize; }
+    public void setBurstSize(int burstSize) { this.burstSize = burstSize; }
+    public String getReplayFile() { return replayFile; }
+    public void setReplayFile(String replayFile) { this.replayFile = replayFile; }
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+}
@@ -0,0 +1,94 @@
+package com.restaurant.kitchen.model;
+
+import java.util.Map;
+
+/**
+ * Order latency, from the moment a customer was due to order until the dish was served, at one
+ * level of load. A list of these at rising rates is the kitchen's latency-vs-load curve.
+ */
+public class LoadReport {
+    private SimulationMode mode;
+    private int chefs;
+    /** Null when chefs worked from a rail kept full (the closed loop), not from arriving customers. */
+    private ArrivalPattern pattern;
+    private double targetOrdersPerSecond;
+    private double seconds;
+    private long ordersPlaced;
+    private long ordersServed;
+    private double placedPerSecond;
+    private double servedPerSecond;
+    private int ordersQueued;
+    private double maxDoorLagMillis;
+    private double meanMillis;
+    private double p50Millis;
+    private double p90Millis;
+    private double p99Millis;
+    private double p999Millis;
+    private double maxMillis;
+    private Map<String, DishLatency> perDish;
+    private Map<OrderPriority, DishLatency> perPriority;
+
+    public SimulationMode getMode() { return mode; }
+    public void setMode(SimulationMode mode) { this.mode = mode; }
+    public int getChefs() { return chefs; }
+    public void setChefs(int chefs) { this.chefs = chefs; }
+    public ArrivalPattern getPattern() { return pattern; }
+    public void setPattern(ArrivalPattern pattern) { this.pattern = pattern; }
+    public double getTargetOrdersPerSecond() { return targetOrdersPerSecond; }
+    public void setTargetOrdersPerSecond(double targetOrdersPerSecond) { this.targetOrdersPerSecond = targetOrdersPerSecond; }
+    public double getSeconds() { return seconds; }
+    public void setSeconds(double seconds) { this.seconds = seconds; }
+    public long getOrdersPlaced() { return ordersPlaced; }
+    public void setOrdersPlaced(long ordersPlaced) { this.ordersPlaced = ordersPlaced; }
+    public long getOrdersServed() { return ordersServed; }
+    public void setOrdersServed(long ordersServed) { this.ordersServed = ordersServed; }
+    public double getPlacedPerSecond() { return placedPerSecond; }
+    public void setPlacedPerSecond(double placedPerSecond) { this.placedPerSecond = placedPerSecond; }
+    public double getServedPerSecond() { return servedPerSecond; }
+    public void setServedPerSecond(double servedPerSecond) { this.servedPerSecond = servedPerSecond; }
+    public int getOrdersQueued() { return ordersQueued; }
+    public void setOrdersQueued(int ordersQueued) { this.ordersQueued = ordersQueued; }
+    public double getMaxDoorLagMillis() { return maxDoorLagMillis; }
+    public void setMaxDoorLagMillis(double maxDoorLagMillis) { this.maxDoorLagMillis = maxDoorLagMillis; }
+    public double getMeanMillis() { return meanMillis; }
+    public void setMeanMillis(double meanMillis) { this.meanMillis = meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public void setP50Millis(double p50Millis) { this.p50Millis = p50Millis; }
+    public double getP90Millis() { return p90Millis; }
+    public void setP90Millis(double p90Millis) { this.p90Millis = p90Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public void setP99Millis(double p99Millis) { this.p99Millis = p99Millis; }
+    public double getP999Millis() { return p999Millis; }
+    public void setP999Millis(double p999Millis) { this.p999Millis = p999Millis; }
+    public double getMaxMillis() { return maxMillis; }
+    public void setMaxMillis(double maxMillis) { this.maxMillis = maxMillis; }
+    public Map<String, DishLatency> getPerDish() { return perDish; }
+    public void setPerDish(Map<String, DishLatency> perDish) { this.perDish = perDish; }
+    public Map<OrderPriority, DishLatency> getPerPriority() { return perPriority; }
+    public void setPerPriority(Map<OrderPriority, DishLatency> perPriority) { this.perPriority = perPriority; }
+
+    public static class DishLatency {
+        private long orders;
+        private double p50Millis;
+        private double p99Millis;
+        private double maxMillis;
+
+        public DishLatency() {}
+
+        public DishLatency(long orders, double p50Millis, double p99Millis, double maxMillis) {
+            this.orders = orders;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        public long getOrders() { return orders; }
+        public void setOrders(long orders) { this.orders = orders; }
+        public double getP50Millis() { return p50Millis; }
+        public void setP50Millis(double p50Millis) { this.p50Millis = p50Millis; }
+        public double getP99Millis() { return p99Millis; }
+        public void setP99Millis(double p99Millis) { this.p99Millis = p99Millis; }
+        public double getMaxMillis() { return maxMillis; }
+        public void setMaxMillis(double maxMillis) { this.maxMillis = maxMillis; }
+    }
+}
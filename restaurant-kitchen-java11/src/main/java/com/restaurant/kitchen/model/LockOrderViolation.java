@@ -0,0 +1,45 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/**
+ * Two or more pieces of equipment that have been taken in conflicting orders, e.g. STOVE then
+ * BLENDER by one chef and BLENDER then STOVE by another. Nothing needs to have deadlocked yet:
+ * it only takes the wrong timing for these chefs to get stuck. The first acquisition closed the
+ * cycle; the others are the earlier ones it conflicts with, in cycle order.
+ */
+public class LockOrderViolation {
+    private List<String> equipment;
+    private String description;
+    private double detectedAfterMillis;
+    private List<Acquisition> acquisitions;
+
+    public List<String> getEquipment() { return equipment; }
+    public void setEquipment(List<String> equipment) { this.equipment = equipment; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public double getDetectedAfterMillis() { return detectedAfterMillis; }
+    public void setDetectedAfterMillis(double detectedAfterMillis) { this.detectedAfterMillis = detectedAfterMillis; }
+    public List<Acquisition> getAcquisitions() { return acquisitions; }
+    public void setAcquisitions(List<Acquisition> acquisitions) { this.acquisitions = acquisitions; }
+
+    /** The first time anyone took {@code taken} while holding {@code held}, and where. */
+    public static class Acquisition {
+        private String held;
+        private String taken;
+        private String chef;
+        private String thread;
+        private List<String> stack;
+
+        public String getHeld() { return held; }
+        public void setHeld(String held) { this.held = held; }
+        public String getTaken() { return taken; }
+        public void setTaken(String taken) { this.taken = taken; }
+        public String getChef() { return chef; }
+        public void setChef(String chef) { this.chef = chef; }
+        public String getThread() { return thread; }
+        public void setThread(String thread) { this.thread = thread; }
+        public List<String> getStack() { return stack; }
+        public void setStack(List<String> stack) { this.stack = stack; }
+    }
+}
@@ -0,0 +1,8 @@
+package com.restaurant.kitchen.model;
+
+/** How urgent an order is, most urgent first. */
+public enum OrderPriority {
+    VIP,         // Served ahead of everyone who has not been waiting much longer
+    NORMAL,      // An ordinary customer
+    BATCH_PREP   // Mise en place for later; fine to wait while the kitchen is busy
+}
@@ -2,5 +2,11 @@ package com.restaurant.kitchen.model;
 
 public enum SimulationMode {
     DEADLOCK,   // Chefs acquire locks in different order
-    SAFE        // Chefs acquire locks in same order (Stove -> Blender)
+    SAFE,       // Chefs acquire locks in same order (Stove -> Blender)
+    TRY_LOCK,   // Chefs keep their own order but time out, back off and retry
+    WAITER,     // An arbitrator admits only as many chefs as can never deadlock
+    COARSE,     // One lock for the whole kitchen (baseline)
+    RECOVERY,   // Like DEADLOCK, but detected deadlocks are broken by aborting a victim
+    AVOIDANCE,  // Chefs keep their own order; a banker only hands out equipment while the state stays safe
+    PRIORITY    // Rank order, but each piece goes to the most urgent order first, on a lease that can be revoked
 }
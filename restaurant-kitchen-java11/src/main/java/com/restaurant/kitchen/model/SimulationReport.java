@@ -0,0 +1,62 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/**
+ * Outcome of one virtual-time run. The kitchen figures mean the same as in {@link KitchenStatus},
+ * measured against the simulated clock, so the two can be compared side by side.
+ */
+public class SimulationReport {
+    private SimulationMode mode;
+    private VictimPolicy victimPolicy;
+    private long seed;
+    private int chefCount;
+    private double simulatedSeconds;
+    private long ordersCompleted;
+    private double ordersPerSecond;
+    private double meanWaitMillis;
+    private double p99WaitMillis;
+    private long recoveries;
+    private double recoveriesPerSecond;
+    private double lostThroughputPercent;
+    private boolean deadlocked;
+    private double deadlockedAtSeconds;
+    private List<DeadlockCycle> deadlockCycles;
+    private long eventsProcessed;
+    private long wallClockMillis;
+
+    public SimulationMode getMode() { return mode; }
+    public void setMode(SimulationMode mode) { this.mode = mode; }
+    public VictimPolicy getVictimPolicy() { return victimPolicy; }
+    public void setVictimPolicy(VictimPolicy victimPolicy) { this.victimPolicy = victimPolicy; }
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+    public int getChefCount() { return chefCount; }
+    public void setChefCount(int chefCount) { this.chefCount = chefCount; }
+    public double getSimulatedSeconds() { return simulatedSeconds; }
+    public void setSimulatedSeconds(double simulatedSeconds) { this.simulatedSeconds = simulatedSeconds; }
+    public long getOrdersCompleted() { return ordersCompleted; }
+    public void setOrdersCompleted(long ordersCompleted) { this.ordersCompleted = ordersCompleted; }
+    public double getOrdersPerSecond() { return ordersPerSecond; }
+    public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+    public double getMeanWaitMillis() { return meanWaitMillis; }
+    public void setMeanWaitMillis(double meanWaitMillis) { this.meanWaitMillis = meanWaitMillis; }
+    public double getP99WaitMillis() { return p99WaitMillis; }
+    public void setP99WaitMillis(double p99WaitMillis) { this.p99WaitMillis = p99WaitMillis; }
+    public long getRecoveries() { return recoveries; }
+    public void setRecoveries(long recoveries) { this.recoveries = recoveries; }
+    public double getRecoveriesPerSecond() { return recoveriesPerSecond; }
+    public void setRecoveriesPerSecond(double recoveriesPerSecond) { this.recoveriesPerSecond = recoveriesPerSecond; }
+    public double getLostThroughputPercent() { return lostThroughputPercent; }
+    public void setLostThroughputPercent(double lostThroughputPercent) { this.lostThroughputPercent = lostThroughputPercent; }
+    public boolean isDeadlocked() { return deadlocked; }
+    public void setDeadlocked(boolean deadlocked) { this.deadlocked = deadlocked; }
+    public double getDeadlockedAtSeconds() { return deadlockedAtSeconds; }
+    public void setDeadlockedAtSeconds(double deadlockedAtSeconds) { this.deadlockedAtSeconds = deadlockedAtSeconds; }
+    public List<DeadlockCycle> getDeadlockCycles() { return deadlockCycles; }
+    public void setDeadlockCycles(List<DeadlockCycle> deadlockCycles) { this.deadlockCycles = deadlockCycles; }
+    public long getEventsProcessed() { return eventsProcessed; }
+    public void setEventsProcessed(long eventsProcessed) { this.eventsProcessed = eventsProcessed; }
+    public long getWallClockMillis() { return wallClockMillis; }
+    public void setWallClockMillis(long wallClockMillis) { this.wallClockMillis = wallClockMillis; }
+}
@@ -0,0 +1,77 @@
+package com.restaurant.kitchen.model;
+
+import java.util.List;
+
+/**
+ * How the work of a station-partitioned kitchen is spread over its stations. Utilization is the
+ * share of the station's equipment time spent held for cooking; tickets are counted where the
+ * front of house sent them (home, or another station as overflow) and where they were stolen.
+ */
+public class StationReport {
+    private boolean running;
+    private int stations;
+    private boolean stealing;
+    private double seconds;
+    private long ordersCompleted;
+    private double ordersPerSecond;
+    private long stolen;
+    private List<Station> perStation;
+
+    public boolean isRunning() { return running; }
+    public void setRunning(boolean running) { this.running = running; }
+    public int getStations() { return stations; }
+    public void setStations(int stations) { this.stations = stations; }
+    public boolean isStealing() { return stealing; }
+    public void setStealing(boolean stealing) { this.stealing = stealing; }
+    public double getSeconds() { return seconds; }
+    public void setSeconds(double seconds) { this.seconds = seconds; }
+    public long getOrdersCompleted() { return ordersCompleted; }
+    public void setOrdersCompleted(long ordersCompleted) { this.ordersCompleted = ordersCompleted; }
+    public double getOrdersPerSecond() { return ordersPerSecond; }
+    public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+    public long getStolen() { return stolen; }
+    public void setStolen(long stolen) { this.stolen = stolen; }
+    public List<Station> getPerStation() { return perStation; }
+    public void setPerStation(List<Station> perStation) { this.perStation = perStation; }
+
+    /** One station: its chefs and equipment, what it cooked and where its tickets came from. */
+    public static class Station {
+        private int station;
+        private int chefs;
+        private List<String> dishes;
+        private long ordersCompleted;
+        private double ordersPerSecond;
+        private double utilizationPercent;
+        private long routedHome;
+        private long overflowIn;
+        private long stolen;
+        private long stolenAway;
+        private int queued;
+
+        public int getStation() { return station; }
+        public void setStation(int station) { this.station = station; }
+        public int getChefs() { return chefs; }
+        public void setChefs(int chefs) { this.chefs = chefs; }
+        /** The dishes whose home this station is. */
+        public List<String> getDishes() { return dishes; }
+        public void setDishes(List<String> dishes) { this.dishes = dishes; }
+        public long getOrdersCompleted() { return ordersCompleted; }
+        public void setOrdersCompleted(long ordersCompleted) { this.ordersCompleted = ordersCompleted; }
+        public double getOrdersPerSecond() { return ordersPerSecond; }
+        public void setOrdersPerSecond(double ordersPerSecond) { this.ordersPerSecond = ordersPerSecond; }
+        public double getUtilizationPercent() { return utilizationPercent; }
+        public void setUtilizationPercent(double utilizationPercent) { this.utilizationPercent = utilizationPercent; }
+        public long getRoutedHome() { return routedHome; }
+        public void setRoutedHome(long routedHome) { this.routedHome = routedHome; }
+        public long getOverflowIn() { return overflowIn; }
+        public void setOverflowIn(long overflowIn) { this.overflowIn = overflowIn; }
+        /** Tickets this station took off other stations' rails. */
+        public long getStolen() { return stolen; }
+        public void setStolen(long stolen) { this.stolen = stolen; }
+        /** Tickets other stations took off this station's rail. */
+        public long getStolenAway() { return stolenAway; }
+        public void setStolenAway(long stolenAway) { this.stolenAway = stolenAway; }
+        public int getQueued() { return queued; }
+        public void setQueued(int queued) { this.queued = queued; }
+    }
+}
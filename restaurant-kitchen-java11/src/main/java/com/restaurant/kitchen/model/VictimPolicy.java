@@ -0,0 +1,7 @@
+package com.restaurant.kitchen.model;
+
+public enum VictimPolicy {
+    YOUNGEST_ORDER,   // Abort the order that started last: the least work is thrown away
+    FEWEST_LOCKS,     // Abort the chef holding the least equipment
+    LOWEST_PRIORITY   // Abort the most junior chef
+}
@@ -0,0 +1,253 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.ArrivalPattern;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.LoadProfile;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A front of house that seats customers on a schedule instead of keeping the rail full: orders
+ * arrive at a target rate whether or not the kitchen keeps up (an open loop).
+ *
+ * <p>Every ticket is stamped with the moment its customer was <em>due</em> to order, not the
+ * moment it reached the rail. When the rail is full the generator falls behind schedule, but the
+ * customers it has not seated yet are still counted as waiting from their due time, so
+ * order latency includes the time spent queueing at the door (no coordinated omission).
+ */
+public class LoadGenerator implements Runnable {
+    private static final Logger logger = LogManager.getLogger(LoadGenerator.class);
+
+    private final OrderRail queue;
+    private final List<Dish> menu;
+    private final LoadProfile profile;
+    private final AtomicBoolean running;
+    private final AtomicLong ticketNumbers;
+    private volatile PriorityMix priorities = PriorityMix.allNormal();
+    private final Random random;
+    private final Path replayDirectory;
+    private final long maxReplayBytes;
+    // REPLAY only: due times relative to the start, and the dish for each (null for any).
+    private final long[] replayOffsets;
+    private final Dish[] replayDishes;
+
+    private volatile long startedAtNanos;
+    private volatile long placed;
+    private volatile long maxLagNanos;
+    private volatile boolean finished;
+
+    /**
+     * @param replayDirectory the only directory REPLAY reads its file from
+     * @param maxReplayBytes  largest replay file REPLAY accepts
+     */
+    public LoadGenerator(OrderRail queue, List<Dish> menu, LoadProfile profile,
+                         AtomicBoolean running, AtomicLong ticketNumbers,
+                         Path replayDirectory, long maxReplayBytes) {
+        if (profile.getPattern() != ArrivalPattern.REPLAY && profile.getOrdersPerSecond() <= 0) {
+            throw new IllegalArgumentException("Customers must arrive at a positive rate, was " + profile.getOrdersPerSecond());
+        }
+        if (profile.getPattern() == ArrivalPattern.BURST && profile.getBurstSize() < 1) {
+            throw new IllegalArgumentException("A burst needs at least one customer, was " + profile.getBurstSize());
+        }
+        this.queue = queue;
+        this.menu = menu;
+        this.profile = profile;
+        this.running = running;
+        this.ticketNumbers = ticketNumbers;
+        this.random = new Random(profile.getSeed());
+        this.replayDirectory = replayDirectory;
+        this.maxReplayBytes = maxReplayBytes;
+        if (profile.getPattern() == ArrivalPattern.REPLAY) {
+            List<Long> offsets = new ArrayList<>();
+            List<Dish> dishes = new ArrayList<>();
+            readReplay(offsets, dishes);
+            this.replayOffsets = scaledOffsets(offsets);
+            this.replayDishes = dishes.toArray(new Dish[0]);
+        } else {
+            this.replayOffsets = null;
+            this.replayDishes = null;
+        }
+    }
+
+    /** How urgent each order is; every order is normal unless set. Call before the run starts. */
+    public void setPriorityMix(PriorityMix priorities) {
+        this.priorities = priorities;
+    }
+
+    @Override
+    public void run() {
+        logger.info("Customers are arriving: {} at {} orders/s.", profile.getPattern(), profile.getOrdersPerSecond());
+        long start = System.nanoTime();
+        startedAtNanos = start;
+        long due = start;
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / Math.max(profile.getOrdersPerSecond(), 1e-9));
+        try {
+            for (long n = 0; running.get(); n++) {
+                Dish dish = null;
+                switch (profile.getPattern()) {
+                    case POISSON:
+                        due += (long) (-Math.log(1 - random.nextDouble()) * interval);
+                        break;
+                    case BURST:
+                        if (n % profile.getBurstSize() == 0 && n > 0) {
+                            due += interval * profile.getBurstSize();
+                        }
+                        break;
+                    case REPLAY:
+                        if (n == replayOffsets.length) {
+                            finished = true;
+                            logger.info("Replay finished after {} orders.", n);
+                            return;
+                        }
+                        due = start + replayOffsets[(int) n];
+                        dish = replayDishes[(int) n];
+                        break;
+                }
+                if (dish == null) {
+                    dish = menu.get(random.nextInt(menu.size()));
+                }
+                sleepUntil(due);
+                queue.put(priorities.ticket(ticketNumbers.incrementAndGet(), dish, due, random));
+                placed = n + 1;
+                long lag = System.nanoTime() - due;
+                if (lag > maxLagNanos) {
+                    maxLagNanos = lag;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Front of house stopped seating customers after {} orders.", placed);
+    }
+
+    /** Orders placed so far. */
+    public long getPlaced() {
+        return placed;
+    }
+
+    /** Nanos since the first customer was due, or 0 before then. */
+    public long elapsedNanos(long now) {
+        long started = startedAtNanos;
+        return started == 0 ? 0 : now - started;
+    }
+
+    /** How far the door fell behind schedule at worst: above zero only when the rail was full. */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    /** A replay has seated its last customer. */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    private static void sleepUntil(long deadline) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private void readReplay(List<Long> offsets, List<Dish> dishes) {
+        String[] lines = readReplayLines();
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int comma = line.indexOf(',');
+            String millis = comma < 0 ? line : line.substring(0, comma).trim();
+            try {
+                offsets.add((long) (Double.parseDouble(millis) * 1_000_000));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Bad replay line " + (i + 1) + ": expected offsetMillis[,dish]");
+            }
+            dishes.add(comma < 0 ? null : dishNamed(line.substring(comma + 1).trim()));
+        }
+        if (offsets.isEmpty()) {
+            throw new IllegalArgumentException("The replay file " + profile.getReplayFile() + " has no orders");
+        }
+    }
+
+    /**
+     * The replay file's lines. The file is named by whoever starts the load, so it must resolve,
+     * links followed, to a regular file inside the replay directory, and is read no further than
+     * the size limit.
+     */
+    private String[] readReplayLines() {
+        String name = profile.getReplayFile();
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("REPLAY needs a replay file");
+        }
+        try {
+            Path directory = replayDirectory.toRealPath();
+            Path named = directory.resolve(name).normalize();
+            if (!named.startsWith(directory)) {
+                throw new IllegalArgumentException("Replay files must be in " + replayDirectory);
+            }
+            if (!Files.exists(named)) {
+                throw new IllegalArgumentException("There is no replay file " + name + " in " + replayDirectory);
+            }
+            Path file = named.toRealPath();
+            if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("Replay files must be regular files in " + replayDirectory);
+            }
+            byte[] bytes;
+            try (InputStream in = Files.newInputStream(file)) {
+                bytes = in.readNBytes((int) Math.min(maxReplayBytes + 1, Integer.MAX_VALUE - 8));
+            }
+            if (bytes.length > maxReplayBytes) {
+                throw new IllegalArgumentException("The replay file " + name + " is larger than " + maxReplayBytes + " bytes");
+            }
+            return new String(bytes, StandardCharsets.UTF_8).split("\\R");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the replay file " + name, e);
+        }
+    }
+
+    /** Due times in file order, stretched or squeezed so that they average the target rate. */
+    private long[] scaledOffsets(List<Long> offsets) {
+        long first = offsets.get(0);
+        long span = offsets.get(offsets.size() - 1) - first;
+        double scale = 1;
+        if (profile.getOrdersPerSecond() > 0 && span > 0) {
+            double recordedRate = (offsets.size() - 1) / (span / 1e9);
+            scale = recordedRate / profile.getOrdersPerSecond();
+        }
+        long[] scaled = new long[offsets.size()];
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = (long) ((offsets.get(i) - first) * scale);
+            if (i > 0 && scaled[i] < scaled[i - 1]) {
+                throw new IllegalArgumentException("Replay offsets must not go backwards (order " + (i + 1) + ")");
+            }
+        }
+        return scaled;
+    }
+
+    /** The dish of that name if this kitchen can cook it; otherwise any dish from the menu. */
+    private Dish dishNamed(String name) {
+        for (Dish dish : menu) {
+            if (dish.getName().equalsIgnoreCase(name)) {
+                return dish;
+            }
+        }
+        return null;
+    }
+}
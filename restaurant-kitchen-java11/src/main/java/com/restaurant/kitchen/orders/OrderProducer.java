@@ -0,0 +1,52 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.Dish;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The front of house: keeps the ticket rail topped up with random dishes from the menu. It is as
+ * fast as the rail allows, so the kitchen always has a backlog to work through.
+ */
+public class OrderProducer implements Runnable {
+    private static final Logger logger = LogManager.getLogger(OrderProducer.class);
+
+    private final OrderRail queue;
+    private final List<Dish> menu;
+    private final AtomicBoolean running;
+    private final AtomicLong ticketNumbers;
+    private volatile PriorityMix priorities = PriorityMix.allNormal();
+    private final Random random = new Random();
+
+    /** Producers sharing a rail must share {@code ticketNumbers} so "oldest ticket" stays meaningful. */
+    public OrderProducer(OrderRail queue, List<Dish> menu, AtomicBoolean running, AtomicLong ticketNumbers) {
+        this.queue = queue;
+        this.menu = menu;
+        this.running = running;
+        this.ticketNumbers = ticketNumbers;
+    }
+
+    /** How urgent each order is; every order is normal unless set. Call before the run starts. */
+    public void setPriorityMix(PriorityMix priorities) {
+        this.priorities = priorities;
+    }
+
+    @Override
+    public void run() {
+        logger.info("Front of house is taking orders.");
+        try {
+            while (running.get()) {
+                Dish dish = menu.get(random.nextInt(menu.size()));
+                queue.put(priorities.ticket(ticketNumbers.incrementAndGet(), dish, System.nanoTime(), random));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Front of house stopped taking orders.");
+    }
+}
@@ -0,0 +1,196 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.OrderPriority;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ticket rail between the front of house and the chefs: a bounded multi-producer,
+ * multi-consumer queue of orders.
+ *
+ * Tickets are kept in one FIFO lane per recipe (the ordered list of equipment types a dish uses)
+ * and priority, so dishes that need exactly the same equipment in the same order share a lane. A
+ * chef always starts with the most urgent ticket on the rail (the earliest serve-by time, see
+ * {@link PriorityMix}; with every order normal, simply the oldest) and then tops the batch up from
+ * that ticket's lane, which means everything in a batch can be cooked under a single acquisition
+ * of the equipment.
+ */
+public class OrderQueue implements OrderRail {
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Indexed by priority ordinal.
+    private final List<Map<List<EquipmentType>, ArrayDeque<OrderTicket>>> laneByRecipe = new ArrayList<>();
+    private final List<ArrayDeque<OrderTicket>> lanes = new ArrayList<>();
+    private int size;
+    private int lingering;
+
+    public OrderQueue(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Order queue capacity must be at least 1, was " + capacity);
+        }
+        this.capacity = capacity;
+        for (int i = 0; i < OrderPriority.values().length; i++) {
+            laneByRecipe.add(new HashMap<>());
+        }
+    }
+
+    /** Pins the ticket to the rail, waiting while the rail is full. */
+    @Override
+    public void put(OrderTicket ticket) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == capacity) {
+                notFull.await();
+            }
+            laneOf(ticket).addLast(ticket);
+            size++;
+            // A lingering chef only wants tickets from its own lane, so a lone signal could be wasted on it.
+            if (lingering > 0) {
+                notEmpty.signalAll();
+            } else {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the most urgent ticket plus up to {@code max - 1} more for the same recipe and priority into {@code out}
+     * and returns how many were taken. If fewer than {@code max} are waiting, lingers up to
+     * {@code maxDelay} for more of the same recipe to come in. Waits while the rail is empty.
+     *
+     * An interrupt while lingering ends the wait early: the tickets already taken are returned and
+     * the interrupt is left set for the caller, so no order is ever dropped.
+     */
+    @Override
+    public int takeBatch(OrderTicket[] out, int max, long maxDelay, TimeUnit unit) throws InterruptedException {
+        return take(out, max, unit.toNanos(maxDelay), -1);
+    }
+
+    /**
+     * Like {@link #takeBatch}, but waits at most {@code timeout} for the first ticket and returns 0
+     * if none came. With a timeout of 0 it only takes what is already on the rail.
+     */
+    public int pollBatch(OrderTicket[] out, int max, long maxDelay, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return take(out, max, unit.toNanos(maxDelay), Math.max(0, unit.toNanos(timeout)));
+    }
+
+    /** A negative {@code timeoutNanos} waits for the first ticket for as long as it takes. */
+    private int take(OrderTicket[] out, int max, long lingerNanos, long timeoutNanos) throws InterruptedException {
+        if (max < 1 || max > out.length) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + out.length + ", was " + max);
+        }
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (timeoutNanos < 0) {
+                    notEmpty.await();
+                } else if (timeoutNanos == 0) {
+                    return 0;
+                } else {
+                    timeoutNanos = notEmpty.awaitNanos(timeoutNanos);
+                    if (timeoutNanos <= 0 && size == 0) {
+                        return 0;
+                    }
+                }
+            }
+            ArrayDeque<OrderTicket> lane = mostUrgentLane();
+            int taken = drain(lane, out, 0, max);
+            long remaining = lingerNanos;
+            if (taken < max && remaining > 0) {
+                lingering++;
+                try {
+                    while (taken < max && remaining > 0) {
+                        remaining = notEmpty.awaitNanos(remaining);
+                        taken = drain(lane, out, taken, max);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lingering--;
+                }
+            }
+            if (taken == 1) {
+                notFull.signal();
+            } else {
+                notFull.signalAll();
+            }
+            return taken;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Throws away every ticket on the rail, e.g. when the kitchen closes. */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            for (ArrayDeque<OrderTicket> lane : lanes) {
+                lane.clear();
+            }
+            size = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ArrayDeque<OrderTicket> laneOf(OrderTicket ticket) {
+        Map<List<EquipmentType>, ArrayDeque<OrderTicket>> lanesOfPriority = laneByRecipe.get(ticket.getPriority().ordinal());
+        return lanesOfPriority.computeIfAbsent(ticket.getDish().getEquipment(), recipe -> {
+            ArrayDeque<OrderTicket> lane = new ArrayDeque<>();
+            lanes.add(lane);
+            return lane;
+        });
+    }
+
+    /**
+     * The lane holding the most urgent ticket. Within a lane serve-by times rise with the ticket
+     * numbers, so only the heads need comparing, and there are only ever a handful of lanes.
+     */
+    private ArrayDeque<OrderTicket> mostUrgentLane() {
+        ArrayDeque<OrderTicket> first = null;
+        for (ArrayDeque<OrderTicket> lane : lanes) {
+            OrderTicket head = lane.peekFirst();
+            if (head != null && (first == null || head.isBefore(first.peekFirst()))) {
+                first = lane;
+            }
+        }
+        return first;
+    }
+
+    private int drain(ArrayDeque<OrderTicket> lane, OrderTicket[] out, int taken, int max) {
+        while (taken < max && !lane.isEmpty()) {
+            out[taken++] = lane.pollFirst();
+            size--;
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,22 @@
+package com.restaurant.kitchen.orders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the front of house pins tickets and chefs take them from: one shared {@link OrderQueue},
+ * or one station's view of a {@link StationRouter}.
+ */
+public interface OrderRail {
+
+    /** Pins the ticket to the rail, waiting while there is no room. */
+    void put(OrderTicket ticket) throws InterruptedException;
+
+    /** Takes up to {@code max} tickets for the same recipe into {@code out}, waiting while there are none. */
+    int takeBatch(OrderTicket[] out, int max, long maxDelay, TimeUnit unit) throws InterruptedException;
+
+    /** Tickets waiting right now. */
+    int size();
+
+    /** Throws away every waiting ticket, e.g. when the kitchen closes. */
+    void clear();
+}
@@ -0,0 +1,44 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.OrderPriority;
+
+/** One customer order waiting to be cooked. */
+public class OrderTicket {
+    private final long number;
+    private final Dish dish;
+    private final long placedAtNanos;
+    private final OrderPriority priority;
+    private final long serveByNanos;
+
+    /** A normal order, served in the order it was placed. */
+    public OrderTicket(long number, Dish dish, long placedAtNanos) {
+        this(number, dish, placedAtNanos, OrderPriority.NORMAL, placedAtNanos);
+    }
+
+    /** @param serveByNanos rails and grant queues serve the earliest first; see {@link PriorityMix} */
+    public OrderTicket(long number, Dish dish, long placedAtNanos, OrderPriority priority, long serveByNanos) {
+        this.number = number;
+        this.dish = dish;
+        this.placedAtNanos = placedAtNanos;
+        this.priority = priority;
+        this.serveByNanos = serveByNanos;
+    }
+
+    public long getNumber() { return number; }
+    public Dish getDish() { return dish; }
+    public long getPlacedAtNanos() { return placedAtNanos; }
+    public OrderPriority getPriority() { return priority; }
+    public long getServeByNanos() { return serveByNanos; }
+
+    /** Served before {@code other}: earlier serve-by time, then lower ticket number. */
+    public boolean isBefore(OrderTicket other) {
+        long diff = serveByNanos - other.serveByNanos;
+        return diff < 0 || (diff == 0 && number < other.number);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + number + " " + dish + (priority == OrderPriority.NORMAL ? "" : " (" + priority + ")");
+    }
+}
@@ -0,0 +1,64 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.OrderPriority;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Which priority the front of house gives each order, and when it should be served by.
+ *
+ * <p>A ticket's serve-by time is when it was placed plus one aging step per class below VIP.
+ * Rails and grant queues serve the earliest serve-by first, which puts urgent orders in front,
+ * yet a normal order only ever waits one aging step behind VIPs placed after it (a batch-prep
+ * order two): the longer a ticket waits, the more fresh arrivals it outranks, so nothing starves.
+ */
+public class PriorityMix {
+
+    private static final PriorityMix ALL_NORMAL = new PriorityMix(0, 0, 0);
+
+    private final int vipPercent;
+    private final int batchPrepPercent;
+    private final long agingNanos;
+
+    public PriorityMix(int vipPercent, int batchPrepPercent, long agingMillis) {
+        if (vipPercent < 0 || batchPrepPercent < 0 || vipPercent + batchPrepPercent > 100) {
+            throw new IllegalArgumentException("Priority shares must be between 0 and 100 percent in total, were "
+                    + vipPercent + "% VIP and " + batchPrepPercent + "% batch prep");
+        }
+        if (agingMillis < 0) {
+            throw new IllegalArgumentException("Aging step must not be negative, was " + agingMillis);
+        }
+        this.vipPercent = vipPercent;
+        this.batchPrepPercent = batchPrepPercent;
+        this.agingNanos = TimeUnit.MILLISECONDS.toNanos(agingMillis);
+    }
+
+    /** Every order normal, served in the order it was placed. */
+    public static PriorityMix allNormal() {
+        return ALL_NORMAL;
+    }
+
+    /** A priority drawn from the mix. Draws nothing from {@code random} when every order is normal. */
+    public OrderPriority pick(Random random) {
+        if (vipPercent == 0 && batchPrepPercent == 0) {
+            return OrderPriority.NORMAL;
+        }
+        int roll = random.nextInt(100);
+        if (roll < vipPercent) {
+            return OrderPriority.VIP;
+        }
+        return roll < vipPercent + batchPrepPercent ? OrderPriority.BATCH_PREP : OrderPriority.NORMAL;
+    }
+
+    public long serveBy(OrderPriority priority, long placedAtNanos) {
+        return placedAtNanos + priority.ordinal() * agingNanos;
+    }
+
+    /** A ticket with a priority drawn from the mix. */
+    public OrderTicket ticket(long number, Dish dish, long placedAtNanos, Random random) {
+        OrderPriority priority = pick(random);
+        return new OrderTicket(number, dish, placedAtNanos, priority, serveBy(priority, placedAtNanos));
+    }
+}
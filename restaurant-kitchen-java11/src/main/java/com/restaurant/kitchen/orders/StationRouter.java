@@ -0,0 +1,229 @@
+package com.restaurant.kitchen.orders;
+
+import com.restaurant.kitchen.model.Dish;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The ticket rails of a kitchen split into stations, each with its own equipment, chefs and
+ * {@link OrderQueue}.
+ *
+ * <p>Every dish has a home station, so the same recipes keep landing on the same equipment (and
+ * in the same recipe lanes, where they batch). A ticket only goes elsewhere when its home rail is
+ * already {@link #OVERFLOW_SLACK} tickets longer than the shortest rail. The front of house pins
+ * tickets through the router itself; chefs take them through {@link #station(int)}.
+ *
+ * <p>A station whose own rail is empty steals a batch from the longest other rail instead of
+ * idling. It only waits on its own rail, for {@link #STEAL_POLL_MICROS} at a time, when no rail
+ * has anything; a ticket arriving at home wakes it straight away.
+ */
+public class StationRouter implements OrderRail {
+
+    /** How much longer than the shortest rail a home rail may get before tickets go elsewhere. */
+    public static final int OVERFLOW_SLACK = 4;
+
+    /** How long an idle station waits on its own rail before looking for work to steal again. */
+    public static final long STEAL_POLL_MICROS = 1_000;
+
+    private final OrderQueue[] rails;
+    private final List<Dish> menu;
+    private final boolean stealing;
+    private final Station[] views;
+    // Per station: tickets routed home, taken in as overflow, stolen from others, stolen by others.
+    private final AtomicLongArray routedHome;
+    private final AtomicLongArray overflowIn;
+    private final AtomicLongArray stolen;
+    private final AtomicLongArray stolenAway;
+
+    /**
+     * @param capacity  tickets each station's rail holds
+     * @param menu      the dishes that get a home station, in menu order
+     * @param stealing  whether idle stations take tickets from busy ones
+     */
+    public StationRouter(int stations, int capacity, List<Dish> menu, boolean stealing) {
+        if (stations < 1) {
+            throw new IllegalArgumentException("A kitchen needs at least one station, was " + stations);
+        }
+        this.rails = new OrderQueue[stations];
+        this.views = new Station[stations];
+        for (int i = 0; i < stations; i++) {
+            rails[i] = new OrderQueue(capacity);
+            views[i] = new Station(i);
+        }
+        this.menu = menu;
+        this.stealing = stealing;
+        this.routedHome = new AtomicLongArray(stations);
+        this.overflowIn = new AtomicLongArray(stations);
+        this.stolen = new AtomicLongArray(stations);
+        this.stolenAway = new AtomicLongArray(stations);
+    }
+
+    public int stations() {
+        return rails.length;
+    }
+
+    /** The rail station {@code index}'s chefs take their tickets from. */
+    public OrderRail station(int index) {
+        return views[index];
+    }
+
+    /** The station a dish is cooked at unless its rail is backed up. */
+    public int homeOf(Dish dish) {
+        int index = menu.indexOf(dish);
+        return Math.max(index, 0) % rails.length;
+    }
+
+    /** Pins the ticket to its dish's home rail, or to the shortest rail if home is backed up. */
+    @Override
+    public void put(OrderTicket ticket) throws InterruptedException {
+        int home = homeOf(ticket.getDish());
+        int target = home;
+        if (rails.length > 1) {
+            int shortest = shortestRail();
+            if (rails[home].size() - rails[shortest].size() > OVERFLOW_SLACK) {
+                target = shortest;
+            }
+        }
+        if (target == home) {
+            routedHome.incrementAndGet(home);
+        } else {
+            overflowIn.incrementAndGet(target);
+        }
+        rails[target].put(ticket);
+    }
+
+    /** Takes a batch from the longest rail; chefs use {@link #station(int)} instead. */
+    @Override
+    public int takeBatch(OrderTicket[] out, int max, long maxDelay, TimeUnit unit) throws InterruptedException {
+        while (true) {
+            int taken = rails[longestRail(-1)].pollBatch(out, max, maxDelay, STEAL_POLL_MICROS, TimeUnit.MICROSECONDS);
+            if (taken > 0) {
+                return taken;
+            }
+        }
+    }
+
+    /** Tickets waiting on every rail. */
+    @Override
+    public int size() {
+        int total = 0;
+        for (OrderQueue rail : rails) {
+            total += rail.size();
+        }
+        return total;
+    }
+
+    @Override
+    public void clear() {
+        for (OrderQueue rail : rails) {
+            rail.clear();
+        }
+    }
+
+    public int queued(int station) {
+        return rails[station].size();
+    }
+
+    public long getRoutedHome(int station) {
+        return routedHome.get(station);
+    }
+
+    public long getOverflowIn(int station) {
+        return overflowIn.get(station);
+    }
+
+    /** Tickets this station's chefs took off other stations' rails. */
+    public long getStolen(int station) {
+        return stolen.get(station);
+    }
+
+    /** Tickets other stations took off this station's rail. */
+    public long getStolenAway(int station) {
+        return stolenAway.get(station);
+    }
+
+    private int shortestRail() {
+        int shortest = 0;
+        int shortestSize = Integer.MAX_VALUE;
+        for (int i = 0; i < rails.length; i++) {
+            int size = rails[i].size();
+            if (size < shortestSize) {
+                shortest = i;
+                shortestSize = size;
+            }
+        }
+        return shortest;
+    }
+
+    /** The longest rail other than {@code except}, starting the scan after it so ties spread out. */
+    private int longestRail(int except) {
+        int longest = except < 0 ? 0 : except;
+        int longestSize = 0;
+        for (int step = 1; step <= rails.length; step++) {
+            int i = (except + step + rails.length) % rails.length;
+            if (i == except) {
+                continue;
+            }
+            int size = rails[i].size();
+            if (size > longestSize) {
+                longest = i;
+                longestSize = size;
+            }
+        }
+        return longest;
+    }
+
+    /** One station's side of the router: its own rail first, then whatever it can steal. */
+    private final class Station implements OrderRail {
+        private final int index;
+
+        Station(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void put(OrderTicket ticket) throws InterruptedException {
+            StationRouter.this.put(ticket);
+        }
+
+        @Override
+        public int takeBatch(OrderTicket[] out, int max, long maxDelay, TimeUnit unit) throws InterruptedException {
+            OrderQueue own = rails[index];
+            if (!stealing || rails.length == 1) {
+                return own.takeBatch(out, max, maxDelay, unit);
+            }
+            while (true) {
+                int taken = own.pollBatch(out, max, maxDelay, 0, unit);
+                if (taken > 0) {
+                    return taken;
+                }
+                int victim = longestRail(index);
+                if (victim != index) {
+                    // Stolen tickets are cooked as they are: no lingering on someone else's rail.
+                    taken = rails[victim].pollBatch(out, max, 0, 0, unit);
+                    if (taken > 0) {
+                        stolen.addAndGet(index, taken);
+                        stolenAway.addAndGet(victim, taken);
+                        return taken;
+                    }
+                }
+                taken = own.pollBatch(out, max, maxDelay, unit.convert(STEAL_POLL_MICROS, TimeUnit.MICROSECONDS), unit);
+                if (taken > 0) {
+                    return taken;
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return rails[index].size();
+        }
+
+        @Override
+        public void clear() {
+            rails[index].clear();
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package com.restaurant.kitchen.resources;
 
-import java.util.concurrent.locks.ReentrantLock;
+import com.restaurant.kitchen.model.EquipmentType;
 
-public class Blender {
-    private final ReentrantLock lock = new ReentrantLock();
+public class Blender extends Equipment {
 
-    public ReentrantLock getLock() {
-        return lock;
+    public Blender() {
+        this(50);
     }
 
-    public void use() throws InterruptedException {
-        Thread.sleep(50); // Simulate blending time
+    public Blender(long blendMillis) {
+        super(EquipmentType.BLENDER, blendMillis);
     }
 }
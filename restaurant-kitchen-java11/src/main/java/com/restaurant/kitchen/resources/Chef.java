@@ -1,56 +1,237 @@
 package com.restaurant.kitchen.resources;
 
-import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.journal.EventJournal;
+import com.restaurant.kitchen.journal.EventType;
+import com.restaurant.kitchen.metrics.ChefTally;
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.metrics.LockTimes;
+import com.restaurant.kitchen.metrics.OrderLatencies;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.OrderPriority;
+import com.restaurant.kitchen.orders.OrderRail;
+import com.restaurant.kitchen.orders.OrderTicket;
+import com.restaurant.kitchen.strategy.LockStrategy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+
+import static com.restaurant.kitchen.model.EquipmentType.*;
 
 public class Chef implements Runnable {
     private static final Logger logger = LogManager.getLogger(Chef.class);
 
+    private static final ThreadLocal<Chef> CURRENT = new ThreadLocal<>();
+
+    /** Backoff window after a RECOVERY abort; doubles on every abort of the same order. */
+    public static final long INITIAL_RETRY_BACKOFF_MICROS = 500;
+    public static final long MAX_RETRY_BACKOFF_MICROS = 50_000;
+
     private static final String[] CHEF_NAMES = {"Gordon", "Julia", "Marco", "Heston"};
 
-    private static final List<String> DISHES = Arrays.asList(
-            "Spaghetti Carbonara",
-            "Mushroom Risotto",
-            "Grilled Salmon",
-            "Tomato Basil Soup",
-            "Chocolate Lava Cake",
-            "Caesar Salad",
-            "Beef Wellington",
-            "Pad Thai"
+    private static final List<Dish> DISHES = Arrays.asList(
+            new Dish("Spaghetti Carbonara", STOVE, BLENDER),
+            new Dish("Mushroom Risotto", STOVE, BLENDER),
+            new Dish("Grilled Salmon", GRILL, BLENDER),
+            new Dish("Tomato Basil Soup", STOVE, BLENDER),
+            new Dish("Chocolate Lava Cake", BLENDER, OVEN),
+            new Dish("Caesar Salad", BLENDER),
+            new Dish("Beef Wellington", STOVE, OVEN),
+            new Dish("Pad Thai", STOVE, BLENDER),
+            new Dish("Fish and Chips", FRYER, BLENDER),
+            new Dish("Margherita Pizza", OVEN),
+            new Dish("Surf and Turf", GRILL, STOVE, FRYER)
     );
 
     private final int id;
     private final String name;
-    private final Stove stove;
-    private final Blender blender;
-    private final SimulationMode mode;
-    private final AtomicInteger ordersCompleted;
+    private final EquipmentRegistry kitchen;
+    private final List<Dish> menu;
+    private final Equipment[] needs;
+    private final Equipment[] lastUsed = new Equipment[EquipmentType.values().length];
+    private final LockStrategy strategy;
+    private final KitchenStats stats;
+    private final ChefTally tally;
     private final AtomicBoolean running;
     private final Random random = new Random();
+    private final LockTimes lockTimes = new LockTimes();
+    private int priority;
 
-    public Chef(int id, Stove stove, Blender blender, SimulationMode mode,
-                AtomicInteger ordersCompleted, AtomicBoolean running) {
+    // Set when the chef works from the shared ticket rail instead of making up its own orders.
+    private OrderRail orders;
+    private OrderTicket[] batch;
+    private int batchSize = 1;
+    private long maxBatchDelayMicros;
+    private int portionsServed;
+    private EventJournal journal;
+    private OrderLatencies latencies;
+
+    // Read by the deadlock resolver while this chef is stuck.
+    private volatile Thread thread;
+    private volatile long orderStartedNanos;
+    private volatile long orderServeByNanos;
+    private volatile OrderPriority orderPriority = OrderPriority.NORMAL;
+    private volatile int equipmentWanted;
+    private volatile boolean abortRequested;
+    private volatile boolean backingOff;
+    private volatile boolean offDuty;
+
+    public Chef(int id, EquipmentRegistry kitchen, LockStrategy strategy,
+                KitchenStats stats, AtomicBoolean running) {
         this.id = id;
-        this.name = CHEF_NAMES[id % CHEF_NAMES.length];
-        this.stove = stove;
-        this.blender = blender;
-        this.mode = mode;
-        this.ordersCompleted = ordersCompleted;
+        this.name = nameFor(id);
+        this.kitchen = kitchen;
+        this.menu = menuFor(kitchen);
+        if (menu.isEmpty()) {
+            throw new IllegalStateException("Nothing on the menu can be cooked with " + kitchen.counts());
+        }
+        this.needs = new Equipment[maxEquipmentPerDish(menu)];
+        this.strategy = strategy;
+        this.stats = stats;
+        this.tally = stats.newChef(id, name);
         this.running = running;
     }
 
+    public static String nameFor(int id) {
+        return CHEF_NAMES[id % CHEF_NAMES.length];
+    }
+
+    public static int dishCount() {
+        return DISHES.size();
+    }
+
+    /** The dish with the given menu number, as recorded in the event journal. */
+    public static Dish dishNumbered(int number) {
+        return DISHES.get(number);
+    }
+
+    /** The dishes every piece of whose equipment is installed in {@code kitchen}. */
+    public static List<Dish> menuFor(EquipmentRegistry kitchen) {
+        List<Dish> menu = new ArrayList<>();
+        for (Dish dish : DISHES) {
+            if (kitchen.canCook(dish)) {
+                menu.add(dish);
+            }
+        }
+        return Collections.unmodifiableList(menu);
+    }
+
+    public static int maxEquipmentPerDish(List<Dish> menu) {
+        int max = 0;
+        for (Dish dish : menu) {
+            max = Math.max(max, dish.getEquipmentCount());
+        }
+        return max;
+    }
+
+    /** The chef whose order is running on the current thread, or null. */
+    public static Chef current() {
+        return CURRENT.get();
+    }
+
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
 
+    /** This chef's lock waits and holds, recorded by the equipment locks when timing is on. */
+    public LockTimes getLockTimes() {
+        return lockTimes;
+    }
+
+    /** Higher is more senior. Only used to pick deadlock victims. */
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Makes the chef take orders from {@code orders}, cooking up to {@code batchSize} tickets for
+     * the same recipe under one acquisition of the equipment and waiting at most
+     * {@code maxBatchDelayMicros} for a batch to fill.
+     */
+    public void takeOrdersFrom(OrderRail orders, int batchSize, long maxBatchDelayMicros) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1, was " + batchSize);
+        }
+        this.orders = orders;
+        this.batch = new OrderTicket[batchSize];
+        this.batchSize = batchSize;
+        this.maxBatchDelayMicros = maxBatchDelayMicros;
+    }
+
+    /** Records how long each ticket from the rail took from being placed to being served; null records nothing. */
+    public void setOrderLatencies(OrderLatencies latencies) {
+        this.latencies = latencies;
+    }
+
+    /** Records this chef's orders, acquisitions, releases and completions; null records nothing. */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /** When the order in hand was first picked up (retries keep the original time). */
+    public long getOrderStartedNanos() {
+        return orderStartedNanos;
+    }
+
+    /** How urgent the order in hand is: the batch's first ticket's, or normal without a rail. */
+    public OrderPriority getOrderPriority() {
+        return orderPriority;
+    }
+
+    /** When the order in hand should be served by; equipment grant queues serve the earliest first. */
+    public long getOrderServeByNanos() {
+        return orderServeByNanos;
+    }
+
+    /** How many of the current order's pieces of equipment this chef holds right now. */
+    public int getEquipmentHeld() {
+        Thread owner = thread;
+        int held = 0;
+        for (int i = 0; i < equipmentWanted; i++) {
+            if (needs[i].getLock().owner() == owner) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    /** Derived from what the chef holds and wants, so the cooking path pays nothing for it. */
+    public ChefState getState() {
+        if (offDuty) return ChefState.OFF;
+        if (backingOff) return ChefState.BACKING_OFF;
+        int wanted = equipmentWanted;
+        if (wanted == 0) return ChefState.IDLE;
+        return getEquipmentHeld() < wanted ? ChefState.WAITING : ChefState.COOKING;
+    }
+
+    /**
+     * Asks the chef to drop the current order attempt: whatever it is waiting for or cooking is
+     * abandoned, its equipment is released, and the same dish is retried after a short backoff.
+     */
+    public void abortCurrentOrder() {
+        Thread victim = thread;
+        if (victim != null) {
+            abortRequested = true;
+            victim.interrupt();
+        }
+    }
+
     @Override
     public void run() {
         logger.info("[Chef {}] Reporting for duty! Ready to cook.", name);
@@ -63,81 +244,164 @@ public class Chef implements Runnable {
                 break;
             }
         }
+        offDuty = true;
     }
 
-    private String pickDish() {
-        return DISHES.get(random.nextInt(DISHES.size()));
+    private Dish pickDish() {
+        return menu.get(random.nextInt(menu.size()));
     }
 
-    private void processOrder() throws InterruptedException {
-        String dish = pickDish();
-        ReentrantLock stoveLock = stove.getLock();
-        ReentrantLock blenderLock = blender.getLock();
-
-        logger.info("[Chef {}] New order received: {}. Heading to the kitchen...", name, dish);
+    public void processOrder() throws InterruptedException {
+        CURRENT.set(this);
+        thread = Thread.currentThread();
+        Dish dish;
+        int portions;
+        if (orders == null) {
+            dish = pickDish();
+            portions = 1;
+        } else {
+            portions = takeBatch();
+            dish = batch[0].getDish();
+        }
+        orderStartedNanos = System.nanoTime();
+        if (orders == null) {
+            orderPriority = OrderPriority.NORMAL;
+            orderServeByNanos = orderStartedNanos;
+        } else {
+            orderPriority = batch[0].getPriority();
+            orderServeByNanos = batch[0].getServeByNanos();
+        }
+        portionsServed = 0;
+        int dishNumber = DISHES.indexOf(dish);
+        journal(EventType.ORDER, dishNumber, portions);
 
-        if (mode == SimulationMode.DEADLOCK) {
-            if (id % 2 == 0) {
-                // Even chef: grabs Stove first, then Blender
-                logger.info("[Chef {}] Walking towards the STOVE to start cooking {}...", name, dish);
-                stoveLock.lockInterruptibly();
-                logger.info("[Chef {}] Got the STOVE! Now I need the BLENDER for {}...", name, dish);
-                try {
-                    blenderLock.lockInterruptibly();
-                    logger.info("[Chef {}] Got the BLENDER too! Making {} now!", name, dish);
-                    try {
-                        stove.use();
-                        blender.use();
-                        int total = ordersCompleted.incrementAndGet();
-                        logger.info("[Chef {}] Ding ding! {} is READY! (Orders served today: {})", name, dish, total);
-                    } finally {
-                        blenderLock.unlock();
-                    }
-                } finally {
-                    stoveLock.unlock();
-                    logger.info("[Chef {}] Released STOVE and BLENDER. Ready for next order!", name);
-                }
-            } else {
-                // Odd chef: grabs Blender first, then Stove (OPPOSITE ORDER = DEADLOCK!)
-                logger.info("[Chef {}] Walking towards the BLENDER to prep {}...", name, dish);
-                blenderLock.lockInterruptibly();
-                logger.info("[Chef {}] Got the BLENDER! Now I need the STOVE for {}...", name, dish);
+        long backoffWindow = INITIAL_RETRY_BACKOFF_MICROS;
+        while (true) {
+            long attemptStart = System.nanoTime();
+            try {
+                cook(dish, dishNumber, portions);
+                return;
+            } catch (InterruptedException e) {
+                consumeAbort(e);
+                journal(EventType.ABORTED, dishNumber, portionsServed);
+                long backoffMicros = 1 + random.nextInt((int) backoffWindow);
+                stats.recordRecovery(System.nanoTime() - attemptStart + TimeUnit.MICROSECONDS.toNanos(backoffMicros));
+                backingOff = true;
                 try {
-                    stoveLock.lockInterruptibly();
-                    logger.info("[Chef {}] Got the STOVE too! Making {} now!", name, dish);
-                    try {
-                        blender.use();
-                        stove.use();
-                        int total = ordersCompleted.incrementAndGet();
-                        logger.info("[Chef {}] Ding ding! {} is READY! (Orders served today: {})", name, dish, total);
-                    } finally {
-                        stoveLock.unlock();
-                    }
+                    TimeUnit.MICROSECONDS.sleep(backoffMicros);
+                } catch (InterruptedException late) {
+                    consumeAbort(late); // a stale abort aimed at the attempt we just dropped
                 } finally {
-                    blenderLock.unlock();
-                    logger.info("[Chef {}] Released STOVE and BLENDER. Ready for next order!", name);
+                    backingOff = false;
                 }
+                backoffWindow = Math.min(backoffWindow * 2, MAX_RETRY_BACKOFF_MICROS);
             }
-        } else {
-            // SAFE: All chefs take Stove -> Blender (consistent order, no deadlock)
-            logger.info("[Chef {}] Walking towards the STOVE first (safe protocol)...", name);
-            stoveLock.lockInterruptibly();
-            logger.info("[Chef {}] Got the STOVE! Now grabbing the BLENDER...", name);
+        }
+    }
+
+    /** Takes the next batch of tickets off the rail; an abort aimed at the previous order is ignored. */
+    private int takeBatch() throws InterruptedException {
+        Arrays.fill(batch, null);
+        while (true) {
             try {
-                blenderLock.lockInterruptibly();
-                logger.info("[Chef {}] Got the BLENDER! Cooking {} now!", name, dish);
-                try {
-                    stove.use();
-                    blender.use();
-                    int total = ordersCompleted.incrementAndGet();
-                    logger.info("[Chef {}] Ding ding! {} is READY! (Orders served today: {})", name, dish, total);
-                } finally {
-                    blenderLock.unlock();
+                return orders.takeBatch(batch, batchSize, maxBatchDelayMicros, TimeUnit.MICROSECONDS);
+            } catch (InterruptedException e) {
+                consumeAbort(e);
+            }
+        }
+    }
+
+    /** Swallows an interrupt that was an abort request; rethrows a real shutdown. */
+    private void consumeAbort(InterruptedException e) throws InterruptedException {
+        if (!abortRequested || !running.get()) {
+            throw e;
+        }
+        abortRequested = false;
+    }
+
+    /**
+     * Cooks {@code portions} of the dish back to back under one acquisition of its equipment.
+     * Portions served before an abort are not cooked again on the retry.
+     */
+    private void cook(Dish dish, int dishNumber, int portions) throws InterruptedException {
+        int count = gatherEquipment(dish);
+        equipmentWanted = count;
+
+        long waitStart = System.nanoTime();
+        strategy.acquire(needs, count);
+        stats.recordWait(System.nanoTime() - waitStart);
+        journalEquipment(EventType.ACQUIRED, count);
+        long cookingStart = System.nanoTime();
+        try {
+            while (portionsServed < portions) {
+                for (int i = 0; i < count; i++) {
+                    needs[i].use();
+                }
+                OrderLatencies l = latencies;
+                if (l != null && orders != null) {
+                    OrderTicket ticket = batch[portionsServed];
+                    l.record(dishNumber, ticket.getPriority(), System.nanoTime() - ticket.getPlacedAtNanos());
                 }
-            } finally {
-                stoveLock.unlock();
-                logger.info("[Chef {}] Released STOVE and BLENDER. Ready for next order!", name);
+                portionsServed++;
+                long served = tally.orderCompleted();
+                journal(EventType.COMPLETED, dishNumber, (int) served);
+            }
+            stats.batchCooked();
+        } finally {
+            tally.cooked((System.nanoTime() - cookingStart) * count);
+            // Journalled while still held, so the next holder's ACQUIRED always comes after it.
+            journalEquipment(EventType.RELEASED, count);
+            strategy.release(needs, count);
+            equipmentWanted = 0;
+        }
+    }
+
+    private void journal(EventType type, int subject, int value) {
+        EventJournal j = journal;
+        if (j != null) {
+            j.record(type, id, subject, value);
+        }
+    }
+
+    private void journalEquipment(EventType type, int count) {
+        EventJournal j = journal;
+        if (j != null) {
+            for (int i = 0; i < count; i++) {
+                j.record(type, id, needs[i].getType().ordinal(), needs[i].getUnit());
+            }
+        }
+    }
+
+    private int gatherEquipment(Dish dish) {
+        return gatherEquipment(id, dish, kitchen, random, needs, lastUsed);
+    }
+
+    /** {@link #gatherEquipment(int, Dish, EquipmentRegistry, Random, Equipment[], Equipment[])} without unit affinity. */
+    public static int gatherEquipment(int chefId, Dish dish, EquipmentRegistry kitchen, Random random, Equipment[] out) {
+        return gatherEquipment(chefId, dish, kitchen, random, out, null);
+    }
+
+    /**
+     * Fills {@code out} with one unit of every equipment type the dish uses, in recipe order, and
+     * returns how many were filled. Odd chefs work through recipes back to front, which is what
+     * gets them into trouble in DEADLOCK mode.
+     *
+     * <p>Units come from each type's {@link EquipmentPool}. When {@code lastUsed} is given (indexed
+     * by type ordinal) the chef goes back to the unit it used last if that one is idle, and the
+     * array is updated with the units picked this time.
+     */
+    public static int gatherEquipment(int chefId, Dish dish, EquipmentRegistry kitchen, Random random,
+                                      Equipment[] out, Equipment[] lastUsed) {
+        int count = dish.getEquipmentCount();
+        for (int i = 0; i < count; i++) {
+            EquipmentType type = dish.getEquipment(i);
+            Equipment unit = kitchen.poolOf(type).pick(lastUsed == null ? null : lastUsed[type.ordinal()], random);
+            if (lastUsed != null) {
+                lastUsed[type.ordinal()] = unit;
             }
+            int slot = chefId % 2 == 0 ? i : count - 1 - i;
+            out[slot] = unit;
         }
+        return count;
     }
 }
@@ -0,0 +1,101 @@
+package com.restaurant.kitchen.resources;
+
+import com.restaurant.kitchen.model.EquipmentType;
+
+/**
+ * One piece of kitchen equipment behind its own lock.
+ *
+ * <p>The rank is handed out by the {@link EquipmentRegistry} the piece is installed in and is
+ * unique within that kitchen; lock-ordering protocols sort by it.
+ */
+public class Equipment {
+    // Replaced only between runs, before any chef thread is started.
+    private EquipmentLock lock = new EquipmentLock(this, false);
+    private final EquipmentType type;
+    private final long useMillis;
+    private int rank = -1;
+    private int unit = -1;
+    private String name;
+
+    public Equipment(EquipmentType type, long useMillis) {
+        this.type = type;
+        this.useMillis = useMillis;
+        this.name = type.name();
+    }
+
+    public EquipmentLock getLock() {
+        return lock;
+    }
+
+    /**
+     * Switches between a barging lock (the default: a releasing chef may grab the unit again ahead
+     * of the queue) and a fair, first-come-first-served one. Only while nobody is cooking.
+     */
+    void setFairLock(boolean fair) {
+        if (lock.isFair() == fair) {
+            return;
+        }
+        if (lock.isLocked() || lock.hasQueuedThreads()) {
+            throw new IllegalStateException(name + " is in use; stop the kitchen before changing its locks");
+        }
+        lock = new EquipmentLock(this, fair);
+    }
+
+    /** Nobody holds or is queued for this unit right now. A racy hint, like {@link EquipmentLock#isLocked()}. */
+    public boolean isIdle() {
+        return !lock.isLocked() && !lock.hasQueuedThreads();
+    }
+
+    public void use() throws InterruptedException {
+        Thread.sleep(useMillis); // Simulate cooking / blending / baking time
+    }
+
+    public long getUseMillis() {
+        return useMillis;
+    }
+
+    public EquipmentType getType() {
+        return type;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    /** Which unit of its type this is, 0 for the first one installed; -1 until installed. */
+    public int getUnit() {
+        return unit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** In-place insertion sort of {@code equipment[0..count)} by rank; recipes are short. */
+    public static void sortByRank(Equipment[] equipment, int count) {
+        for (int i = 1; i < count; i++) {
+            Equipment piece = equipment[i];
+            int rank = piece.getRank();
+            int j = i - 1;
+            while (j >= 0 && equipment[j].getRank() > rank) {
+                equipment[j + 1] = equipment[j];
+                j--;
+            }
+            equipment[j + 1] = piece;
+        }
+    }
+
+    void install(int rank, int unit) {
+        if (this.rank >= 0) {
+            throw new IllegalStateException(name + " is already installed in a kitchen");
+        }
+        this.rank = rank;
+        this.unit = unit;
+        this.name = type.name() + "#" + unit;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,73 @@
+package com.restaurant.kitchen.resources;
+
+import com.restaurant.kitchen.model.EquipmentType;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * All installed units of one equipment type, e.g. the six burners of a range. Every unit keeps
+ * its own lock and rank (lock striping), so chefs on different burners never contend and the
+ * SAFE ordering still applies unit by unit.
+ *
+ * <p>{@link #pick} only chooses which unit a chef walks up to; the chef's lock strategy still
+ * does the actual locking, so a unit that was free when picked may be taken by the time the chef
+ * gets there. That costs a wait, never correctness.
+ */
+public class EquipmentPool {
+
+    private final EquipmentType type;
+    private Equipment[] units = new Equipment[0];
+
+    EquipmentPool(EquipmentType type) {
+        this.type = type;
+    }
+
+    public EquipmentType getType() {
+        return type;
+    }
+
+    /** The installed units; the returned array must not be modified. */
+    public Equipment[] units() {
+        return units;
+    }
+
+    public int size() {
+        return units.length;
+    }
+
+    /**
+     * Chooses a unit for a chef who last used {@code preferred} (null if none): that same unit if
+     * it is idle, otherwise any idle unit, otherwise the unit with the shortest queue, with ties
+     * going to {@code preferred}.
+     */
+    public Equipment pick(Equipment preferred, Random random) {
+        Equipment[] units = this.units;
+        if (units.length == 1) {
+            return units[0];
+        }
+        if (preferred != null && preferred.isIdle()) {
+            return preferred;
+        }
+        int start = random.nextInt(units.length);
+        Equipment shortest = preferred;
+        int shortestQueue = preferred == null ? Integer.MAX_VALUE : preferred.getLock().getQueueLength();
+        for (int i = 0; i < units.length; i++) {
+            Equipment unit = units[(start + i) % units.length];
+            if (unit.isIdle()) {
+                return unit;
+            }
+            int queue = unit.getLock().getQueueLength();
+            if (queue < shortestQueue) {
+                shortest = unit;
+                shortestQueue = queue;
+            }
+        }
+        return shortest;
+    }
+
+    void add(Equipment unit) {
+        units = Arrays.copyOf(units, units.length + 1);
+        units[units.length - 1] = unit;
+    }
+}
@@ -0,0 +1,138 @@
+package com.restaurant.kitchen.resources;
+
+import com.restaurant.kitchen.metrics.LockMetrics;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * All equipment installed in one kitchen, pooled by type.
+ *
+ * <p>Equipment is installed while the kitchen is being set up; each piece gets the next rank,
+ * so ranks follow installation order. Once chefs are cooking the registry is only read.
+ */
+public class EquipmentRegistry {
+
+    private final List<Equipment> all = new ArrayList<>();
+    private final EquipmentPool[] poolsByType = new EquipmentPool[EquipmentType.values().length];
+
+    public EquipmentRegistry() {
+        for (EquipmentType type : EquipmentType.values()) {
+            poolsByType[type.ordinal()] = new EquipmentPool(type);
+        }
+    }
+
+    public static EquipmentRegistry of(Equipment... equipment) {
+        EquipmentRegistry registry = new EquipmentRegistry();
+        for (Equipment piece : equipment) {
+            registry.install(piece);
+        }
+        return registry;
+    }
+
+    /**
+     * A kitchen with {@code counts} units per type name (e.g. {@code stove: 6}), installed and
+     * ranked in the map's iteration order. An empty map gives the classic one Stove and one Blender.
+     */
+    public static EquipmentRegistry fromCounts(Map<String, Integer> counts, long useMillis) {
+        if (counts.isEmpty()) {
+            return of(new Stove(useMillis), new Blender(useMillis));
+        }
+        EquipmentRegistry registry = new EquipmentRegistry();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            EquipmentType type = EquipmentType.valueOf(entry.getKey().toUpperCase());
+            registry.install(type, entry.getValue(), useMillis);
+        }
+        return registry;
+    }
+
+    public EquipmentRegistry install(Equipment piece) {
+        EquipmentPool pool = poolOf(piece.getType());
+        piece.install(all.size(), pool.size());
+        all.add(piece);
+        pool.add(piece);
+        return this;
+    }
+
+    public EquipmentRegistry install(EquipmentType type, int count, long useMillis) {
+        for (int i = 0; i < count; i++) {
+            install(new Equipment(type, useMillis));
+        }
+        return this;
+    }
+
+    /** Another kitchen with the same equipment installed in the same order, sharing no pieces (or locks) with this one. */
+    public EquipmentRegistry replicate() {
+        EquipmentRegistry copy = new EquipmentRegistry();
+        for (Equipment piece : all) {
+            copy.install(new Equipment(piece.getType(), piece.getUseMillis()));
+        }
+        return copy;
+    }
+
+    /** The installed units of {@code type}; the returned array must not be modified. */
+    public Equipment[] unitsOf(EquipmentType type) {
+        return poolOf(type).units();
+    }
+
+    public EquipmentPool poolOf(EquipmentType type) {
+        return poolsByType[type.ordinal()];
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    public List<Equipment> all() {
+        return Collections.unmodifiableList(all);
+    }
+
+    public boolean canCook(Dish dish) {
+        for (int i = 0; i < dish.getEquipmentCount(); i++) {
+            if (unitsOf(dish.getEquipment(i)).length == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Attaches {@code listener} to every installed lock; null detaches. */
+    public void setLockListener(LockListener listener) {
+        for (Equipment piece : all) {
+            piece.getLock().setListener(listener);
+        }
+    }
+
+    /** Starts timing lock waits and holds into {@code metrics}; null stops timing. */
+    public void setLockMetrics(LockMetrics metrics) {
+        for (Equipment piece : all) {
+            piece.getLock().setTimings(metrics == null ? null : metrics.forType(piece.getType()));
+        }
+    }
+
+    /** Makes every installed lock fair (FIFO) or barging. Only while no chef is cooking. */
+    public void setFairLocks(boolean fair) {
+        for (Equipment piece : all) {
+            piece.setFairLock(fair);
+        }
+    }
+
+    public boolean isFairLocks() {
+        return !all.isEmpty() && all.get(0).getLock().isFair();
+    }
+
+    public Map<EquipmentType, Integer> counts() {
+        Map<EquipmentType, Integer> counts = new EnumMap<>(EquipmentType.class);
+        for (EquipmentType type : EquipmentType.values()) {
+            if (unitsOf(type).length > 0) {
+                counts.put(type, unitsOf(type).length);
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,52 @@
+package com.restaurant.kitchen.resources;
+
+/**
+ * Observes every {@link EquipmentLock} operation. Callbacks run on the thread doing the
+ * operation, usually with a chef's order in flight, so implementations must be quick and must
+ * not block.
+ */
+public interface LockListener {
+
+    /** The current thread found the lock taken and is about to wait for it. */
+    void waiting(EquipmentLock lock);
+
+    /** The current thread now holds the lock (possibly after waiting). */
+    void acquired(EquipmentLock lock);
+
+    /** The current thread stopped waiting without getting the lock (timeout or interrupt). */
+    void gaveUp(EquipmentLock lock);
+
+    /** The current thread fully released the lock. */
+    void released(EquipmentLock lock);
+
+    /** Tells {@code first}, then {@code second}; either may be null. */
+    static LockListener both(LockListener first, LockListener second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return new LockListener() {
+            @Override
+            public void waiting(EquipmentLock lock) {
+                first.waiting(lock);
+                second.waiting(lock);
+            }
+
+            @Override
+            public void acquired(EquipmentLock lock) {
+                first.acquired(lock);
+                second.acquired(lock);
+            }
+
+            @Override
+            public void gaveUp(EquipmentLock lock) {
+                first.gaveUp(lock);
+                second.gaveUp(lock);
+            }
+
+            @Override
+            public void released(EquipmentLock lock) {
+                first.released(lock);
+                second.released(lock);
+            }
+        };
+    }
+}
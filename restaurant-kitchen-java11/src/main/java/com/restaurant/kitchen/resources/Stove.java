@@ -1,15 +1,14 @@
 package com.restaurant.kitchen.resources;
 
-import java.util.concurrent.locks.ReentrantLock;
+import com.restaurant.kitchen.model.EquipmentType;
 
-public class Stove {
-    private final ReentrantLock lock = new ReentrantLock();
+public class Stove extends Equipment {
 
-    public ReentrantLock getLock() {
-        return lock;
+    public Stove() {
+        this(50);
     }
 
-    public void use() throws InterruptedException {
-        Thread.sleep(50); // Simulate cooking time
+    public Stove(long cookMillis) {
+        super(EquipmentType.STOVE, cookMillis);
     }
 }
@@ -0,0 +1,48 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.resources.Chef;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Breaks a confirmed deadlock by aborting one chef on the cycle. The victim drops its current
+ * attempt, which releases its equipment and lets the rest of the cycle move, then retries the
+ * same dish after a randomized backoff.
+ */
+public class DeadlockResolver implements WaitForGraphDetector.CycleHandler {
+
+    private static final Logger logger = LogManager.getLogger(DeadlockResolver.class);
+
+    private static final Comparator<Chef> YOUNGEST_FIRST =
+            Comparator.comparingLong(Chef::getOrderStartedNanos).reversed();
+
+    private final Comparator<Chef> victimFirst;
+
+    public DeadlockResolver(VictimPolicy policy) {
+        this.victimFirst = comparatorFor(policy);
+    }
+
+    private static Comparator<Chef> comparatorFor(VictimPolicy policy) {
+        switch (policy) {
+            case YOUNGEST_ORDER:
+                return YOUNGEST_FIRST;
+            case FEWEST_LOCKS:
+                return Comparator.comparingInt(Chef::getEquipmentHeld).thenComparing(YOUNGEST_FIRST);
+            case LOWEST_PRIORITY:
+                return Comparator.comparingInt(Chef::getPriority).thenComparing(YOUNGEST_FIRST);
+            default:
+                throw new IllegalArgumentException("Unknown victim policy " + policy);
+        }
+    }
+
+    @Override
+    public void onDeadlock(List<Chef> cycle) {
+        Chef victim = cycle.stream().min(victimFirst).orElseThrow();
+        logger.info("[Recovery] Deadlock between {} chefs. Asking Chef {} to step back.", cycle.size(), victim.getName());
+        victim.abortCurrentOrder();
+    }
+}
@@ -0,0 +1,119 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.async.FairScheduler;
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.model.KitchenSpec;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts any number of independent, named kitchens in this JVM. Each has its own equipment, mode
+ * and counters; all of them cook on one {@link FairScheduler}, so the thread count stays fixed
+ * however many kitchens there are, and each kitchen gets its turn.
+ */
+@Service
+public class KitchenManager {
+
+    private static final Logger logger = LogManager.getLogger(KitchenManager.class);
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final KitchenProperties.Manager settings;
+    private final FairScheduler scheduler;
+    private final ConcurrentNavigableMap<String, ManagedKitchen> kitchens = new ConcurrentSkipListMap<>();
+
+    public KitchenManager(KitchenProperties properties) {
+        this.settings = properties.getManager();
+        int threads = settings.getThreads() > 0 ? settings.getThreads() : Runtime.getRuntime().availableProcessors();
+        this.scheduler = new FairScheduler(threads, settings.getQuantum());
+    }
+
+    /**
+     * @throws IllegalArgumentException for a bad id or spec
+     * @throws IllegalStateException if the id is taken or the kitchen limit is reached
+     */
+    public ManagedKitchen create(String id, KitchenSpec spec) {
+        if (!VALID_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Kitchen ids are 1-64 letters, digits, '-' or '_', got '" + id + "'");
+        }
+        if (spec.getChefCount() < 1 || spec.getChefCount() > settings.getMaxChefsPerKitchen()) {
+            throw new IllegalArgumentException("A kitchen needs 1 to " + settings.getMaxChefsPerKitchen() + " chefs");
+        }
+        EquipmentRegistry registry = EquipmentRegistry.fromCounts(spec.getEquipment(), spec.getUseMillis());
+        if (Chef.menuFor(registry).isEmpty()) {
+            throw new IllegalArgumentException("Nothing on the menu can be cooked with " + registry.counts());
+        }
+        synchronized (kitchens) {
+            if (kitchens.containsKey(id)) {
+                throw new IllegalStateException("Kitchen '" + id + "' already exists");
+            }
+            if (kitchens.size() >= settings.getMaxKitchens()) {
+                throw new IllegalStateException("This instance already hosts " + settings.getMaxKitchens() + " kitchens");
+            }
+            ManagedKitchen kitchen = new ManagedKitchen(id, registry, spec.getChefCount(), scheduler.newLane(id));
+            kitchens.put(id, kitchen);
+            logger.info("Kitchen '{}' built: {} chefs, {}", id, spec.getChefCount(), registry.counts());
+            return kitchen;
+        }
+    }
+
+    /** The kitchen with this id, or null. */
+    public ManagedKitchen find(String id) {
+        return kitchens.get(id);
+    }
+
+    public List<ManagedKitchen> list() {
+        return new ArrayList<>(kitchens.values());
+    }
+
+    public void start(String id, SimulationMode mode) {
+        require(id).start(mode);
+        logger.info("Kitchen '{}' is cooking in {} mode", id, mode);
+    }
+
+    /** Returns false if there was no such kitchen. */
+    public boolean delete(String id) {
+        ManagedKitchen kitchen;
+        synchronized (kitchens) {
+            kitchen = kitchens.remove(id);
+        }
+        if (kitchen == null) {
+            return false;
+        }
+        kitchen.close();
+        logger.info("Kitchen '{}' torn down", id);
+        return true;
+    }
+
+    public int getThreads() {
+        return scheduler.getThreads();
+    }
+
+    private ManagedKitchen require(String id) {
+        ManagedKitchen kitchen = kitchens.get(id);
+        if (kitchen == null) {
+            throw new NoSuchElementException("No kitchen '" + id + "'");
+        }
+        return kitchen;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ManagedKitchen kitchen : kitchens.values()) {
+            kitchen.close();
+        }
+        kitchens.clear();
+        scheduler.shutdown();
+    }
+}
@@ -1,142 +1,851 @@
 package com.restaurant.kitchen.service;
 
+import com.restaurant.kitchen.async.AsyncKitchen;
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.journal.EventJournal;
+import com.restaurant.kitchen.metrics.ChefTally;
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.metrics.LatencyHistogram;
+import com.restaurant.kitchen.metrics.LockMetrics;
+import com.restaurant.kitchen.metrics.LockTimes;
+import com.restaurant.kitchen.metrics.OrderLatencies;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.FairnessReport;
+import com.restaurant.kitchen.model.KitchenEngine;
 import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.LoadCurve;
+import com.restaurant.kitchen.model.LoadProfile;
+import com.restaurant.kitchen.model.LoadReport;
+import com.restaurant.kitchen.model.OrderPriority;
 import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.model.StationReport;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.orders.LoadGenerator;
+import com.restaurant.kitchen.orders.OrderProducer;
+import com.restaurant.kitchen.orders.OrderQueue;
+import com.restaurant.kitchen.orders.OrderRail;
+import com.restaurant.kitchen.orders.PriorityMix;
+import com.restaurant.kitchen.orders.StationRouter;
 import com.restaurant.kitchen.resources.Blender;
 import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.LockListener;
 import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.sim.VirtualKitchen;
+import com.restaurant.kitchen.strategy.BankersStrategy;
+import com.restaurant.kitchen.strategy.LockStrategies;
+import com.restaurant.kitchen.strategy.LockStrategy;
+import com.restaurant.kitchen.strategy.PriorityLeaseStrategy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadMXBean;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class KitchenSimulator {
 
     private static final Logger logger = LogManager.getLogger(KitchenSimulator.class);
 
-    private final Stove stove;
-    private final Blender blender;
+    // Enough to recognise the chefs on the dashboard without shipping 100k names per poll.
+    private static final int MAX_LISTED_CHEFS = 64;
+
+    private final EquipmentRegistry kitchen;
+    private final KitchenProperties properties;
 
     private ExecutorService executor;
+    // One pool per station, each thread named after its station; empty for a single kitchen.
+    private final List<ExecutorService> stationExecutors = new ArrayList<>();
+    // Station 0 cooks on the injected kitchen, the others on replicas of it; just that one without stations.
+    private volatile List<EquipmentRegistry> stationKitchens = Collections.emptyList();
+    private volatile StationRouter router;
+    private volatile AsyncKitchen asyncKitchen;
+    private volatile OrderRail orders;
+    private volatile AtomicLong ticketNumbers;
+    private volatile LoadProfile load;
+    private volatile LoadGenerator loadGenerator;
+    // The curve being (or last) measured in the background, and the thread measuring it.
+    private volatile LoadCurve loadCurve;
+    private volatile Thread curveRunner;
+    private final OrderLatencies orderLatencies = new OrderLatencies(Chef.dishCount());
+    private Thread frontOfHouse;
+    private volatile EventJournal journal;
     private volatile boolean running = false;
     private AtomicBoolean runningFlag;
-    private final AtomicInteger ordersCompleted = new AtomicInteger(0);
+    private final KitchenStats stats = new KitchenStats();
+    private final LockMetrics lockMetrics = new LockMetrics();
+    private final List<Chef> chefs = new ArrayList<>();
+    private volatile WaitForGraphDetector detector;
+    // Kept after the run stops, so its findings can still be read.
+    private volatile LockOrderValidator lockOrder;
+    private volatile long startedAtNanos;
+    private volatile long stoppedAtNanos;
     private SimulationMode mode = SimulationMode.DEADLOCK;
-    private int chefCount = 4;
+    private int chefCount;
+    private KitchenEngine engine;
+    private boolean fairLocks;
+    private int stationCount = 1;
+    private final List<BankersStrategy> bankers = new ArrayList<>();
+    private final List<PriorityLeaseStrategy> grantQueues = new ArrayList<>();
     private final List<String> chefNames = new ArrayList<>();
 
+    @Autowired
+    public KitchenSimulator(EquipmentRegistry kitchen, KitchenProperties properties) {
+        this.kitchen = kitchen;
+        this.properties = properties;
+        this.chefCount = properties.getChefCount();
+        this.engine = properties.getEngine();
+    }
+
+    public KitchenSimulator(EquipmentRegistry kitchen) {
+        this(kitchen, new KitchenProperties());
+    }
+
+    /** The original two-piece kitchen: one Stove, one Blender. */
     public KitchenSimulator(Stove stove, Blender blender) {
-        this.stove = stove;
-        this.blender = blender;
+        this(EquipmentRegistry.of(stove, blender));
     }
 
     public void start(SimulationMode mode) {
+        start(mode, properties.getRecovery().getVictimPolicy());
+    }
+
+    public void start(SimulationMode mode, VictimPolicy victimPolicy) {
+        start(mode, victimPolicy, properties.isFairLocks());
+    }
+
+    public void start(SimulationMode mode, VictimPolicy victimPolicy, boolean fairLocks) {
+        start(mode, victimPolicy, fairLocks, null);
+    }
+
+    /** Opens with customers arriving as {@code load} describes, instead of a rail kept full. */
+    public void start(SimulationMode mode, LoadProfile load) {
+        start(mode, null, properties.isFairLocks(), load);
+    }
+
+    /**
+     * @param victimPolicy  how RECOVERY picks whom to send back; null for the configured policy
+     * @param fairLocks     first-come-first-served equipment locks instead of barging ones; threaded
+     *                      engine only (the async engine's locks are always first-come-first-served)
+     * @param load          customers arriving on a schedule; null keeps the rail full. Threaded engine only.
+     */
+    public void start(SimulationMode mode, VictimPolicy victimPolicy, boolean fairLocks, LoadProfile load) {
+        Thread measuring = curveRunner;
+        if (measuring != null && measuring != Thread.currentThread()) {
+            throw new IllegalStateException("A load curve is being measured; stop it first");
+        }
         if (running) {
             logger.warn("=== Kitchen is already buzzing! Stop the current simulation first. ===");
             return;
         }
+        if (load != null && properties.getEngine() == KitchenEngine.ASYNC) {
+            throw new IllegalArgumentException("Arriving customers need the THREADS engine; async chefs make up their own orders");
+        }
+        int stations = properties.getStations().getCount();
+        if (stations < 1) {
+            throw new IllegalArgumentException("A kitchen needs at least one station, was " + stations);
+        }
+        if (stations > 1 && properties.getEngine() == KitchenEngine.ASYNC) {
+            throw new IllegalArgumentException("Stations need the THREADS engine; async chefs share one kitchen");
+        }
+        if (stations > properties.getChefCount()) {
+            throw new IllegalArgumentException("Every station needs a chef: " + stations + " stations, "
+                    + properties.getChefCount() + " chefs");
+        }
+        this.stationCount = stations;
+        this.router = null;
+        this.bankers.clear();
+        this.grantQueues.clear();
+        this.load = load;
+        this.loadGenerator = null;
+        this.orderLatencies.reset();
+        if (victimPolicy == null) {
+            victimPolicy = properties.getRecovery().getVictimPolicy();
+        }
         this.mode = mode;
-        this.ordersCompleted.set(0);
+        this.lockOrder = null;
+        this.stats.reset();
         this.runningFlag = new AtomicBoolean(true);
         this.chefNames.clear();
-        this.executor = Executors.newFixedThreadPool(chefCount);
+        this.chefs.clear();
+        this.lockMetrics.reset();
+        this.chefCount = properties.getChefCount();
+        this.engine = properties.getEngine();
+        this.fairLocks = engine == KitchenEngine.ASYNC || fairLocks;
 
         logger.info("========================================");
         logger.info("  RESTAURANT KITCHEN SIMULATOR");
         logger.info("  Mode  : {}", mode);
+        logger.info("  Engine: {}", engine);
         logger.info("  Chefs : {}", chefCount);
+        logger.info("  Locks : {}", this.fairLocks ? "fair" : "barging");
+        logger.info("  Kit   : {}{}", kitchen.counts(), stationCount > 1 ? " at each of " + stationCount + " stations" : "");
         logger.info("========================================");
 
-        if (mode == SimulationMode.DEADLOCK) {
-            logger.info("WARNING: Deadlock mode enabled!");
-            logger.info("  -> Even chefs grab STOVE first, then BLENDER");
-            logger.info("  -> Odd chefs grab BLENDER first, then STOVE");
-            logger.info("  -> This WILL cause a deadlock!");
-        } else {
-            logger.info("Safe mode enabled.");
-            logger.info("  -> All chefs follow the same lock order: STOVE -> BLENDER");
-            logger.info("  -> No deadlock possible.");
+        switch (mode) {
+            case DEADLOCK:
+                logger.info("WARNING: Deadlock mode enabled!");
+                logger.info("  -> Even chefs grab equipment in recipe order (STOVE, then BLENDER)");
+                logger.info("  -> Odd chefs grab it back to front (BLENDER, then STOVE)");
+                logger.info("  -> This WILL cause a deadlock!");
+                break;
+            case SAFE:
+                logger.info("Safe mode enabled.");
+                logger.info("  -> All chefs follow the same lock order: equipment rank (STOVE -> BLENDER)");
+                logger.info("  -> No deadlock possible.");
+                break;
+            case TRY_LOCK:
+                logger.info("Try-lock mode enabled.");
+                logger.info("  -> Chefs keep their own order but give up after a short wait");
+                logger.info("  -> They put everything back, back off randomly and retry");
+                break;
+            case WAITER:
+                logger.info("Waiter mode enabled.");
+                logger.info("  -> A waiter admits at most N-1 chefs and hands out equipment all at once");
+                break;
+            case COARSE:
+                logger.info("Coarse lock mode enabled.");
+                logger.info("  -> One chef in the kitchen at a time (baseline)");
+                break;
+            case RECOVERY:
+                logger.info("Recovery mode enabled.");
+                logger.info("  -> Chefs grab equipment in clashing orders, just like DEADLOCK mode");
+                logger.info("  -> Every deadlock is broken by sending one chef back ({})", victimPolicy);
+                break;
+            case AVOIDANCE:
+                logger.info("Avoidance mode enabled.");
+                logger.info("  -> Chefs declare what each order needs and keep their own order");
+                logger.info("  -> A banker only hands out equipment while everyone can still finish");
+                break;
+            case PRIORITY:
+                logger.info("Priority mode enabled.");
+                logger.info("  -> Chefs take equipment in rank order, most urgent order first (VIP, NORMAL, BATCH_PREP)");
+                logger.info("  -> Waiting orders age into higher classes; a chef overrunning its {} ms lease is sent back",
+                        properties.getPriorities().getLeaseMillis());
+                break;
         }
 
         logger.info("========================================");
         logger.info("  Opening the kitchen doors...");
         logger.info("========================================");
 
-        for (int i = 0; i < chefCount; i++) {
-            Chef chef = new Chef(i, stove, blender, mode, ordersCompleted, runningFlag);
-            chefNames.add(chef.getName());
-            executor.submit(chef);
+        if (engine == KitchenEngine.ASYNC) {
+            startAsync();
+        } else {
+            startThreads(victimPolicy);
         }
         running = true;
         logger.info("Kitchen is OPEN! {} chefs are cooking!", chefCount);
     }
 
+    private void startThreads(VictimPolicy victimPolicy) {
+        KitchenProperties.Orders ticketRail = properties.getOrders();
+        List<Dish> menu = Chef.menuFor(kitchen);
+        if (stationCount > 1) {
+            this.router = new StationRouter(stationCount, ticketRail.getQueueCapacity(), menu,
+                    properties.getStations().isStealing());
+            this.orders = router;
+        } else {
+            this.orders = new OrderQueue(ticketRail.getQueueCapacity());
+        }
+        this.ticketNumbers = new AtomicLong();
+        KitchenProperties.Priorities classes = properties.getPriorities();
+        PriorityMix priorities = mode == SimulationMode.PRIORITY || classes.isAllModes()
+                ? new PriorityMix(classes.getVipPercent(), classes.getBatchPrepPercent(), classes.getAgingMillis())
+                : PriorityMix.allNormal();
+        OrderProducer producer = new OrderProducer(orders, menu, runningFlag, ticketNumbers);
+        producer.setPriorityMix(priorities);
+        Runnable door = producer;
+        if (load != null) {
+            // Built first: a bad profile or replay file fails the start before anything runs.
+            this.loadGenerator = new LoadGenerator(orders, menu, load, runningFlag, ticketNumbers,
+                    Paths.get(ticketRail.getReplayDirectory()), ticketRail.getMaxReplayBytes());
+            loadGenerator.setPriorityMix(priorities);
+            door = loadGenerator;
+        }
+        // Likewise the journal: a bad path must fail the start before the detector or any chef runs.
+        EventJournal events = openJournal();
+        long maxBatchDelayMicros = TimeUnit.MILLISECONDS.toMicros(ticketRail.getMaxBatchDelayMillis());
+
+        List<EquipmentRegistry> kitchens = new ArrayList<>();
+        kitchens.add(kitchen);
+        for (int s = 1; s < stationCount; s++) {
+            kitchens.add(kitchen.replicate());
+        }
+        this.stationKitchens = kitchens;
+        this.detector = new WaitForGraphDetector(properties.getDetectorIntervalMillis());
+        if (mode == SimulationMode.RECOVERY) {
+            detector.setCycleHandler(new DeadlockResolver(victimPolicy));
+        }
+        // Replicas rank their equipment like the original, so one validator covers every station.
+        this.lockOrder = properties.isLockOrderValidation() ? new LockOrderValidator(kitchen) : null;
+        LockStrategy[] strategies = new LockStrategy[stationCount];
+        for (int s = 0; s < stationCount; s++) {
+            EquipmentRegistry station = kitchens.get(s);
+            station.setFairLocks(fairLocks);
+            station.setLockListener(LockListener.both(detector, lockOrder));
+            station.setLockMetrics(lockMetrics);
+            strategies[s] = LockStrategies.forMode(mode, chefsAt(s), station, classes.getLeaseMillis());
+            if (strategies[s] instanceof BankersStrategy) {
+                bankers.add((BankersStrategy) strategies[s]);
+            }
+            if (strategies[s] instanceof PriorityLeaseStrategy) {
+                grantQueues.add((PriorityLeaseStrategy) strategies[s]);
+            }
+        }
+        detector.start();
+
+        if (stationCount > 1) {
+            for (int s = 0; s < stationCount; s++) {
+                stationExecutors.add(Executors.newFixedThreadPool(chefsAt(s), stationThreads(s)));
+            }
+            logger.info("  -> {} stations with their own equipment; dishes go home, idle stations {}",
+                    stationCount, properties.getStations().isStealing() ? "steal" : "wait");
+        } else {
+            this.executor = Executors.newFixedThreadPool(chefCount);
+        }
+        startedAtNanos = System.nanoTime();
+        this.frontOfHouse = new Thread(door, "front-of-house");
+        frontOfHouse.setDaemon(true);
+        frontOfHouse.start();
+        for (int i = 0; i < chefCount; i++) {
+            int s = i % stationCount;
+            Chef chef = new Chef(i, kitchens.get(s), strategies[s], stats, runningFlag);
+            chef.setPriority(chefCount - i);
+            chef.takeOrdersFrom(router == null ? orders : router.station(s), ticketRail.getBatchSize(), maxBatchDelayMicros);
+            chef.setJournal(events);
+            chef.setOrderLatencies(orderLatencies);
+            if (i < MAX_LISTED_CHEFS) {
+                chefNames.add(chef.getName());
+                chefs.add(chef);
+            }
+            (stationCount > 1 ? stationExecutors.get(s) : executor).submit(chef);
+        }
+    }
+
+    /** Chef {@code i} works at station {@code i % stations}. */
+    private int chefsAt(int station) {
+        return chefCount / stationCount + (station < chefCount % stationCount ? 1 : 0);
+    }
+
+    private static ThreadFactory stationThreads(int station) {
+        AtomicInteger next = new AtomicInteger();
+        return task -> new Thread(task, "station-" + station + "-chef-" + next.getAndIncrement());
+    }
+
+    /** Starts a fresh journal for this run, closing the previous run's; null when journaling is off. */
+    private EventJournal openJournal() {
+        closeJournal();
+        KitchenProperties.Journal settings = properties.getJournal();
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        Path file = settings.getPath().isEmpty()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), "kitchen-journal.bin")
+                : Paths.get(settings.getPath());
+        try {
+            journal = EventJournal.create(file, settings.getCapacity());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the event journal " + file, e);
+        }
+        logger.info("  -> Journaling every order to {}", file);
+        return journal;
+    }
+
+    private void closeJournal() {
+        EventJournal current = journal;
+        journal = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.warn("Could not close the event journal {}", current.getFile(), e);
+            }
+        }
+    }
+
+    private void startAsync() {
+        int threads = properties.getEngineThreads() > 0
+                ? properties.getEngineThreads()
+                : Runtime.getRuntime().availableProcessors();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(threads);
+        scheduler.setRemoveOnCancelPolicy(true);
+        try {
+            this.asyncKitchen = new AsyncKitchen(kitchen, mode, chefCount, scheduler, stats);
+        } catch (IllegalArgumentException e) {
+            scheduler.shutdownNow(); // a mode this engine cannot run: nothing was started
+            throw e;
+        }
+        this.executor = scheduler;
+        chefNames.addAll(asyncKitchen.chefNames(MAX_LISTED_CHEFS));
+        startedAtNanos = System.nanoTime();
+        asyncKitchen.start();
+        logger.info("  -> {} chefs share {} threads", chefCount, threads);
+    }
+
     public void stop() {
+        Thread measuring = curveRunner;
+        if (measuring != null && measuring != Thread.currentThread()) {
+            // The curve closes the kitchen itself once interrupted.
+            measuring.interrupt();
+            try {
+                measuring.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         if (!running) {
             logger.info("Kitchen is already closed.");
             return;
         }
         running = false;
+        stoppedAtNanos = System.nanoTime();
         if (runningFlag != null) {
             runningFlag.set(false);
         }
+        if (asyncKitchen != null) {
+            asyncKitchen.stop();
+        }
+        if (frontOfHouse != null) {
+            frontOfHouse.interrupt();
+            frontOfHouse = null;
+        }
+        List<ExecutorService> pools = new ArrayList<>(stationExecutors);
         if (executor != null) {
-            executor.shutdownNow();
-            try {
-                executor.awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            pools.add(executor);
+        }
+        for (ExecutorService pool : pools) {
+            pool.shutdownNow();
+        }
+        try {
+            for (ExecutorService pool : pools) {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        stationExecutors.clear();
+        if (detector != null) {
+            detector.stop();
+            for (EquipmentRegistry station : stationKitchens) {
+                station.setLockListener(null);
+                station.setLockMetrics(null);
             }
+            detector = null;
+        }
+        asyncKitchen = null;
+        if (orders != null) {
+            orders.clear();
         }
         logger.info("========================================");
         logger.info("  KITCHEN CLOSED");
-        logger.info("  Total orders served : {}", ordersCompleted.get());
+        logger.info("  Total orders served : {}", stats.getOrdersCompleted());
+        logger.info("  Orders per second   : {}", String.format("%.2f", ordersPerSecond()));
+        logger.info("  Wait mean / p99 (ms): {} / {}",
+                String.format("%.3f", stats.getWaitTimes().meanNanos() / 1e6),
+                String.format("%.3f", stats.getWaitTimes().valueAtPercentile(99) / 1e6));
+        if (mode == SimulationMode.RECOVERY) {
+            logger.info("  Deadlocks broken    : {} ({}% of chef time lost)", stats.getRecoveries(),
+                    String.format("%.1f", lostThroughputPercent()));
+        }
+        if (!bankers.isEmpty()) {
+            long grants = 0;
+            long quickGrants = 0;
+            long denials = 0;
+            for (BankersStrategy banker : bankers) {
+                grants += banker.getGrants();
+                quickGrants += banker.getQuickGrants();
+                denials += banker.getDenials();
+            }
+            logger.info("  Banker grants       : {} ({} on the quick check), {} refused as unsafe",
+                    grants, quickGrants, denials);
+        }
+        if (!grantQueues.isEmpty()) {
+            long grants = 0;
+            long queuedGrants = 0;
+            long preemptions = 0;
+            for (PriorityLeaseStrategy queues : grantQueues) {
+                grants += queues.getGrants();
+                queuedGrants += queues.getQueuedGrants();
+                preemptions += queues.getPreemptions();
+            }
+            logger.info("  Equipment grants    : {} ({} after queueing), {} leases revoked",
+                    grants, queuedGrants, preemptions);
+        }
+        if (router != null) {
+            long stolen = 0;
+            for (int s = 0; s < router.stations(); s++) {
+                stolen += router.getStolen(s);
+            }
+            logger.info("  Stations            : {}, {} orders stolen", router.stations(), stolen);
+        }
         logger.info("========================================");
     }
 
     public KitchenStatus getStatus() {
-        boolean deadlocked = detectDeadlock();
+        List<DeadlockCycle> deadlocks = detectDeadlock();
+        boolean deadlocked = !deadlocks.isEmpty();
         String message;
 
         if (!running) {
             message = "Kitchen is closed. Start a simulation to begin cooking!";
         } else if (deadlocked) {
-            message = "DEADLOCK DETECTED! Both chefs are stuck waiting for each other's equipment. "
-                    + "No orders can be completed. The kitchen is frozen!";
+            message = "DEADLOCK DETECTED! " + deadlocks.get(0).getDescription()
+                    + ". No orders can be completed. The kitchen is frozen!";
         } else {
-            message = "Kitchen is running smoothly. " + ordersCompleted.get()
+            message = "Kitchen is running smoothly. " + stats.getOrdersCompleted()
                     + " orders served so far. Chefs are cooking happily!";
         }
 
-        return new KitchenStatus(
+        KitchenStatus status = new KitchenStatus(
                 running,
                 deadlocked,
-                ordersCompleted.get(),
+                stats.getOrdersCompleted(),
                 chefCount,
                 mode,
                 message,
                 new ArrayList<>(chefNames)
         );
+        status.setOrdersPerSecond(ordersPerSecond());
+        status.setMeanWaitMillis(stats.getWaitTimes().meanNanos() / 1e6);
+        status.setP99WaitMillis(stats.getWaitTimes().valueAtPercentile(99) / 1e6);
+        status.setRecoveries(stats.getRecoveries());
+        status.setRecoveriesPerSecond(perSecond(stats.getRecoveries()));
+        status.setLostThroughputPercent(lostThroughputPercent());
+        status.setDeadlockCycles(deadlocks);
+        status.setEngine(engine);
+        status.setFairLocks(fairLocks);
+        OrderRail rail = orders;
+        status.setOrdersQueued(rail == null ? 0 : rail.size());
+        status.setMeanBatchSize(stats.getBatches() == 0 ? 0 : (double) stats.getOrdersCompleted() / stats.getBatches());
+        return status;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** What each of the first chefs of this run is doing right now, keyed like {@code Gordon#0}. */
+    public Map<String, ChefState> getChefStates() {
+        Map<String, ChefState> states = new LinkedHashMap<>();
+        AsyncKitchen async = asyncKitchen;
+        if (async != null) {
+            List<ChefState> current = async.chefStates(MAX_LISTED_CHEFS);
+            for (int i = 0; i < current.size(); i++) {
+                states.put(Chef.nameFor(i) + "#" + i, current.get(i));
+            }
+            return states;
+        }
+        for (Chef chef : chefs) {
+            states.put(chef.getName() + "#" + chef.getId(), running ? chef.getState() : ChefState.OFF);
+        }
+        return states;
+    }
+
+    /**
+     * Order latency of this run so far, from each customer's due time to the dish being served.
+     * With no load profile the rail is kept full, so the numbers only show time spent on the rail.
+     */
+    public LoadReport getLoadReport() {
+        long now = running || stoppedAtNanos == 0 ? System.nanoTime() : stoppedAtNanos;
+        LoadGenerator door = loadGenerator;
+        AtomicLong placed = ticketNumbers;
+        long nanos = door != null ? door.elapsedNanos(now) : elapsedNanos();
+        return loadReport(placed == null ? 0 : placed.get(), nanos / 1e9);
+    }
+
+    /**
+     * Runs the kitchen once per rate in {@code ratesPerSecond} with customers arriving as in
+     * {@code profile}, and reports order latency at each: the latency-vs-load curve. Each step
+     * warms up for {@code warmupSeconds} before measuring for {@code seconds}. Blocks until done;
+     * the kitchen is closed afterwards.
+     */
+    public List<LoadReport> measureLoadCurve(SimulationMode mode, LoadProfile profile, double[] ratesPerSecond,
+                                             double warmupSeconds, double seconds) throws InterruptedException {
+        if (running) {
+            throw new IllegalStateException("Stop the kitchen before measuring a load curve");
+        }
+        List<LoadReport> curve = new ArrayList<>();
+        measure(mode, profile, ratesPerSecond, warmupSeconds, seconds, curve);
+        return curve;
+    }
+
+    /**
+     * Starts {@link #measureLoadCurve} on a background thread and returns at once; the curve fills
+     * in as each rate is measured, see {@link #getLoadCurve()}. Stopping the kitchen ends it early.
+     */
+    public synchronized LoadCurve startLoadCurve(SimulationMode mode, LoadProfile profile, double[] ratesPerSecond,
+                                                 double warmupSeconds, double seconds) {
+        if (running || curveRunner != null) {
+            throw new IllegalStateException("Stop the kitchen before measuring a load curve");
+        }
+        LoadCurve curve = new LoadCurve();
+        curve.setMode(mode);
+        curve.setRatesPerSecond(ratesPerSecond.clone());
+        curve.setSecondsPerRate(warmupSeconds + seconds);
+        curve.setPoints(new CopyOnWriteArrayList<>());
+        curve.setRunning(true);
+        Thread runner = new Thread(() -> {
+            try {
+                measure(mode, profile, ratesPerSecond, warmupSeconds, seconds, curve.getPoints());
+            } catch (InterruptedException e) {
+                curve.setError("Stopped after " + curve.getPoints().size() + " of " + ratesPerSecond.length + " rates");
+            } catch (RuntimeException e) {
+                logger.warn("Load curve failed", e);
+                curve.setError(e.getMessage());
+            } finally {
+                curveRunner = null;
+                curve.setRunning(false);
+            }
+        }, "load-curve");
+        runner.setDaemon(true);
+        this.loadCurve = curve;
+        this.curveRunner = runner;
+        runner.start();
+        return curve;
+    }
+
+    /** The curve being measured, or the last one measured in the background; null if there was none. */
+    public LoadCurve getLoadCurve() {
+        return loadCurve;
+    }
+
+    private void measure(SimulationMode mode, LoadProfile profile, double[] ratesPerSecond,
+                         double warmupSeconds, double seconds, List<LoadReport> curve) throws InterruptedException {
+        for (double rate : ratesPerSecond) {
+            start(mode, profile.atRate(rate));
+            try {
+                Thread.sleep((long) (warmupSeconds * 1000));
+                orderLatencies.reset();
+                long placedBefore = ticketNumbers.get();
+                long measureStart = System.nanoTime();
+                Thread.sleep((long) (seconds * 1000));
+                curve.add(loadReport(ticketNumbers.get() - placedBefore, (System.nanoTime() - measureStart) / 1e9));
+            } finally {
+                stop();
+            }
+            LoadReport point = curve.get(curve.size() - 1);
+            logger.info("Load {} orders/s: served {}/s, p99 {} ms", rate,
+                    String.format("%.1f", point.getServedPerSecond()), String.format("%.1f", point.getP99Millis()));
+        }
+    }
+
+    private LoadReport loadReport(long placed, double seconds) {
+        LoadProfile profile = load;
+        LoadGenerator door = loadGenerator;
+        OrderRail rail = orders;
+        LatencyHistogram all = orderLatencies.all();
+        LoadReport report = new LoadReport();
+        report.setMode(mode);
+        report.setChefs(chefCount);
+        report.setPattern(profile == null ? null : profile.getPattern());
+        report.setTargetOrdersPerSecond(profile == null ? 0 : profile.getOrdersPerSecond());
+        report.setSeconds(seconds);
+        report.setOrdersPlaced(placed);
+        report.setOrdersServed(all.count());
+        report.setPlacedPerSecond(seconds > 0 ? placed / seconds : 0);
+        report.setServedPerSecond(seconds > 0 ? all.count() / seconds : 0);
+        report.setOrdersQueued(rail == null ? 0 : rail.size());
+        report.setMaxDoorLagMillis(door == null ? 0 : door.getMaxLagNanos() / 1e6);
+        report.setMeanMillis(all.meanNanos() / 1e6);
+        report.setP50Millis(all.valueAtPercentile(50) / 1e6);
+        report.setP90Millis(all.valueAtPercentile(90) / 1e6);
+        report.setP99Millis(all.valueAtPercentile(99) / 1e6);
+        report.setP999Millis(all.valueAtPercentile(99.9) / 1e6);
+        report.setMaxMillis(all.maxNanos() / 1e6);
+        Map<String, LoadReport.DishLatency> perDish = new LinkedHashMap<>();
+        for (int i = 0; i < orderLatencies.dishes(); i++) {
+            LatencyHistogram dish = orderLatencies.forDish(i);
+            if (dish.count() > 0) {
+                perDish.put(Chef.dishNumbered(i).getName(), new LoadReport.DishLatency(dish.count(),
+                        dish.valueAtPercentile(50) / 1e6, dish.valueAtPercentile(99) / 1e6, dish.maxNanos() / 1e6));
+            }
+        }
+        report.setPerDish(perDish);
+        Map<OrderPriority, LoadReport.DishLatency> perPriority = new LinkedHashMap<>();
+        for (OrderPriority priority : OrderPriority.values()) {
+            LatencyHistogram served = orderLatencies.forPriority(priority);
+            if (served.count() > 0) {
+                perPriority.put(priority, new LoadReport.DishLatency(served.count(),
+                        served.valueAtPercentile(50) / 1e6, served.valueAtPercentile(99) / 1e6, served.maxNanos() / 1e6));
+            }
+        }
+        report.setPerPriority(perPriority);
+        return report;
+    }
+
+    /**
+     * The lock-order validator of the current (or, once stopped, the last) run; null when
+     * {@code kitchen.lock-order-validation} is off or the run used the async engine.
+     */
+    public LockOrderValidator getLockOrderValidator() {
+        return lockOrder;
+    }
+
+    /**
+     * Orders, utilization, routing and steals per station of the current (or, once stopped, the
+     * last) run. A kitchen without stations is reported as a single station.
+     */
+    public StationReport getStationReport() {
+        StationRouter rails = router;
+        int stations = rails == null ? 1 : rails.stations();
+        double seconds = elapsedNanos() / 1e9;
+        long[] served = new long[stations];
+        long[] equipmentNanos = new long[stations];
+        int[] staff = new int[stations];
+        for (ChefTally tally : stats.getTallies()) {
+            int s = tally.getChefId() % stations;
+            served[s] += tally.getOrders();
+            equipmentNanos[s] += tally.getEquipmentNanos();
+            staff[s]++;
+        }
+        List<Dish> menu = Chef.menuFor(kitchen);
+        List<StationReport.Station> perStation = new ArrayList<>();
+        long totalServed = 0;
+        long totalStolen = 0;
+        for (int s = 0; s < stations; s++) {
+            StationReport.Station station = new StationReport.Station();
+            station.setStation(s);
+            station.setChefs(staff[s]);
+            List<String> dishes = new ArrayList<>();
+            for (Dish dish : menu) {
+                if (rails == null || rails.homeOf(dish) == s) {
+                    dishes.add(dish.getName());
+                }
+            }
+            station.setDishes(dishes);
+            station.setOrdersCompleted(served[s]);
+            station.setOrdersPerSecond(seconds > 0 ? served[s] / seconds : 0);
+            double capacityNanos = seconds * 1e9 * kitchen.size();
+            station.setUtilizationPercent(capacityNanos > 0 ? 100.0 * equipmentNanos[s] / capacityNanos : 0);
+            if (rails != null) {
+                station.setRoutedHome(rails.getRoutedHome(s));
+                station.setOverflowIn(rails.getOverflowIn(s));
+                station.setStolen(rails.getStolen(s));
+                station.setStolenAway(rails.getStolenAway(s));
+                station.setQueued(running ? rails.queued(s) : 0);
+            } else {
+                OrderRail rail = orders;
+                station.setQueued(running && rail != null ? rail.size() : 0);
+            }
+            totalServed += served[s];
+            totalStolen += station.getStolen();
+            perStation.add(station);
+        }
+        StationReport report = new StationReport();
+        report.setRunning(running);
+        report.setStations(stations);
+        report.setStealing(rails != null && properties.getStations().isStealing());
+        report.setSeconds(seconds);
+        report.setOrdersCompleted(totalServed);
+        report.setOrdersPerSecond(seconds > 0 ? totalServed / seconds : 0);
+        report.setStolen(totalStolen);
+        report.setPerStation(perStation);
+        return report;
+    }
+
+    /** How evenly orders are spread over all chefs of this run, and who is being starved. */
+    public FairnessReport getFairnessReport() {
+        long now = running || stoppedAtNanos == 0 ? System.nanoTime() : stoppedAtNanos;
+        FairnessReport report = stats.fairness(now, MAX_LISTED_CHEFS);
+        report.setRunning(running);
+        report.setEngine(engine);
+        report.setFairLocks(fairLocks);
+        return report;
+    }
+
+    /**
+     * Replays {@code seconds} of service in this kitchen on a virtual clock. Independent of the
+     * live simulation: it only reads the installed equipment, so it can run while chefs are cooking.
+     */
+    public SimulationReport simulate(SimulationMode mode, VictimPolicy victimPolicy, int chefs, double seconds, long seed) {
+        VirtualKitchen virtual = new VirtualKitchen(kitchen, mode, victimPolicy, chefs,
+                properties.getDetectorIntervalMillis(), seed);
+        SimulationReport report = virtual.run(seconds);
+        logger.info("Simulated {}s of {} with {} chefs in {} ms: {} orders, {} events",
+                seconds, mode, chefs, report.getWallClockMillis(), report.getOrdersCompleted(), report.getEventsProcessed());
+        return report;
+    }
+
+    public SimulationReport simulate(SimulationMode mode, double seconds, long seed) {
+        return simulate(mode, properties.getRecovery().getVictimPolicy(), properties.getChefCount(), seconds, seed);
+    }
+
+    /** The current (or, once stopped, the last) run's event journal; null if journaling was off. */
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /** Lock wait/hold times per equipment type that has been used this run. Threaded engine only. */
+    public Map<EquipmentType, LockTimes> getLockTimesByType() {
+        Map<EquipmentType, LockTimes> byType = new EnumMap<>(EquipmentType.class);
+        for (EquipmentType type : kitchen.counts().keySet()) {
+            byType.put(type, lockMetrics.forType(type));
+        }
+        return byType;
+    }
+
+    /** Lock wait/hold times of the first chefs of this run, keyed like {@code Gordon#0}. Threaded engine only. */
+    public Map<String, LockTimes> getLockTimesByChef() {
+        Map<String, LockTimes> byChef = new LinkedHashMap<>();
+        for (Chef chef : chefs) {
+            byChef.put(chef.getName() + "#" + chef.getId(), chef.getLockTimes());
+        }
+        return byChef;
+    }
+
+    private double ordersPerSecond() {
+        return perSecond(stats.getOrdersCompleted());
+    }
+
+    private double perSecond(long count) {
+        double seconds = elapsedNanos() / 1e9;
+        return seconds > 0 ? count / seconds : 0;
+    }
+
+    /** Share of total chef time spent on attempts that were aborted to break deadlocks. */
+    private double lostThroughputPercent() {
+        double chefNanos = (double) elapsedNanos() * chefCount;
+        return chefNanos > 0 ? 100.0 * stats.getNanosLostToRecovery() / chefNanos : 0;
+    }
+
+    private long elapsedNanos() {
+        if (startedAtNanos == 0) return 0;
+        long end = running ? System.nanoTime() : stoppedAtNanos;
+        return end - startedAtNanos;
     }
 
-    private boolean detectDeadlock() {
-        if (!running) return false;
-        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
-        long[] deadlockedThreads = bean.findDeadlockedThreads();
-        return deadlockedThreads != null && deadlockedThreads.length > 0;
+    private List<DeadlockCycle> detectDeadlock() {
+        if (!running) return Collections.emptyList();
+        AsyncKitchen async = asyncKitchen;
+        if (async != null) return async.latestDeadlocks();
+        WaitForGraphDetector current = detector;
+        return current == null ? Collections.<DeadlockCycle>emptyList() : current.latest();
     }
 
     @PreDestroy
     public void cleanup() {
         stop();
+        closeJournal();
     }
 }
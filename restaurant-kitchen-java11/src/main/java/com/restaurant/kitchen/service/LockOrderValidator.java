@@ -0,0 +1,260 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.model.LockOrderViolation;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentLock;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.LockListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-order validation in the style of the Linux kernel's lockdep, fed by one kitchen's own
+ * {@link EquipmentLock}s. Every time a chef takes a piece of equipment while holding others, the
+ * validator learns "held before taken". The first time a new ordering closes a cycle in that
+ * graph (STOVE before BLENDER here, BLENDER before STOVE somewhere else) it reports the cycle
+ * with the stack of every acquisition on it, whether or not anybody actually got stuck.
+ *
+ * <p>Cheap enough to leave on. Each thread keeps the ranks it holds in a small array of its own,
+ * and the orderings already known are a bit matrix: an acquisition costs one bit test per piece
+ * already held. Only an ordering never seen before takes a lock, captures a stack and searches
+ * the graph, which happens at most once per pair of pieces of equipment.
+ *
+ * <p>Timed try-locks are validated like blocking ones, so TRY_LOCK and AVOIDANCE inversions are
+ * reported too, even though timeouts or the banker keep them from turning into deadlocks.
+ */
+public class LockOrderValidator implements LockListener {
+
+    private static final Logger logger = LogManager.getLogger(LockOrderValidator.class);
+
+    private static final int MAX_VIOLATIONS = 32;
+    private static final int MAX_STACK_FRAMES = 12;
+
+    private final int locks;
+    private final int rowWords;
+    private final String[] names;
+    private final long startedAtNanos = System.nanoTime();
+    // Bit (from, to) is set once someone took equipment 'to' while holding 'from'.
+    private final AtomicLongArray known;
+    private final ThreadLocal<Held> held = ThreadLocal.withInitial(Held::new);
+
+    // Guarded by this.
+    private final Map<Integer, LockOrderViolation.Acquisition> firstSeen = new HashMap<>();
+    private final List<LockOrderViolation> violations = new ArrayList<>();
+    private final int[] cameFrom;
+    private final int[] toVisit;
+    private int orderings;
+    private volatile int violationCount;
+
+    public LockOrderValidator(EquipmentRegistry kitchen) {
+        List<Equipment> all = kitchen.all();
+        this.locks = all.size();
+        this.rowWords = (locks + 63) >>> 6;
+        this.names = new String[locks];
+        for (Equipment piece : all) {
+            names[piece.getRank()] = piece.getName();
+        }
+        this.known = new AtomicLongArray(locks * rowWords);
+        this.cameFrom = new int[locks];
+        this.toVisit = new int[locks];
+    }
+
+    @Override
+    public void waiting(EquipmentLock lock) {
+    }
+
+    @Override
+    public void acquired(EquipmentLock lock) {
+        int taken = lock.getEquipment().getRank();
+        if (taken < 0 || taken >= locks) {
+            return;
+        }
+        Held h = held.get();
+        for (int i = 0; i < h.count; i++) {
+            if (h.ranks[i] == taken) {
+                return; // re-entered
+            }
+        }
+        for (int i = 0; i < h.count; i++) {
+            int from = h.ranks[i];
+            if (!isKnown(from, taken)) {
+                learn(from, taken);
+            }
+        }
+        h.push(taken);
+    }
+
+    @Override
+    public void gaveUp(EquipmentLock lock) {
+    }
+
+    @Override
+    public void released(EquipmentLock lock) {
+        held.get().remove(lock.getEquipment().getRank());
+    }
+
+    /** Every cycle found so far, oldest first (at most {@value #MAX_VIOLATIONS}). */
+    public synchronized List<LockOrderViolation> getViolations() {
+        return new ArrayList<>(violations);
+    }
+
+    public int getViolationCount() {
+        return violationCount;
+    }
+
+    /** Distinct held-before-taken orderings seen so far. */
+    public synchronized int getOrderings() {
+        return orderings;
+    }
+
+    private boolean isKnown(int from, int to) {
+        return (known.get(from * rowWords + (to >>> 6)) & (1L << to)) != 0;
+    }
+
+    private synchronized void learn(int from, int to) {
+        if (isKnown(from, to)) {
+            return; // another chef got here first
+        }
+        // A path back from 'to' to 'from' plus this ordering is a cycle.
+        boolean cycle = findPath(to, from);
+        int word = from * rowWords + (to >>> 6);
+        known.set(word, known.get(word) | (1L << to));
+        orderings++;
+        LockOrderViolation.Acquisition here = acquisitionHere(from, to);
+        firstSeen.put(from * locks + to, here);
+        if (cycle) {
+            report(from, to, here);
+        }
+    }
+
+    /** Breadth-first from {@code start}; on success {@code cameFrom} leads back from {@code goal}. */
+    private boolean findPath(int start, int goal) {
+        Arrays.fill(cameFrom, -1);
+        cameFrom[start] = start;
+        int head = 0;
+        int tail = 0;
+        toVisit[tail++] = start;
+        while (head < tail) {
+            int at = toVisit[head++];
+            for (int w = 0; w < rowWords; w++) {
+                long next = known.get(at * rowWords + w);
+                while (next != 0) {
+                    int to = (w << 6) + Long.numberOfTrailingZeros(next);
+                    next &= next - 1;
+                    if (cameFrom[to] < 0) {
+                        cameFrom[to] = at;
+                        if (to == goal) {
+                            return true;
+                        }
+                        toVisit[tail++] = to;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void report(int from, int to, LockOrderViolation.Acquisition here) {
+        violationCount++;
+        if (violations.size() >= MAX_VIOLATIONS) {
+            return;
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int at = from; at != to; at = cameFrom[at]) {
+            path.add(0, at);
+        }
+        path.add(0, to);
+        // path runs to -> ... -> from; with the new ordering from -> to it closes the cycle.
+        List<String> equipment = new ArrayList<>();
+        List<LockOrderViolation.Acquisition> acquisitions = new ArrayList<>();
+        equipment.add(names[from]);
+        acquisitions.add(here);
+        StringBuilder earlier = new StringBuilder();
+        for (int i = 0; i < path.size() - 1; i++) {
+            int a = path.get(i);
+            int b = path.get(i + 1);
+            equipment.add(names[a]);
+            LockOrderViolation.Acquisition before = firstSeen.get(a * locks + b);
+            acquisitions.add(before);
+            if (earlier.length() > 0) {
+                earlier.append(", ");
+            }
+            earlier.append(names[a]).append(" -> ").append(names[b]).append(" (").append(before.getChef()).append(')');
+        }
+        equipment.add(names[from]);
+
+        LockOrderViolation violation = new LockOrderViolation();
+        violation.setEquipment(equipment);
+        violation.setDescription(here.getChef() + " took " + names[from] + " -> " + names[to]
+                + ", but earlier " + earlier + ": these chefs can deadlock");
+        violation.setDetectedAfterMillis((System.nanoTime() - startedAtNanos) / 1e6);
+        violation.setAcquisitions(acquisitions);
+        violations.add(violation);
+
+        StringBuilder stacks = new StringBuilder();
+        for (LockOrderViolation.Acquisition a : acquisitions) {
+            stacks.append("\n  ").append(a.getChef()).append(" took ").append(a.getTaken())
+                    .append(" holding ").append(a.getHeld()).append(" on ").append(a.getThread());
+            for (String frame : a.getStack()) {
+                stacks.append("\n      at ").append(frame);
+            }
+        }
+        logger.warn("Lock order inversion: {}{}", violation.getDescription(), stacks);
+    }
+
+    private LockOrderViolation.Acquisition acquisitionHere(int from, int to) {
+        LockOrderViolation.Acquisition acquisition = new LockOrderViolation.Acquisition();
+        acquisition.setHeld(names[from]);
+        acquisition.setTaken(names[to]);
+        Chef chef = Chef.current();
+        acquisition.setChef(chef == null ? "?" : chef.getName() + "#" + chef.getId());
+        acquisition.setThread(Thread.currentThread().getName());
+        List<String> stack = new ArrayList<>();
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            String owner = frame.getClassName();
+            if (stack.isEmpty() && (owner.startsWith(LockOrderValidator.class.getName())
+                    || owner.startsWith(LockListener.class.getName())
+                    || owner.equals(EquipmentLock.class.getName())
+                    || owner.startsWith("java.util.concurrent.locks."))) {
+                continue; // the lock machinery, not the caller
+            }
+            stack.add(frame.toString());
+            if (stack.size() == MAX_STACK_FRAMES) {
+                break;
+            }
+        }
+        acquisition.setStack(stack);
+        return acquisition;
+    }
+
+    /** The ranks one thread holds, in acquisition order. */
+    private static final class Held {
+        int[] ranks = new int[8];
+        int count;
+
+        void push(int rank) {
+            if (count == ranks.length) {
+                ranks = Arrays.copyOf(ranks, count * 2);
+            }
+            ranks[count++] = rank;
+        }
+
+        void remove(int rank) {
+            for (int i = count - 1; i >= 0; i--) {
+                if (ranks[i] == rank) {
+                    System.arraycopy(ranks, i + 1, ranks, i, count - i - 1);
+                    count--;
+                    return;
+                }
+            }
+        }
+    }
+}
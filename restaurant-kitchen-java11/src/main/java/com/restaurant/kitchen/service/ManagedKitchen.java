@@ -0,0 +1,122 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.async.AsyncKitchen;
+import com.restaurant.kitchen.async.FairScheduler;
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.KitchenEngine;
+import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One named kitchen hosted by the {@link KitchenManager}: its own equipment, chefs and counters,
+ * cooking on its own lane of the shared {@link FairScheduler}. Chefs are {@link AsyncKitchen}
+ * state machines, so an idle or stopped kitchen costs no threads at all.
+ */
+public class ManagedKitchen {
+    // Enough to recognise the chefs without shipping hundreds of names per kitchen.
+    private static final int MAX_LISTED_CHEFS = 16;
+
+    private final String id;
+    private final EquipmentRegistry registry;
+    private final int chefCount;
+    private final FairScheduler.Lane lane;
+
+    // A fresh set per run: steps of a stopped run that are still in flight count into the old one.
+    private volatile KitchenStats stats = new KitchenStats();
+    private volatile AsyncKitchen kitchen;
+    private volatile SimulationMode mode;
+    private volatile long startedAtNanos;
+    private volatile long stoppedAtNanos;
+
+    ManagedKitchen(String id, EquipmentRegistry registry, int chefCount, FairScheduler.Lane lane) {
+        this.id = id;
+        this.registry = registry;
+        this.chefCount = chefCount;
+        this.lane = lane;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Map<?, Integer> getEquipment() {
+        return registry.counts();
+    }
+
+    public long getTasksRun() {
+        return lane.getTasksRun();
+    }
+
+    /** @throws IllegalStateException if already cooking; IllegalArgumentException for WAITER and RECOVERY */
+    public synchronized void start(SimulationMode mode) {
+        if (isRunning()) {
+            throw new IllegalStateException("Kitchen '" + id + "' is already cooking in " + this.mode + " mode");
+        }
+        KitchenStats runStats = new KitchenStats(); // before the chefs are hired: each one registers its own counter
+        AsyncKitchen next = new AsyncKitchen(registry, mode, chefCount, lane, runStats);
+        this.stats = runStats;
+        this.mode = mode;
+        this.kitchen = next;
+        startedAtNanos = System.nanoTime();
+        next.start();
+    }
+
+    /** Returns false if the kitchen was not cooking. */
+    public synchronized boolean stop() {
+        AsyncKitchen current = kitchen;
+        if (current == null || !current.isRunning()) {
+            return false;
+        }
+        current.stop();
+        stoppedAtNanos = System.nanoTime();
+        return true;
+    }
+
+    public boolean isRunning() {
+        AsyncKitchen current = kitchen;
+        return current != null && current.isRunning();
+    }
+
+    public KitchenStatus getStatus() {
+        AsyncKitchen current = kitchen;
+        KitchenStats stats = this.stats;
+        boolean running = current != null && current.isRunning();
+        List<DeadlockCycle> deadlocks = running ? current.latestDeadlocks() : Collections.<DeadlockCycle>emptyList();
+        String message;
+        if (current == null) {
+            message = "Kitchen '" + id + "' is ready. Start it to begin cooking!";
+        } else if (!running) {
+            message = "Kitchen '" + id + "' is closed after serving " + stats.getOrdersCompleted() + " orders.";
+        } else if (!deadlocks.isEmpty()) {
+            message = "DEADLOCK DETECTED! " + deadlocks.get(0).getDescription();
+        } else {
+            message = "Kitchen '" + id + "' is cooking. " + stats.getOrdersCompleted() + " orders served so far.";
+        }
+        KitchenStatus status = new KitchenStatus(running, !deadlocks.isEmpty(), stats.getOrdersCompleted(), chefCount,
+                mode, message, current == null ? Collections.<String>emptyList() : current.chefNames(MAX_LISTED_CHEFS));
+        double seconds = elapsedNanos(running) / 1e9;
+        status.setOrdersPerSecond(seconds > 0 ? stats.getOrdersCompleted() / seconds : 0);
+        status.setMeanWaitMillis(stats.getWaitTimes().meanNanos() / 1e6);
+        status.setP99WaitMillis(stats.getWaitTimes().valueAtPercentile(99) / 1e6);
+        status.setDeadlockCycles(deadlocks);
+        status.setEngine(KitchenEngine.ASYNC);
+        return status;
+    }
+
+    /** Stops cooking and gives the lane back; the kitchen cannot be started again. */
+    synchronized void close() {
+        stop();
+        lane.shutdownNow();
+    }
+
+    private long elapsedNanos(boolean running) {
+        if (startedAtNanos == 0) return 0;
+        return (running ? System.nanoTime() : stoppedAtNanos) - startedAtNanos;
+    }
+}
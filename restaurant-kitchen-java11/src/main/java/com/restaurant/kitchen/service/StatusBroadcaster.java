@@ -0,0 +1,232 @@
+package com.restaurant.kitchen.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.KitchenStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes the kitchen's status to any number of viewers. Once per tick it takes one snapshot,
+ * works out what changed since the last tick, serializes that once and sends the same text to
+ * every subscriber, so a hundred dashboards cost what one does.
+ *
+ * <p>A new subscriber first gets a {@code snapshot} event with everything, then a {@code delta}
+ * event whenever something changed: only the changed fields, and under {@code chefs} only the
+ * chefs whose state changed. Deadlocks appearing or clearing also get their own {@code deadlock}
+ * event. Polls of {@link #latestStatus()} share the same per-tick snapshot.
+ */
+@Service
+public class StatusBroadcaster {
+
+    private static final Logger logger = LogManager.getLogger(StatusBroadcaster.class);
+
+    private final KitchenSimulator simulator;
+    private final ObjectMapper json;
+    private final long tickNanos;
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService ticker;
+
+    private final Object statusLock = new Object();
+    private volatile KitchenStatus latest;
+    private volatile long latestAtNanos;
+
+    // Guarded by this: what subscribers have been told so far.
+    private Map<String, Object> published = Collections.emptyMap();
+    private String publishedJson;
+    private long tick;
+
+    public StatusBroadcaster(KitchenSimulator simulator, KitchenProperties properties, ObjectMapper json) {
+        this.simulator = simulator;
+        this.json = json;
+        long tickMillis = Math.max(1, properties.getStream().getTickMillis());
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "status-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The kitchen status, at most one tick old. However many callers poll, the kitchen is asked
+     * at most once per tick (and again right after it is started or stopped).
+     */
+    public KitchenStatus latestStatus() {
+        KitchenStatus status = latest;
+        if (status != null && status.isRunning() == simulator.isRunning()
+                && System.nanoTime() - latestAtNanos < tickNanos) {
+            return status;
+        }
+        synchronized (statusLock) {
+            status = latest;
+            if (status == null || status.isRunning() != simulator.isRunning()
+                    || System.nanoTime() - latestAtNanos >= tickNanos) {
+                status = simulator.getStatus();
+                latest = status;
+                latestAtNanos = System.nanoTime();
+            }
+            return status;
+        }
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        synchronized (this) {
+            if (publishedJson == null) {
+                if (subscribers.isEmpty()) {
+                    published = snapshot(); // nobody has been kept up to date since the last viewer left
+                }
+                publishedJson = toJson(published);
+            }
+            try {
+                emitter.send(event("snapshot", publishedJson));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+            subscribers.add(emitter);
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private synchronized void tick() {
+        try {
+            if (subscribers.isEmpty()) {
+                publishedJson = null; // a later subscriber starts from a fresh snapshot
+                return;
+            }
+            KitchenStatus status = latestStatus();
+            Map<String, Object> current = snapshot(status);
+            Map<String, Object> delta = diff(published, current);
+            if (delta.isEmpty()) {
+                return;
+            }
+            tick++;
+            if (delta.containsKey("deadlocked")) {
+                Map<String, Object> transition = new LinkedHashMap<>();
+                transition.put("deadlocked", current.get("deadlocked"));
+                transition.put("deadlockCycles", status.getDeadlockCycles()); // the same read as the flag
+                broadcast("deadlock", toJson(transition));
+            }
+            broadcast("delta", toJson(delta));
+            published = current;
+            publishedJson = null;
+        } catch (RuntimeException e) {
+            // Keep ticking: a scheduled task that throws is never run again.
+            logger.warn("Could not publish the kitchen status", e);
+        }
+    }
+
+    /** One status read, flattened to the fields a dashboard shows. */
+    private Map<String, Object> snapshot() {
+        return snapshot(latestStatus());
+    }
+
+    private Map<String, Object> snapshot(KitchenStatus status) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("running", status.isRunning());
+        fields.put("mode", status.getMode());
+        fields.put("engine", status.getEngine());
+        fields.put("deadlocked", status.isDeadlocked());
+        fields.put("ordersCompleted", status.getOrdersCompleted());
+        fields.put("ordersPerSecond", round(status.getOrdersPerSecond()));
+        fields.put("meanWaitMillis", round(status.getMeanWaitMillis()));
+        fields.put("p99WaitMillis", round(status.getP99WaitMillis()));
+        fields.put("recoveries", status.getRecoveries());
+        fields.put("ordersQueued", status.getOrdersQueued());
+        fields.put("chefs", simulator.getChefStates());
+        return fields;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> diff(Map<String, Object> before, Map<String, Object> after) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> field : after.entrySet()) {
+            Object old = before.get(field.getKey());
+            if (field.getValue() instanceof Map && old instanceof Map) {
+                Map<String, ChefState> chefs = (Map<String, ChefState>) field.getValue();
+                Map<String, ChefState> oldChefs = (Map<String, ChefState>) old;
+                Map<String, Object> changedChefs = new LinkedHashMap<>();
+                for (Map.Entry<String, ChefState> chef : chefs.entrySet()) {
+                    if (oldChefs.get(chef.getKey()) != chef.getValue()) {
+                        changedChefs.put(chef.getKey(), chef.getValue());
+                    }
+                }
+                for (String gone : oldChefs.keySet()) {
+                    if (!chefs.containsKey(gone)) {
+                        changedChefs.put(gone, null);
+                    }
+                }
+                if (!changedChefs.isEmpty()) {
+                    changed.put(field.getKey(), changedChefs);
+                }
+            } else if (!Objects.equals(old, field.getValue())) {
+                changed.put(field.getKey(), field.getValue());
+            }
+        }
+        return changed;
+    }
+
+    private void broadcast(String name, String data) {
+        for (SseEmitter subscriber : subscribers) {
+            try {
+                subscriber.send(event(name, data));
+            } catch (IOException | IllegalStateException e) {
+                // The viewer went away; Spring calls onError/onCompletion as well.
+                subscribers.remove(subscriber);
+                subscriber.completeWithError(e);
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder event(String name, String data) {
+        return SseEmitter.event().id(Long.toString(tick)).name(name).data(data, MediaType.APPLICATION_JSON);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return json.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the kitchen status", e);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        for (SseEmitter subscriber : subscribers) {
+            subscriber.complete();
+        }
+        subscribers.clear();
+    }
+}
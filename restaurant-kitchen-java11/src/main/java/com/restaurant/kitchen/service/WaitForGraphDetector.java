@@ -0,0 +1,272 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.EquipmentLock;
+import com.restaurant.kitchen.resources.LockListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deadlock detection for one kitchen, fed by its own {@link EquipmentLock}s.
+ *
+ * <p>Each waiting chef has exactly one outgoing wait-for edge (to the owner of the lock it wants),
+ * so the graph is a set of chains and a cycle is found by following one chain. Every thread that
+ * has ever waited gets one slot, made at its first wait; after that the lock callbacks only store
+ * the edge and a dirty flag in the slot, so waiting allocates nothing. A background sweep reads
+ * one flag per thread and walks only the chains of dirty waiters and of previously seen cycles.
+ *
+ * <p>Owners are read without stopping anybody, so a sweep can glimpse a cycle that is already
+ * dissolving. A cycle is only published once two consecutive sweeps agree on it; a real deadlock
+ * never goes away on its own. {@link #latest()} is a volatile read of the published result.
+ *
+ * <p>The {@link CycleHandler} hears about each cycle once, not once per sweep. A cycle is told
+ * apart by its members' waits, not just by its members: chefs that deadlock again on a retry form
+ * a new cycle, even if the old one never looked clear to a sweep in between.
+ */
+public class WaitForGraphDetector implements LockListener {
+
+    private static final Logger logger = LogManager.getLogger(WaitForGraphDetector.class);
+
+    private final long intervalMillis;
+    private final ThreadLocal<Slot> mySlot = new ThreadLocal<>();
+    private final Map<Thread, Slot> slots = new ConcurrentHashMap<>();
+    // Numbers each wait, so a cycle re-formed by the same chefs is a different cycle.
+    private final AtomicLong waits = new AtomicLong();
+
+    private Map<Set<Thread>, List<Thread>> candidates = Collections.emptyMap();
+    private volatile List<DeadlockCycle> published = Collections.emptyList();
+    // Sweeper only: the waits of confirmed cycles already given to the handler.
+    private Set<Set<Long>> handled = Collections.emptySet();
+    private volatile Thread sweeper;
+    private volatile CycleHandler cycleHandler;
+
+    /** Told about every confirmed cycle once, from the detector thread. */
+    public interface CycleHandler {
+        void onDeadlock(List<Chef> cycle);
+    }
+
+    public WaitForGraphDetector(long intervalMillis) {
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::sweepUntilStopped, "deadlock-detector");
+        thread.setDaemon(true);
+        sweeper = thread;
+        thread.start();
+    }
+
+    public void stop() {
+        Thread thread = sweeper;
+        sweeper = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public void setCycleHandler(CycleHandler cycleHandler) {
+        this.cycleHandler = cycleHandler;
+    }
+
+    /** The cycles confirmed by the last sweep; empty when the kitchen is not deadlocked. */
+    public List<DeadlockCycle> latest() {
+        return published;
+    }
+
+    @Override
+    public void waiting(EquipmentLock lock) {
+        Slot slot = mySlot.get();
+        if (slot == null) {
+            Thread current = Thread.currentThread();
+            slot = new Slot(current);
+            mySlot.set(slot);
+            slots.put(current, slot);
+        }
+        if (slot.chef == null) {
+            slot.chef = Chef.current();
+        }
+        slot.waitNumber = waits.incrementAndGet();
+        slot.waitingFor = lock;
+        slot.dirty = true;
+    }
+
+    @Override
+    public void acquired(EquipmentLock lock) {
+        stopWaiting();
+    }
+
+    @Override
+    public void gaveUp(EquipmentLock lock) {
+        stopWaiting();
+    }
+
+    private void stopWaiting() {
+        Slot slot = mySlot.get();
+        if (slot != null) {
+            slot.waitingFor = null;
+        }
+    }
+
+    @Override
+    public void released(EquipmentLock lock) {
+        // Releasing can only remove edges, and any cycle it breaks is re-checked every sweep.
+    }
+
+    private void sweepUntilStopped() {
+        while (sweeper == Thread.currentThread()) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            sweep();
+        }
+    }
+
+    void sweep() {
+        Set<Thread> toCheck = new HashSet<>();
+        for (List<Thread> cycle : candidates.values()) {
+            toCheck.addAll(cycle);
+        }
+        for (Slot slot : slots.values()) {
+            if (slot.dirty) {
+                slot.dirty = false;
+                toCheck.add(slot.thread);
+            }
+        }
+
+        Map<Set<Thread>, List<Thread>> found = new LinkedHashMap<>();
+        for (Thread thread : toCheck) {
+            List<Thread> cycle = cycleThrough(thread);
+            if (cycle != null) {
+                found.putIfAbsent(new HashSet<>(cycle), cycle);
+            }
+        }
+
+        List<DeadlockCycle> confirmed = new ArrayList<>();
+        List<List<Thread>> confirmedThreads = new ArrayList<>();
+        for (Map.Entry<Set<Thread>, List<Thread>> entry : found.entrySet()) {
+            if (candidates.containsKey(entry.getKey())) {
+                confirmed.add(describe(entry.getValue()));
+                confirmedThreads.add(entry.getValue());
+            }
+        }
+        candidates = found;
+        if (confirmed.isEmpty() != published.isEmpty()) {
+            if (confirmed.isEmpty()) {
+                logger.info("Deadlock cleared.");
+            } else {
+                logger.warn("DEADLOCK DETECTED: {}", confirmed.get(0).getDescription());
+            }
+        }
+        published = Collections.unmodifiableList(confirmed);
+
+        CycleHandler handler = cycleHandler;
+        Set<Set<Long>> stillHandled = new HashSet<>();
+        for (List<Thread> cycle : confirmedThreads) {
+            Set<Long> key = waitsOf(cycle);
+            stillHandled.add(key);
+            if (handler != null && !handled.contains(key)) {
+                List<Chef> members = chefsOf(cycle);
+                if (members != null) {
+                    handler.onDeadlock(members);
+                }
+            }
+        }
+        handled = stillHandled;
+    }
+
+    private Set<Long> waitsOf(List<Thread> cycle) {
+        Set<Long> key = new HashSet<>();
+        for (Thread thread : cycle) {
+            key.add(slots.get(thread).waitNumber);
+        }
+        return key;
+    }
+
+    private List<Chef> chefsOf(List<Thread> cycle) {
+        List<Chef> members = new ArrayList<>(cycle.size());
+        for (Thread thread : cycle) {
+            Chef chef = slots.get(thread).chef;
+            if (chef == null) {
+                return null;
+            }
+            members.add(chef);
+        }
+        return members;
+    }
+
+    /** Follows wait-for edges from {@code start}; returns the cycle if they lead back to it. */
+    private List<Thread> cycleThrough(Thread start) {
+        List<Thread> path = new ArrayList<>();
+        Thread current = start;
+        while (path.size() <= slots.size()) {
+            EquipmentLock lock = waitingFor(current);
+            Thread owner = lock == null ? null : lock.owner();
+            if (owner == null) {
+                return null;
+            }
+            path.add(current);
+            if (owner == start) {
+                return path;
+            }
+            current = owner;
+        }
+        return null; // queued behind a cycle it is not part of
+    }
+
+    private DeadlockCycle describe(List<Thread> cycle) {
+        List<String> chefs = new ArrayList<>();
+        List<String> equipment = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < cycle.size(); i++) {
+            Thread thread = cycle.get(i);
+            Thread holder = cycle.get((i + 1) % cycle.size());
+            EquipmentLock lock = waitingFor(thread);
+            String wanted = lock == null ? "?" : lock.toString();
+            chefs.add(nameOf(thread));
+            equipment.add(wanted);
+            if (i > 0) {
+                description.append("; ");
+            }
+            description.append(nameOf(thread)).append(" waits for ").append(wanted)
+                    .append(" held by ").append(nameOf(holder));
+        }
+        return new DeadlockCycle(chefs, equipment, description.toString());
+    }
+
+    private EquipmentLock waitingFor(Thread thread) {
+        Slot slot = slots.get(thread);
+        return slot == null ? null : slot.waitingFor;
+    }
+
+    private String nameOf(Thread thread) {
+        Slot slot = slots.get(thread);
+        Chef chef = slot == null ? null : slot.chef;
+        return chef != null ? chef.getName() : thread.getName();
+    }
+
+    /** One thread's wait-for edge, written only by that thread and read by the sweep. */
+    private static final class Slot {
+        final Thread thread;
+        volatile Chef chef;
+        volatile EquipmentLock waitingFor;
+        volatile long waitNumber;
+        volatile boolean dirty;
+
+        Slot(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
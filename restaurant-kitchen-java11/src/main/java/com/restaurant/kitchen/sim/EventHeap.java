@@ -0,0 +1,91 @@
+package com.restaurant.kitchen.sim;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of pending events on parallel primitive arrays, ordered by virtual time and
+ * then by scheduling order, so simultaneous events run first-scheduled-first and a run is fully
+ * determined by its seed. Only growing the arrays allocates.
+ */
+final class EventHeap {
+    private long[] times = new long[64];
+    private long[] sequences = new long[64];
+    private long[] payloads = new long[64];
+    private int size;
+    private long nextSequence;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void push(long time, long payload) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            sequences = Arrays.copyOf(sequences, size * 2);
+            payloads = Arrays.copyOf(payloads, size * 2);
+        }
+        long sequence = nextSequence++;
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(time, sequence, times[parent], sequences[parent])) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, time, sequence, payload);
+    }
+
+    long peekTime() {
+        return times[0];
+    }
+
+    long peekPayload() {
+        return payloads[0];
+    }
+
+    void pop() {
+        int last = --size;
+        long time = times[last];
+        long sequence = sequences[last];
+        long payload = payloads[last];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && before(times[right], sequences[right], times[child], sequences[child])) {
+                child = right;
+            }
+            if (!before(times[child], sequences[child], time, sequence)) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        if (size > 0) {
+            set(i, time, sequence, payload);
+        }
+    }
+
+    private static boolean before(long time, long sequence, long otherTime, long otherSequence) {
+        return time < otherTime || (time == otherTime && sequence < otherSequence);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        sequences[to] = sequences[from];
+        payloads[to] = payloads[from];
+    }
+
+    private void set(int i, long time, long sequence, long payload) {
+        times[i] = time;
+        sequences[i] = sequence;
+        payloads[i] = payload;
+    }
+}
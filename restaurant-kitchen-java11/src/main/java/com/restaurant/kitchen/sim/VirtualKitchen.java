@@ -0,0 +1,615 @@
+package com.restaurant.kitchen.sim;
+
+import com.restaurant.kitchen.metrics.LatencyHistogram;
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.restaurant.kitchen.strategy.LockStrategies.INITIAL_BACKOFF_MICROS;
+import static com.restaurant.kitchen.strategy.LockStrategies.MAX_BACKOFF_MICROS;
+import static com.restaurant.kitchen.strategy.LockStrategies.TRY_LOCK_TIMEOUT_MILLIS;
+
+/**
+ * The kitchen replayed as a discrete-event simulation on a virtual clock: no threads, no
+ * sleeping, just a heap of pending events. Cooking for 50 ms is one event 50 ms of virtual time
+ * later, so an hour of service runs in a fraction of a second and the same seed always produces
+ * the same run.
+ *
+ * <p>Chefs follow the same rules as {@link Chef} on the real kitchen: a random dish from the
+ * menu, one unit per equipment type picked like {@link com.restaurant.kitchen.resources.EquipmentPool#pick}
+ * (last unit if idle, else an idle one, else the shortest queue), odd chefs working recipes back
+ * to front, and the lock protocol of the {@link SimulationMode}:
+ * <ul>
+ *   <li>DEADLOCK: preferred order, FIFO lock queues; the first wait cycle is reported and its
+ *       chefs stay stuck for the rest of the run.</li>
+ *   <li>SAFE: locks sorted by rank.</li>
+ *   <li>TRY_LOCK: give up after {@link com.restaurant.kitchen.strategy.LockStrategies#TRY_LOCK_TIMEOUT_MILLIS},
+ *       put everything back and retry after a random, doubling backoff.</li>
+ *   <li>WAITER: at most N - 1 chefs admitted, equipment handed over all at once.</li>
+ *   <li>COARSE: a kitchen-wide lock before the equipment.</li>
+ *   <li>RECOVERY: DEADLOCK habits; one to two detector intervals after a cycle forms (the real
+ *       detector's two-sighting confirmation) a victim chosen by the {@link VictimPolicy} is
+ *       aborted and retries after {@link Chef}'s recovery backoff.</li>
+ * </ul>
+ * AVOIDANCE and PRIORITY are not modelled: the banker and the grant queues only exist on the
+ * THREADS engine, and virtual chefs make up their own orders, which have no priorities.
+ * Every chef works on its own orders (no shared order queue), one portion at a time.
+ *
+ * <p>A kitchen is single-use and not thread-safe: build one, {@link #run} it once.
+ */
+public class VirtualKitchen {
+
+    private static final int START_ORDER = 0;
+    private static final int COOKED = 1;
+    private static final int GIVE_UP = 2;
+    private static final int RETRY = 3;
+    private static final int BREAK_DEADLOCK = 4;
+
+    private static final int NOBODY = -1;
+    private static final long TAG_MASK = (1L << 29) - 1;
+    // Thread.sleep(0) still costs about a microsecond, and a zero-length cook would stall the clock.
+    private static final long MIN_USE_NANOS = 1_000;
+    private static final int MAX_REPORTED_CYCLES = 10;
+
+    private final SimulationMode mode;
+    private final VictimPolicy victimPolicy;
+    private final int chefCount;
+    private final long detectorIntervalNanos;
+    private final long seed;
+    private final SplittableRandom random;
+    private final List<Dish> menu;
+    private final EventHeap events = new EventHeap();
+    private final LatencyHistogram waits = new LatencyHistogram();
+
+    // Locks by rank; in COARSE mode the kitchen-wide lock comes last.
+    private final String[] lockNames;
+    private final long[] useNanos;
+    private final int[] owner;
+    private final int[] queueHead;
+    private final int[] queueTail;
+    private final int[] queueLength;
+    private final int[][] ranksByType;
+    private final int kitchenLock;
+
+    // Chefs by id. A chef waits in at most one lock queue, so the queues are intrusive lists.
+    private final Dish[] dish;
+    private final int[][] plan;
+    private final int[] planned;
+    private final int[] held;
+    private final int[] waitingFor;
+    private final int[] generation;
+    private final int[] nextInQueue;
+    private final int[] prevInQueue;
+    private final int[][] lastUsed;
+    private final long[] orderStarted;
+    private final long[] attemptStarted;
+    private final long[] waitStarted;
+    private final long[] backoffWindow;
+
+    // WAITER mode.
+    private final int permits;
+    private int admitted;
+    private final IntList asking = new IntList();
+    private final IntList awaitingAdmission = new IntList();
+
+    private long now;
+    private long ordersCompleted;
+    private long recoveries;
+    private long nanosLostToRecovery;
+    private long eventsProcessed;
+    private long deadlockedAt = -1;
+    private final List<DeadlockCycle> cycles = new ArrayList<>();
+    private boolean ran;
+
+    public VirtualKitchen(EquipmentRegistry kitchen, SimulationMode mode, VictimPolicy victimPolicy,
+                          int chefCount, long detectorIntervalMillis, long seed) {
+        if (chefCount < 1) {
+            throw new IllegalArgumentException("A kitchen needs at least one chef, got " + chefCount);
+        }
+        if (mode == SimulationMode.AVOIDANCE || mode == SimulationMode.PRIORITY) {
+            throw new IllegalArgumentException(mode + " mode needs the THREADS engine");
+        }
+        this.menu = Chef.menuFor(kitchen);
+        if (menu.isEmpty()) {
+            throw new IllegalStateException("Nothing on the menu can be cooked with " + kitchen.counts());
+        }
+        this.mode = mode;
+        this.victimPolicy = victimPolicy;
+        this.chefCount = chefCount;
+        this.detectorIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, detectorIntervalMillis));
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+
+        List<Equipment> all = kitchen.all();
+        int locks = all.size() + (mode == SimulationMode.COARSE ? 1 : 0);
+        this.kitchenLock = mode == SimulationMode.COARSE ? all.size() : NOBODY;
+        this.lockNames = new String[locks];
+        this.useNanos = new long[locks];
+        for (Equipment piece : all) {
+            lockNames[piece.getRank()] = piece.getName();
+            useNanos[piece.getRank()] = Math.max(MIN_USE_NANOS, TimeUnit.MILLISECONDS.toNanos(piece.getUseMillis()));
+        }
+        if (kitchenLock != NOBODY) {
+            lockNames[kitchenLock] = "KITCHEN";
+        }
+        this.owner = filled(locks, NOBODY);
+        this.queueHead = filled(locks, NOBODY);
+        this.queueTail = filled(locks, NOBODY);
+        this.queueLength = new int[locks];
+        this.ranksByType = new int[EquipmentType.values().length][];
+        for (EquipmentType type : EquipmentType.values()) {
+            Equipment[] units = kitchen.unitsOf(type);
+            ranksByType[type.ordinal()] = new int[units.length];
+            for (int i = 0; i < units.length; i++) {
+                ranksByType[type.ordinal()][i] = units[i].getRank();
+            }
+        }
+
+        int planLength = Chef.maxEquipmentPerDish(menu) + (kitchenLock != NOBODY ? 1 : 0);
+        this.dish = new Dish[chefCount];
+        this.plan = new int[chefCount][planLength];
+        this.planned = new int[chefCount];
+        this.held = new int[chefCount];
+        this.waitingFor = filled(chefCount, NOBODY);
+        this.generation = new int[chefCount];
+        this.nextInQueue = filled(chefCount, NOBODY);
+        this.prevInQueue = filled(chefCount, NOBODY);
+        this.lastUsed = new int[chefCount][];
+        for (int c = 0; c < chefCount; c++) {
+            lastUsed[c] = filled(EquipmentType.values().length, NOBODY);
+        }
+        this.orderStarted = new long[chefCount];
+        this.attemptStarted = new long[chefCount];
+        this.waitStarted = new long[chefCount];
+        this.backoffWindow = new long[chefCount];
+        this.permits = Math.max(1, chefCount - 1);
+    }
+
+    /** Runs {@code seconds} of virtual service and reports what happened. */
+    public SimulationReport run(double seconds) {
+        if (ran) {
+            throw new IllegalStateException("A virtual kitchen can only be run once");
+        }
+        ran = true;
+        long horizon = (long) (seconds * 1e9);
+        long wallStart = System.nanoTime();
+        for (int c = 0; c < chefCount; c++) {
+            schedule(0, c, START_ORDER);
+        }
+        while (!events.isEmpty() && events.peekTime() <= horizon) {
+            now = events.peekTime();
+            long payload = events.peekPayload();
+            events.pop();
+            eventsProcessed++;
+            int chef = (int) (payload >>> 32);
+            int action = (int) (payload >>> 29) & 0x7;
+            if ((generation[chef] & TAG_MASK) != (payload & TAG_MASK)) {
+                continue; // a timeout or deadlock check that events have overtaken
+            }
+            handle(chef, action);
+        }
+        return report(horizon, System.nanoTime() - wallStart);
+    }
+
+    private void handle(int chef, int action) {
+        switch (action) {
+            case START_ORDER:
+                newOrder(chef);
+                break;
+            case COOKED:
+                ordersCompleted++;
+                if (mode == SimulationMode.WAITER) {
+                    handBackToWaiter(chef);
+                } else {
+                    releaseAll(chef);
+                }
+                newOrder(chef);
+                break;
+            case GIVE_UP:
+                backOff(chef, MAX_BACKOFF_MICROS);
+                break;
+            case RETRY:
+                if (mode == SimulationMode.RECOVERY) {
+                    // Chef.cook starts over: fresh units, fresh wait clock.
+                    attemptStarted[chef] = now;
+                    waitStarted[chef] = now;
+                    planOrder(chef);
+                }
+                proceed(chef);
+                break;
+            case BREAK_DEADLOCK:
+                breakDeadlock(chef);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event " + action);
+        }
+    }
+
+    private void newOrder(int c) {
+        dish[c] = menu.get(random.nextInt(menu.size()));
+        orderStarted[c] = now;
+        attemptStarted[c] = now;
+        waitStarted[c] = now;
+        backoffWindow[c] = mode == SimulationMode.TRY_LOCK ? INITIAL_BACKOFF_MICROS : Chef.INITIAL_RETRY_BACKOFF_MICROS;
+        planOrder(c);
+        proceed(c);
+    }
+
+    /** Picks units for the chef's dish and the order to lock them in, like Chef.gatherEquipment plus the strategy. */
+    private void planOrder(int c) {
+        Dish d = dish[c];
+        int[] steps = plan[c];
+        int offset = kitchenLock != NOBODY ? 1 : 0;
+        if (offset == 1) {
+            steps[0] = kitchenLock;
+        }
+        int count = d.getEquipmentCount();
+        for (int i = 0; i < count; i++) {
+            int slot = c % 2 == 0 ? i : count - 1 - i;
+            steps[offset + slot] = pick(c, d.getEquipment(i));
+        }
+        planned[c] = offset + count;
+        if (mode == SimulationMode.SAFE) {
+            Arrays.sort(steps, 0, planned[c]);
+        }
+    }
+
+    private int pick(int c, EquipmentType type) {
+        int[] units = ranksByType[type.ordinal()];
+        int preferred = lastUsed[c][type.ordinal()];
+        int chosen;
+        if (units.length == 1) {
+            chosen = units[0];
+        } else if (preferred != NOBODY && isIdle(preferred)) {
+            chosen = preferred;
+        } else {
+            chosen = preferred;
+            int shortest = preferred == NOBODY ? Integer.MAX_VALUE : queueLength[preferred];
+            int start = random.nextInt(units.length);
+            for (int i = 0; i < units.length; i++) {
+                int unit = units[(start + i) % units.length];
+                if (isIdle(unit)) {
+                    chosen = unit;
+                    break;
+                }
+                if (queueLength[unit] < shortest) {
+                    chosen = unit;
+                    shortest = queueLength[unit];
+                }
+            }
+        }
+        lastUsed[c][type.ordinal()] = chosen;
+        return chosen;
+    }
+
+    private boolean isIdle(int lock) {
+        return owner[lock] == NOBODY && queueLength[lock] == 0;
+    }
+
+    private void proceed(int c) {
+        if (mode == SimulationMode.WAITER) {
+            askWaiter(c);
+        } else {
+            acquireNext(c);
+        }
+    }
+
+    private void acquireNext(int c) {
+        int[] steps = plan[c];
+        while (held[c] < planned[c]) {
+            int lock = steps[held[c]];
+            if (owner[lock] != NOBODY) {
+                block(c, lock);
+                return;
+            }
+            owner[lock] = c;
+            held[c]++;
+        }
+        startCooking(c);
+    }
+
+    private void block(int c, int lock) {
+        enqueue(lock, c);
+        waitingFor[c] = lock;
+        switch (mode) {
+            case TRY_LOCK:
+                schedule(now + TimeUnit.MILLISECONDS.toNanos(TRY_LOCK_TIMEOUT_MILLIS), c, GIVE_UP);
+                break;
+            case DEADLOCK:
+                if (closesCycle(c)) {
+                    if (deadlockedAt < 0) {
+                        deadlockedAt = now;
+                    }
+                    if (cycles.size() < MAX_REPORTED_CYCLES) {
+                        cycles.add(describeCycle(c));
+                    }
+                }
+                break;
+            case RECOVERY:
+                if (closesCycle(c)) {
+                    schedule(now + detectorIntervalNanos + random.nextLong(detectorIntervalNanos), c, BREAK_DEADLOCK);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startCooking(int c) {
+        waitingFor[c] = NOBODY;
+        waits.record(now - waitStarted[c]);
+        long cookNanos = 0;
+        for (int i = 0; i < planned[c]; i++) {
+            int lock = plan[c][i];
+            if (lock != kitchenLock) {
+                cookNanos += useNanos[lock];
+            }
+        }
+        schedule(now + cookNanos, c, COOKED);
+    }
+
+    private void releaseAll(int c) {
+        int count = held[c];
+        held[c] = 0;
+        for (int i = 0; i < count; i++) {
+            release(plan[c][i]);
+        }
+    }
+
+    /** Hands the lock straight to the longest waiter, who carries on with its plan. */
+    private void release(int lock) {
+        int next = dequeue(lock);
+        owner[lock] = next;
+        if (next != NOBODY) {
+            waitingFor[next] = NOBODY;
+            generation[next]++;
+            held[next]++;
+            acquireNext(next);
+        }
+    }
+
+    /** TRY_LOCK timeout or RECOVERY abort: drop out of the queue, put everything back, retry later. */
+    private void backOff(int c, long maxWindowMicros) {
+        unqueue(waitingFor[c], c);
+        waitingFor[c] = NOBODY;
+        generation[c]++;
+        releaseAll(c);
+        long pauseNanos = TimeUnit.MICROSECONDS.toNanos(1 + random.nextLong(backoffWindow[c]));
+        backoffWindow[c] = Math.min(backoffWindow[c] * 2, maxWindowMicros);
+        if (mode == SimulationMode.RECOVERY) {
+            recoveries++;
+            nanosLostToRecovery += now - attemptStarted[c] + pauseNanos;
+        }
+        schedule(now + pauseNanos, c, RETRY);
+    }
+
+    private boolean closesCycle(int c) {
+        int x = owner[waitingFor[c]];
+        for (int steps = 0; x != NOBODY && steps < chefCount; steps++) {
+            if (x == c) {
+                return true;
+            }
+            int lock = waitingFor[x];
+            if (lock == NOBODY) {
+                return false;
+            }
+            x = owner[lock];
+        }
+        return false;
+    }
+
+    private void breakDeadlock(int c) {
+        if (waitingFor[c] == NOBODY || !closesCycle(c)) {
+            return;
+        }
+        int victim = c;
+        for (int x = owner[waitingFor[c]]; x != c; x = owner[waitingFor[x]]) {
+            if (comesFirst(x, victim)) {
+                victim = x;
+            }
+        }
+        backOff(victim, Chef.MAX_RETRY_BACKOFF_MICROS);
+    }
+
+    /** Mirrors DeadlockResolver: the policy's criterion first, then the youngest order. */
+    private boolean comesFirst(int a, int b) {
+        int byPolicy;
+        switch (victimPolicy) {
+            case FEWEST_LOCKS:
+                byPolicy = Integer.compare(held[a], held[b]);
+                break;
+            case LOWEST_PRIORITY:
+                byPolicy = Integer.compare(priorityOf(a), priorityOf(b));
+                break;
+            default:
+                byPolicy = 0;
+                break;
+        }
+        return byPolicy != 0 ? byPolicy < 0 : orderStarted[a] > orderStarted[b];
+    }
+
+    /** Same seniority the real kitchen hands out: the first chef is the most senior. */
+    private int priorityOf(int c) {
+        return chefCount - c;
+    }
+
+    private void askWaiter(int c) {
+        if (admitted < permits) {
+            admitted++;
+            if (!takeAll(c)) {
+                asking.add(c);
+            }
+        } else {
+            awaitingAdmission.add(c);
+        }
+    }
+
+    private boolean takeAll(int c) {
+        int[] steps = plan[c];
+        for (int i = 0; i < planned[c]; i++) {
+            if (owner[steps[i]] != NOBODY) {
+                return false;
+            }
+        }
+        for (int i = 0; i < planned[c]; i++) {
+            owner[steps[i]] = c;
+        }
+        held[c] = planned[c];
+        startCooking(c);
+        return true;
+    }
+
+    private void handBackToWaiter(int c) {
+        for (int i = 0; i < held[c]; i++) {
+            owner[plan[c][i]] = NOBODY;
+        }
+        held[c] = 0;
+        admitted--;
+        for (int i = 0; i < asking.size(); ) {
+            if (takeAll(asking.get(i))) {
+                asking.removeAt(i);
+            } else {
+                i++;
+            }
+        }
+        while (admitted < permits && awaitingAdmission.size() > 0) {
+            int next = awaitingAdmission.removeAt(0);
+            admitted++;
+            if (!takeAll(next)) {
+                asking.add(next);
+            }
+        }
+    }
+
+    private void schedule(long time, int c, int action) {
+        events.push(time, ((long) c << 32) | ((long) action << 29) | (generation[c] & TAG_MASK));
+    }
+
+    private void enqueue(int lock, int c) {
+        prevInQueue[c] = queueTail[lock];
+        nextInQueue[c] = NOBODY;
+        if (queueTail[lock] == NOBODY) {
+            queueHead[lock] = c;
+        } else {
+            nextInQueue[queueTail[lock]] = c;
+        }
+        queueTail[lock] = c;
+        queueLength[lock]++;
+    }
+
+    private int dequeue(int lock) {
+        int c = queueHead[lock];
+        if (c != NOBODY) {
+            unqueue(lock, c);
+        }
+        return c;
+    }
+
+    private void unqueue(int lock, int c) {
+        int prev = prevInQueue[c];
+        int next = nextInQueue[c];
+        if (prev == NOBODY) {
+            queueHead[lock] = next;
+        } else {
+            nextInQueue[prev] = next;
+        }
+        if (next == NOBODY) {
+            queueTail[lock] = prev;
+        } else {
+            prevInQueue[next] = prev;
+        }
+        prevInQueue[c] = NOBODY;
+        nextInQueue[c] = NOBODY;
+        queueLength[lock]--;
+    }
+
+    private DeadlockCycle describeCycle(int c) {
+        List<String> chefs = new ArrayList<>();
+        List<String> equipment = new ArrayList<>();
+        StringBuilder description = new StringBuilder();
+        int x = c;
+        do {
+            int lock = waitingFor[x];
+            int holder = owner[lock];
+            chefs.add(Chef.nameFor(x));
+            equipment.add(lockNames[lock]);
+            if (description.length() > 0) {
+                description.append("; ");
+            }
+            description.append(Chef.nameFor(x)).append(" waits for ").append(lockNames[lock])
+                    .append(" held by ").append(Chef.nameFor(holder));
+            x = holder;
+        } while (x != c);
+        return new DeadlockCycle(chefs, equipment, description.toString());
+    }
+
+    private SimulationReport report(long horizon, long wallNanos) {
+        double seconds = horizon / 1e9;
+        SimulationReport report = new SimulationReport();
+        report.setMode(mode);
+        report.setVictimPolicy(mode == SimulationMode.RECOVERY ? victimPolicy : null);
+        report.setSeed(seed);
+        report.setChefCount(chefCount);
+        report.setSimulatedSeconds(seconds);
+        report.setOrdersCompleted(ordersCompleted);
+        report.setOrdersPerSecond(seconds > 0 ? ordersCompleted / seconds : 0);
+        report.setMeanWaitMillis(waits.meanNanos() / 1e6);
+        report.setP99WaitMillis(waits.valueAtPercentile(99) / 1e6);
+        report.setRecoveries(recoveries);
+        report.setRecoveriesPerSecond(seconds > 0 ? recoveries / seconds : 0);
+        double chefNanos = (double) horizon * chefCount;
+        report.setLostThroughputPercent(chefNanos > 0 ? 100.0 * nanosLostToRecovery / chefNanos : 0);
+        report.setDeadlocked(deadlockedAt >= 0);
+        report.setDeadlockedAtSeconds(deadlockedAt >= 0 ? deadlockedAt / 1e9 : 0);
+        report.setDeadlockCycles(new ArrayList<>(cycles));
+        report.setEventsProcessed(eventsProcessed);
+        report.setWallClockMillis(TimeUnit.NANOSECONDS.toMillis(wallNanos));
+        return report;
+    }
+
+    private static int[] filled(int length, int value) {
+        int[] array = new int[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    /** Growable list of chef ids, so the WAITER bookkeeping does not box. */
+    private static final class IntList {
+        private int[] items = new int[8];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = item;
+        }
+
+        int removeAt(int index) {
+            int item = items[index];
+            System.arraycopy(items, index + 1, items, index, size - index - 1);
+            size--;
+            return item;
+        }
+    }
+}
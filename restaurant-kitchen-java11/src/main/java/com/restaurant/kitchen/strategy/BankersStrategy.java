@@ -0,0 +1,330 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Deadlock avoidance with the banker's algorithm. When a chef starts an order it declares its
+ * maximum claim, one unit of every equipment type the dish uses, and then asks for them one at a
+ * time in its own recipe order. The manager hands over a unit only if, afterwards, there is still
+ * an order in which every chef with a declared claim can get everything it claimed and finish.
+ * Otherwise the chef waits, holding what it already has.
+ *
+ * <p>Units are counted per type, so a chef waits for <em>a</em> stove rather than the one it
+ * walked up to: the manager grants the unit the chef picked if it is free and any free unit of
+ * that type otherwise, and writes the unit granted back into the chef's array.
+ *
+ * <p>The safety check stays cheap as the kitchen grows. The state before a grant was safe, so if
+ * the chef asking can still get the rest of its claim from what is left, the state after the
+ * grant is safe too: that is an O(types) check and settles most grants. Only when it fails does
+ * the manager look at the other chefs, with a worklist that unblocks each chef at most once per
+ * type, O(chefs * types) instead of the textbook O(chefs^2 * types). A chef that cannot be served
+ * queues; each release hands freed units to the queued chefs it can now serve, oldest first, and
+ * wakes only those, so a release costs one wake-up per grant rather than one per waiting chef.
+ */
+public class BankersStrategy implements LockStrategy {
+
+    private static final int TYPES = EquipmentType.values().length;
+
+    private final ReentrantLock manager = new ReentrantLock();
+    private final ThreadLocal<Claim> claims = ThreadLocal.withInitial(() -> new Claim(manager.newCondition()));
+
+    // Guarded by manager.
+    private final Equipment[][] units = new Equipment[TYPES][];
+    private final boolean[][] granted = new boolean[TYPES][];
+    private final int[] available = new int[TYPES];
+    private Claim[] active = new Claim[16];
+    private int activeCount;
+    // Chefs waiting for a unit, oldest first.
+    private Claim[] pending = new Claim[16];
+    private int pendingCount;
+
+    // Scratch space for the full safety check, guarded by manager and grown with active.
+    private final int[] work = new int[TYPES];
+    private int[] blocked = new int[16];
+    private Claim[] finishable = new Claim[16];
+    private final Claim[][] waitingOn = new Claim[TYPES][16];
+    private final int[] waitingCount = new int[TYPES];
+
+    private long grants;
+    private long quickGrants;
+    private long denials;
+
+    public BankersStrategy(EquipmentRegistry kitchen) {
+        for (EquipmentType type : EquipmentType.values()) {
+            int t = type.ordinal();
+            units[t] = kitchen.unitsOf(type);
+            granted[t] = new boolean[units[t].length];
+            available[t] = units[t].length;
+        }
+    }
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        Claim claim = claims.get();
+        manager.lockInterruptibly();
+        try {
+            declare(claim, equipment, count);
+            int held = 0;
+            try {
+                for (; held < count; held++) {
+                    int t = equipment[held].getType().ordinal();
+                    int unit = freeUnit(t, equipment[held]);
+                    if (unit < 0 || !grantIfSafe(claim, t, unit)) {
+                        unit = awaitGrant(claim, t, equipment[held]);
+                    }
+                    equipment[held] = units[t][unit];
+                    equipment[held].getLock().lock(); // free: the manager never grants a unit twice
+                }
+            } catch (InterruptedException e) {
+                Locks.unlockAll(equipment, held);
+                giveBack(claim, equipment, held);
+                throw e;
+            }
+        } finally {
+            manager.unlock();
+        }
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+        manager.lock();
+        try {
+            giveBack(claims.get(), equipment, count);
+        } finally {
+            manager.unlock();
+        }
+    }
+
+    /** Grants so far, how many of them needed only the quick check, and requests turned down as unsafe. */
+    public long getGrants() { return locked(() -> grants); }
+    public long getQuickGrants() { return locked(() -> quickGrants); }
+    public long getDenials() { return locked(() -> denials); }
+
+    private long locked(LongSupplier read) {
+        manager.lock();
+        try {
+            return read.getAsLong();
+        } finally {
+            manager.unlock();
+        }
+    }
+
+    private void declare(Claim claim, Equipment[] equipment, int count) {
+        for (int i = 0; i < count; i++) {
+            int t = equipment[i].getType().ordinal();
+            if (claim.need[t] == units[t].length) {
+                Arrays.fill(claim.need, 0);
+                throw new IllegalStateException("A dish needs more " + equipment[i].getType() + " than the kitchen has");
+            }
+            claim.need[t]++;
+        }
+        // Joining with nothing held keeps the state safe: everyone else can finish first, then
+        // this chef gets the whole kitchen.
+        if (activeCount == active.length) {
+            grow();
+        }
+        claim.slot = activeCount;
+        active[activeCount++] = claim;
+    }
+
+    /** The unit the chef picked if nobody has it, else any free unit of the type, else -1. */
+    private int freeUnit(int t, Equipment picked) {
+        if (available[t] == 0) {
+            return -1;
+        }
+        if (!granted[t][picked.getUnit()]) {
+            return picked.getUnit();
+        }
+        boolean[] taken = granted[t];
+        for (int u = 0; u < taken.length; u++) {
+            if (!taken[u]) {
+                return u;
+            }
+        }
+        return -1;
+    }
+
+    private boolean grantIfSafe(Claim claim, int t, int unit) {
+        available[t]--;
+        claim.need[t]--;
+        claim.held[t]++;
+        if (canFinishAlone(claim)) {
+            quickGrants++;
+        } else if (!isSafe()) {
+            available[t]++;
+            claim.need[t]++;
+            claim.held[t]--;
+            denials++;
+            return false;
+        }
+        granted[t][unit] = true;
+        grants++;
+        return true;
+    }
+
+    private boolean canFinishAlone(Claim claim) {
+        for (int t = 0; t < TYPES; t++) {
+            if (claim.need[t] > available[t]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether every active chef can finish in some order. Chefs that can finish with what is free
+     * go on a worklist; each one that finishes returns its equipment, and only the chefs waiting
+     * on a type that just came back are looked at again.
+     */
+    private boolean isSafe() {
+        System.arraycopy(available, 0, work, 0, TYPES);
+        Arrays.fill(waitingCount, 0);
+        int ready = 0;
+        for (int i = 0; i < activeCount; i++) {
+            Claim c = active[i];
+            int missing = 0;
+            for (int t = 0; t < TYPES; t++) {
+                if (c.need[t] > work[t]) {
+                    missing++;
+                    waitingOn[t][waitingCount[t]++] = c;
+                }
+            }
+            blocked[i] = missing;
+            if (missing == 0) {
+                finishable[ready++] = c;
+            }
+        }
+        int finished = 0;
+        while (ready > 0) {
+            Claim done = finishable[--ready];
+            finished++;
+            for (int t = 0; t < TYPES; t++) {
+                if (done.held[t] == 0) {
+                    continue;
+                }
+                work[t] += done.held[t];
+                Claim[] waiting = waitingOn[t];
+                for (int w = 0; w < waitingCount[t]; ) {
+                    Claim c = waiting[w];
+                    if (c.need[t] <= work[t]) {
+                        waiting[w] = waiting[--waitingCount[t]];
+                        if (--blocked[c.slot] == 0) {
+                            finishable[ready++] = c;
+                        }
+                    } else {
+                        w++;
+                    }
+                }
+            }
+        }
+        return finished == activeCount;
+    }
+
+    /** Returns {@code equipment[0..count)} to the manager and ends the chef's claim. */
+    private void giveBack(Claim claim, Equipment[] equipment, int count) {
+        for (int i = 0; i < count; i++) {
+            Equipment unit = equipment[i];
+            int t = unit.getType().ordinal();
+            granted[t][unit.getUnit()] = false;
+            available[t]++;
+            claim.held[t]--;
+        }
+        Arrays.fill(claim.need, 0);
+        int slot = claim.slot;
+        Claim last = active[--activeCount];
+        active[slot] = last;
+        last.slot = slot;
+        active[activeCount] = null;
+        claim.slot = -1;
+        grantPending();
+    }
+
+    /**
+     * Queues the chef until a release hands it a unit of type {@code t}. Returned equipment is
+     * granted by the releasing chef, so only chefs that actually got something are woken.
+     */
+    private int awaitGrant(Claim claim, int t, Equipment picked) throws InterruptedException {
+        claim.wantType = t;
+        claim.wantPicked = picked;
+        claim.grantedUnit = -1;
+        pending[pendingCount++] = claim;
+        try {
+            while (claim.grantedUnit < 0) {
+                claim.turn.await();
+            }
+            return claim.grantedUnit;
+        } catch (InterruptedException e) {
+            if (claim.grantedUnit >= 0) {
+                // Granted just before the interrupt: hand the unit straight back.
+                granted[t][claim.grantedUnit] = false;
+                available[t]++;
+                claim.held[t]--;
+            } else {
+                removePending(claim);
+            }
+            throw e;
+        } finally {
+            claim.wantPicked = null;
+        }
+    }
+
+    /** Oldest first, grants every waiting chef that can now be served safely. */
+    private void grantPending() {
+        for (int i = 0; i < pendingCount; ) {
+            Claim c = pending[i];
+            int unit = freeUnit(c.wantType, c.wantPicked);
+            if (unit >= 0 && grantIfSafe(c, c.wantType, unit)) {
+                c.grantedUnit = unit;
+                removePending(c);
+                c.turn.signal();
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void removePending(Claim claim) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pending[i] == claim) {
+                System.arraycopy(pending, i + 1, pending, i, pendingCount - i - 1);
+                pending[--pendingCount] = null;
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = active.length * 2;
+        active = Arrays.copyOf(active, capacity);
+        pending = Arrays.copyOf(pending, capacity);
+        blocked = new int[capacity];
+        finishable = new Claim[capacity];
+        for (int t = 0; t < TYPES; t++) {
+            waitingOn[t] = new Claim[capacity];
+        }
+    }
+
+    /** One chef's declared claim: what it still needs and what it holds, per equipment type. */
+    private static final class Claim {
+        final int[] need = new int[TYPES];
+        final int[] held = new int[TYPES];
+        final Condition turn;
+        int slot = -1;
+        // While queued: the type asked for, the unit the chef picked, and the unit granted (-1 until then).
+        int wantType;
+        Equipment wantPicked;
+        int grantedUnit = -1;
+
+        Claim(Condition turn) {
+            this.turn = turn;
+        }
+    }
+}
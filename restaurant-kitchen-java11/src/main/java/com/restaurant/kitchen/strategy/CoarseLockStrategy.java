@@ -0,0 +1,31 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Baseline: one lock for the whole kitchen, so only one chef cooks at a time. The equipment
+ * locks are still taken afterwards (always uncontended) so equipment ownership stays visible.
+ */
+public class CoarseLockStrategy implements LockStrategy {
+
+    private final ReentrantLock kitchenLock = new ReentrantLock();
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        kitchenLock.lockInterruptibly();
+        try {
+            Locks.lockAll(equipment, count);
+        } catch (InterruptedException e) {
+            kitchenLock.unlock();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+        kitchenLock.unlock();
+    }
+}
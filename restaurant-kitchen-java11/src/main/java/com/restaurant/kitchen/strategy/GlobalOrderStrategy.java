@@ -0,0 +1,21 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+/**
+ * Sorts the requested equipment by kitchen-wide rank before taking it. No chef can then hold a
+ * higher-ranked piece while waiting for a lower-ranked one, so no wait cycle can form.
+ */
+public class GlobalOrderStrategy implements LockStrategy {
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        Equipment.sortByRank(equipment, count);
+        Locks.lockAll(equipment, count);
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+    }
+}
@@ -0,0 +1,42 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+public final class LockStrategies {
+
+    public static final long TRY_LOCK_TIMEOUT_MILLIS = 5;
+    public static final long INITIAL_BACKOFF_MICROS = 100;
+    public static final long MAX_BACKOFF_MICROS = 20_000;
+
+    private LockStrategies() {}
+
+    /** Builds the strategy shared by all chefs of one run in {@code kitchen}, with the default lease. */
+    public static LockStrategy forMode(SimulationMode mode, int chefCount, EquipmentRegistry kitchen) {
+        return forMode(mode, chefCount, kitchen, new KitchenProperties.Priorities().getLeaseMillis());
+    }
+
+    /** @param leaseMillis PRIORITY only: how long a chef may keep a piece someone else wants; 0 for no limit */
+    public static LockStrategy forMode(SimulationMode mode, int chefCount, EquipmentRegistry kitchen, long leaseMillis) {
+        switch (mode) {
+            case DEADLOCK:
+            case RECOVERY:
+                return new PreferredOrderStrategy();
+            case SAFE:
+                return new GlobalOrderStrategy();
+            case TRY_LOCK:
+                return new TryLockBackoffStrategy(TRY_LOCK_TIMEOUT_MILLIS, INITIAL_BACKOFF_MICROS, MAX_BACKOFF_MICROS);
+            case WAITER:
+                return new WaiterStrategy(chefCount);
+            case COARSE:
+                return new CoarseLockStrategy();
+            case AVOIDANCE:
+                return new BankersStrategy(kitchen);
+            case PRIORITY:
+                return new PriorityLeaseStrategy(kitchen, leaseMillis);
+            default:
+                throw new IllegalArgumentException("No lock strategy for mode " + mode);
+        }
+    }
+}
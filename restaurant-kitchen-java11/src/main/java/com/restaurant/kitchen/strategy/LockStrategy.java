@@ -0,0 +1,18 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+/**
+ * How a chef gets hold of all the equipment an order needs.
+ *
+ * <p>{@code equipment[0..count)} arrives in the chef's preferred order. Implementations may
+ * reorder that prefix in place but must not allocate; {@link #release} is always called with the
+ * same array and count after a successful {@link #acquire}. If {@code acquire} throws, nothing
+ * is left held.
+ */
+public interface LockStrategy {
+
+    void acquire(Equipment[] equipment, int count) throws InterruptedException;
+
+    void release(Equipment[] equipment, int count);
+}
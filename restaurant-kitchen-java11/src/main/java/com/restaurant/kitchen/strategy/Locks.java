@@ -0,0 +1,28 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+final class Locks {
+
+    private Locks() {}
+
+    /** Locks {@code equipment[0..count)} in array order; on interrupt, rolls back what was taken. */
+    static void lockAll(Equipment[] equipment, int count) throws InterruptedException {
+        int held = 0;
+        try {
+            for (; held < count; held++) {
+                equipment[held].getLock().lockInterruptibly();
+            }
+        } catch (InterruptedException e) {
+            unlockAll(equipment, held);
+            throw e;
+        }
+    }
+
+    /** Unlocks {@code equipment[0..count)} in reverse acquisition order. */
+    static void unlockAll(Equipment[] equipment, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            equipment[i].getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+/**
+ * Every chef grabs equipment in whatever order suits them. With two chefs that prefer
+ * opposite orders this is the textbook deadlock.
+ */
+public class PreferredOrderStrategy implements LockStrategy {
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        Locks.lockAll(equipment, count);
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+    }
+}
@@ -0,0 +1,218 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Urgent orders first. Every piece of equipment has a grant queue ordered by the serve-by time of
+ * the waiting chefs' orders (see {@link com.restaurant.kitchen.orders.PriorityMix}), so a VIP
+ * order jumps ahead of normal and batch-prep ones, while aging keeps a long-waiting order from
+ * being overtaken forever. Chefs ask for their pieces in rank order, as in SAFE mode, so the
+ * queues can never form a deadlock.
+ *
+ * <p>A grant is a lease. Once a holder has had a piece for longer than the lease, the chef at the
+ * head of that piece's queue sends it back through the same abort path RECOVERY uses: the holder
+ * drops the attempt, puts everything back and retries the order after a short backoff (portions
+ * already served are not cooked again). Only the head waiter watches the clock, so a lease costs
+ * nothing while nobody else wants the piece.
+ *
+ * <p>Each piece keeps its queue under its own lock, so chefs at different equipment never wait
+ * for each other's bookkeeping. On release a piece is handed straight to the head of its queue,
+ * which wakes only that chef.
+ */
+public class PriorityLeaseStrategy implements LockStrategy {
+
+    private static final Comparator<Waiter> MOST_URGENT_FIRST = (a, b) -> {
+        long diff = a.serveByNanos - b.serveByNanos;
+        return diff != 0 ? (diff < 0 ? -1 : 1) : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final Piece[] pieces;
+    private final ThreadLocal<Waiter> waiters;
+    private final long leaseNanos;
+    private final LongAdder grants = new LongAdder();
+    private final LongAdder queuedGrants = new LongAdder();
+    private final LongAdder preemptions = new LongAdder();
+
+    /** @param leaseMillis longest a chef may keep a piece someone else is waiting for; 0 for no limit */
+    public PriorityLeaseStrategy(EquipmentRegistry kitchen, long leaseMillis) {
+        int count = kitchen.size();
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+        this.pieces = new Piece[count];
+        for (int i = 0; i < count; i++) {
+            pieces[i] = new Piece(i);
+        }
+        this.waiters = ThreadLocal.withInitial(() -> new Waiter(count));
+    }
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        Equipment.sortByRank(equipment, count);
+        Waiter me = waiters.get();
+        Chef chef = Chef.current();
+        me.chef = chef;
+        me.serveByNanos = chef == null ? System.nanoTime() : chef.getOrderServeByNanos();
+        int granted = 0;
+        int locked = 0;
+        try {
+            for (; locked < count; locked++) {
+                obtain(equipment[locked].getRank(), me);
+                granted = locked + 1;
+                equipment[locked].getLock().lockInterruptibly(); // free: only the grant holder takes it
+            }
+        } catch (InterruptedException e) {
+            Locks.unlockAll(equipment, locked);
+            for (int i = 0; i < granted; i++) {
+                pieces[equipment[i].getRank()].handOff();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+        for (int i = 0; i < count; i++) {
+            pieces[equipment[i].getRank()].handOff();
+        }
+    }
+
+    /** Grants so far, how many went to a chef that had to queue, and holders sent back for overrunning a lease. */
+    public long getGrants() { return grants.sum(); }
+    public long getQueuedGrants() { return queuedGrants.sum(); }
+    public long getPreemptions() { return preemptions.sum(); }
+
+    /** Waits until the piece of rank {@code rank} is granted to {@code me}; on interrupt, nothing is granted. */
+    private void obtain(int rank, Waiter me) throws InterruptedException {
+        Piece piece = pieces[rank];
+        piece.lock.lockInterruptibly();
+        try {
+            if (piece.holder == null && piece.queue.isEmpty()) {
+                piece.grant(me);
+                return;
+            }
+            Condition turn = me.turnAt(rank, piece.lock);
+            me.sequence = piece.sequence++;
+            me.granted = false;
+            piece.queue.add(me);
+            try {
+                while (!me.granted) {
+                    long timeout = Long.MAX_VALUE;
+                    if (leaseNanos > 0 && piece.queue.peek() == me && !piece.preempted) {
+                        timeout = piece.leaseEndsAt - System.nanoTime();
+                        if (timeout <= 0) {
+                            piece.preempt();
+                            timeout = Long.MAX_VALUE;
+                        }
+                    }
+                    if (timeout == Long.MAX_VALUE) {
+                        turn.await();
+                    } else {
+                        turn.awaitNanos(timeout);
+                    }
+                }
+                queuedGrants.increment();
+            } catch (InterruptedException e) {
+                if (me.granted) {
+                    piece.handOff();
+                } else {
+                    boolean wasHead = piece.queue.peek() == me;
+                    piece.queue.remove(me);
+                    if (wasHead) {
+                        piece.wakeHead(); // the new head takes over watching the lease
+                    }
+                }
+                throw e;
+            }
+        } finally {
+            piece.lock.unlock();
+        }
+    }
+
+    /** One piece of equipment's grant: who has it, until when, and who is waiting, under its own lock. */
+    private final class Piece {
+        final int rank;
+        final ReentrantLock lock = new ReentrantLock();
+        final PriorityQueue<Waiter> queue = new PriorityQueue<>(MOST_URGENT_FIRST);
+        Waiter holder;
+        long leaseEndsAt;
+        boolean preempted;
+        long sequence;
+
+        Piece(int rank) {
+            this.rank = rank;
+        }
+
+        void grant(Waiter to) {
+            holder = to;
+            leaseEndsAt = System.nanoTime() + leaseNanos;
+            preempted = false;
+            grants.increment();
+        }
+
+        /** The holder is done with the piece: straight to the most urgent waiter, if any. */
+        void handOff() {
+            lock.lock();
+            try {
+                Waiter next = queue.poll();
+                if (next == null) {
+                    holder = null;
+                    return;
+                }
+                grant(next);
+                next.granted = true;
+                next.turns[rank].signal();
+                wakeHead(); // a new lease to watch
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void wakeHead() {
+            Waiter head = queue.peek();
+            if (head != null) {
+                head.turns[rank].signal();
+            }
+        }
+
+        void preempt() {
+            preempted = true;
+            Chef overrunning = holder.chef;
+            if (overrunning != null) {
+                preemptions.increment();
+                overrunning.abortCurrentOrder();
+            }
+        }
+    }
+
+    /** One chef thread's place in a grant queue; it waits for one piece at a time. */
+    private static final class Waiter {
+        // One condition per piece, made the first time the chef has to queue for it.
+        final Condition[] turns;
+        volatile Chef chef;
+        long serveByNanos;
+        long sequence;
+        boolean granted;
+
+        Waiter(int pieces) {
+            this.turns = new Condition[pieces];
+        }
+
+        Condition turnAt(int rank, ReentrantLock pieceLock) {
+            Condition turn = turns[rank];
+            if (turn == null) {
+                turn = pieceLock.newCondition();
+                turns[rank] = turn;
+            }
+            return turn;
+        }
+    }
+}
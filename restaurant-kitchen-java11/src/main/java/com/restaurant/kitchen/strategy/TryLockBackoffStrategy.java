@@ -0,0 +1,52 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes locks in the chef's preferred order, but never waits on one for longer than
+ * {@code tryTimeoutMillis}. On a timeout the chef puts everything back and sleeps for a random
+ * time drawn from an exponentially growing window before trying again. Holding nothing while
+ * backing off breaks the hold-and-wait condition, so a cycle cannot persist.
+ */
+public class TryLockBackoffStrategy implements LockStrategy {
+
+    private final long tryTimeoutMillis;
+    private final long initialBackoffMicros;
+    private final long maxBackoffMicros;
+
+    public TryLockBackoffStrategy(long tryTimeoutMillis, long initialBackoffMicros, long maxBackoffMicros) {
+        this.tryTimeoutMillis = tryTimeoutMillis;
+        this.initialBackoffMicros = Math.max(1, initialBackoffMicros);
+        this.maxBackoffMicros = Math.max(this.initialBackoffMicros, maxBackoffMicros);
+    }
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        long backoffWindow = initialBackoffMicros;
+        while (true) {
+            int held = 0;
+            try {
+                while (held < count && equipment[held].getLock().tryLock(tryTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    held++;
+                }
+            } catch (InterruptedException e) {
+                Locks.unlockAll(equipment, held);
+                throw e;
+            }
+            if (held == count) {
+                return;
+            }
+            Locks.unlockAll(equipment, held);
+            TimeUnit.MICROSECONDS.sleep(1 + ThreadLocalRandom.current().nextLong(backoffWindow));
+            backoffWindow = Math.min(backoffWindow * 2, maxBackoffMicros);
+        }
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+    }
+}
@@ -0,0 +1,67 @@
+package com.restaurant.kitchen.strategy;
+
+import com.restaurant.kitchen.resources.Equipment;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The dining-philosophers waiter (arbitrator solution). At most N - 1 of the N chefs may ask
+ * the waiter at once, and the waiter hands over a chef's equipment all at once or not at all.
+ *
+ * <p>The N - 1 admission limit alone only rules out deadlock for the ring-shaped philosophers'
+ * table; with arbitrary recipes it is the all-or-nothing handover that does it, because no chef
+ * ever holds some equipment while waiting for the rest.
+ */
+public class WaiterStrategy implements LockStrategy {
+
+    private final Semaphore admission;
+    private final ReentrantLock waiter = new ReentrantLock();
+    private final Condition equipmentFreed = waiter.newCondition();
+
+    public WaiterStrategy(int chefCount) {
+        this.admission = new Semaphore(Math.max(1, chefCount - 1), true);
+    }
+
+    @Override
+    public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+        admission.acquire();
+        try {
+            waiter.lockInterruptibly();
+            try {
+                while (!takeAll(equipment, count)) {
+                    equipmentFreed.await();
+                }
+            } finally {
+                waiter.unlock();
+            }
+        } catch (InterruptedException e) {
+            admission.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void release(Equipment[] equipment, int count) {
+        Locks.unlockAll(equipment, count);
+        waiter.lock();
+        try {
+            equipmentFreed.signalAll();
+        } finally {
+            waiter.unlock();
+        }
+        admission.release();
+    }
+
+    // Only ever called by the waiter, so nobody can grab a piece between the checks.
+    private static boolean takeAll(Equipment[] equipment, int count) {
+        for (int i = 0; i < count; i++) {
+            if (!equipment[i].getLock().tryLock()) {
+                Locks.unlockAll(equipment, i);
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,92 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.strategy.BankersStrategy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BankersStrategyTest {
+
+    private final Stove stove = new Stove(10);
+    private final Blender blender = new Blender(10);
+    private final Equipment oven = new Equipment(EquipmentType.OVEN, 10);
+    private final EquipmentRegistry kitchen = EquipmentRegistry.of(stove, blender, oven);
+    private final BankersStrategy strategy = new BankersStrategy(kitchen);
+    private final AtomicInteger cooked = new AtomicInteger();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @After
+    public void tearDown() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(2000);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void grantsRightAwayWhenTheChefCanFinish() throws InterruptedException {
+        Equipment[] dish = {stove, blender};
+        strategy.acquire(dish, 2);
+        assertTrue(stove.getLock().isHeldByCurrentThread());
+        assertTrue(blender.getLock().isHeldByCurrentThread());
+        strategy.release(dish, 2);
+
+        assertFalse(stove.getLock().isLocked());
+        assertEquals(2, strategy.getGrants());
+        assertEquals(2, strategy.getQuickGrants());
+        assertEquals(0, strategy.getDenials());
+    }
+
+    @Test(timeout = 5000)
+    public void refusesAGrantThatCouldDeadlock() throws InterruptedException {
+        Equipment[] mine = {oven};
+        strategy.acquire(mine, 1);
+
+        // Holds the stove and waits for the oven; the blender is still free.
+        Thread first = cook(stove, oven, blender);
+        while (!stove.getLock().isLocked() || first.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        // Handing it the blender would leave neither chef able to finish.
+        Thread second = cook(blender, stove);
+        while (strategy.getDenials() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse("The unsafe grant should not be made", blender.getLock().isLocked());
+        assertEquals(0, cooked.get());
+
+        strategy.release(mine, 1);
+        first.join();
+        second.join();
+        assertEquals("Both chefs should finish once the oven is back", 2, cooked.get());
+        assertFalse(stove.getLock().isLocked() || blender.getLock().isLocked() || oven.getLock().isLocked());
+    }
+
+    /** A chef asking for {@code recipe} in its own order, who cooks and puts everything back. */
+    private Thread cook(Equipment... recipe) {
+        Thread thread = new Thread(() -> {
+            Equipment[] needs = recipe.clone();
+            try {
+                strategy.acquire(needs, needs.length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            cooked.incrementAndGet();
+            strategy.release(needs, needs.length);
+        });
+        threads.add(thread);
+        thread.start();
+        return thread;
+    }
+}
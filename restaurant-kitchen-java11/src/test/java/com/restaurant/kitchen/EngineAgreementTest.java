@@ -0,0 +1,94 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.config.KitchenProperties;
+import com.restaurant.kitchen.model.KitchenStatus;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.service.KitchenSimulator;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * The VIRTUAL engine replays the lock protocols on its own, so it is only as good as its
+ * agreement with the real chefs. For a small fixed kitchen (one stove, one blender, three chefs)
+ * both engines should serve about as many orders per second, with about the same wait.
+ *
+ * <p>The threaded side is measured on the wall clock, with real sleeps and random backoffs, so
+ * these tests only run when asked for: {@code ./gradlew test -PtimingTests}, or
+ * {@code -Dkitchen.timingTests=true}. {@link VirtualKitchenTest} covers what is deterministic.
+ */
+public class EngineAgreementTest {
+
+    private static final long USE_MILLIS = 5;
+    private static final int CHEFS = 3;
+    private static final long MEASURE_MILLIS = 1500;
+
+    private KitchenSimulator simulator;
+
+    @Before
+    public void onlyWhenAskedFor() {
+        Assume.assumeTrue("Wall-clock comparison; enable with -Dkitchen.timingTests=true",
+                Boolean.getBoolean("kitchen.timingTests"));
+    }
+
+    @After
+    public void tearDown() {
+        if (simulator != null) {
+            simulator.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void safeMode_enginesAgree() throws InterruptedException {
+        assertEnginesAgree(SimulationMode.SAFE);
+    }
+
+    @Test(timeout = 10000)
+    public void tryLockMode_enginesAgree() throws InterruptedException {
+        assertEnginesAgree(SimulationMode.TRY_LOCK);
+    }
+
+    @Test(timeout = 10000)
+    public void waiterMode_enginesAgree() throws InterruptedException {
+        assertEnginesAgree(SimulationMode.WAITER);
+    }
+
+    @Test(timeout = 10000)
+    public void coarseMode_enginesAgree() throws InterruptedException {
+        assertEnginesAgree(SimulationMode.COARSE);
+    }
+
+    private void assertEnginesAgree(SimulationMode mode) throws InterruptedException {
+        KitchenProperties properties = new KitchenProperties();
+        properties.setChefCount(CHEFS);
+        properties.setUseMillis(USE_MILLIS);
+        simulator = new KitchenSimulator(EquipmentRegistry.fromCounts(new LinkedHashMap<>(), USE_MILLIS), properties);
+
+        SimulationReport virtual = simulator.simulate(mode, 60, 42);
+        simulator.start(mode);
+        Thread.sleep(MEASURE_MILLIS);
+        KitchenStatus threads = simulator.getStatus();
+        simulator.stop();
+
+        String both = String.format("%s: THREADS %.1f orders/s, %.2f ms mean wait; VIRTUAL %.1f orders/s, %.2f ms",
+                mode, threads.getOrdersPerSecond(), threads.getMeanWaitMillis(),
+                virtual.getOrdersPerSecond(), virtual.getMeanWaitMillis());
+        assertTrue("Both engines should serve orders; " + both,
+                threads.getOrdersCompleted() > 0 && virtual.getOrdersCompleted() > 0);
+        assertWithin("Orders per second; " + both, threads.getOrdersPerSecond(), virtual.getOrdersPerSecond(), 0.25, 0);
+        assertWithin("Mean wait; " + both, threads.getMeanWaitMillis(), virtual.getMeanWaitMillis(), 0.35, 2);
+    }
+
+    /** Within {@code share} of the larger value, or {@code slack} absolute, whichever is looser. */
+    private static void assertWithin(String message, double a, double b, double share, double slack) {
+        double allowed = Math.max(share * Math.max(a, b), slack);
+        assertTrue(message, Math.abs(a - b) <= allowed);
+    }
+}
@@ -0,0 +1,126 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.journal.EventJournal;
+import com.restaurant.kitchen.journal.EventType;
+import com.restaurant.kitchen.journal.JournalEvent;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+
+    private Path file;
+
+    @After
+    public void tearDown() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void recordsRoundTripThroughTheFile() throws IOException {
+        file = Files.createTempFile("kitchen", ".journal");
+        EventJournal journal = EventJournal.create(file, 16);
+        journal.record(EventType.ORDER, 2, 7, 3);
+        journal.record(EventType.ACQUIRED, 2, 0, 1);
+        journal.record(EventType.RELEASED, 2, 0, 1);
+        journal.record(EventType.COMPLETED, 2, 7, 42);
+        journal.record(EventType.ABORTED, 1, 5, 0);
+        assertEquals(5, journal.written());
+        journal.close();
+
+        List<JournalEvent> events = EventJournal.readTail(file, 100);
+        assertEquals(5, events.size());
+        assertEvent(events.get(0), 0, EventType.ORDER, 2, 7, 3);
+        assertEvent(events.get(1), 1, EventType.ACQUIRED, 2, 0, 1);
+        assertEvent(events.get(2), 2, EventType.RELEASED, 2, 0, 1);
+        assertEvent(events.get(3), 3, EventType.COMPLETED, 2, 7, 42);
+        assertEvent(events.get(4), 4, EventType.ABORTED, 1, 5, 0);
+        for (int i = 1; i < events.size(); i++) {
+            assertFalse("Times should not go backwards", events.get(i).getTime().isBefore(events.get(i - 1).getTime()));
+        }
+    }
+
+    @Test
+    public void aFullRingKeepsTheNewestRecords() throws IOException {
+        file = Files.createTempFile("kitchen", ".journal");
+        EventJournal journal = EventJournal.create(file, 5);
+        assertEquals("Capacity rounds up to a power of two", 8, journal.getCapacity());
+        for (int i = 0; i < 20; i++) {
+            journal.record(EventType.COMPLETED, 0, 1, i);
+        }
+
+        List<JournalEvent> inProcess = journal.tail(100);
+        journal.close();
+        List<JournalEvent> fromFile = EventJournal.readTail(file, 100);
+        assertEquals(8, inProcess.size());
+        assertEquals(8, fromFile.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(12 + i, inProcess.get(i).getValue());
+            assertEquals(12 + i, fromFile.get(i).getSequence());
+            assertEquals(12 + i, fromFile.get(i).getValue());
+        }
+
+        List<JournalEvent> lastThree = EventJournal.readTail(file, 3);
+        assertEquals(3, lastThree.size());
+        assertEquals(17, lastThree.get(0).getValue());
+    }
+
+    @Test
+    public void readTail_rejectsAFileThatIsNotAJournal() throws IOException {
+        file = Files.createTempFile("kitchen", ".journal");
+        Files.write(file, new byte[128]);
+        try {
+            EventJournal.readTail(file, 10);
+            fail("A file of zeros should not decode");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("not a kitchen event journal"));
+        }
+    }
+
+    @Test
+    public void readTail_rejectsADamagedHeader() throws IOException {
+        file = Files.createTempFile("kitchen", ".journal");
+        EventJournal journal = EventJournal.create(file, 8);
+        journal.record(EventType.ORDER, 0, 1, 1);
+        journal.close();
+        byte[] intact = Files.readAllBytes(file);
+
+        for (int capacity : new int[]{0, -8, 6, 16, 1 << 30}) {
+            byte[] bytes = intact.clone();
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(8, capacity);
+            Files.write(file, bytes);
+            assertDamaged("capacity " + capacity);
+        }
+
+        Files.write(file, Arrays.copyOf(intact, intact.length - 1));
+        assertDamaged("a truncated file");
+    }
+
+    private void assertDamaged(String what) {
+        try {
+            EventJournal.readTail(file, 10);
+            fail(what + " should not decode");
+        } catch (IOException e) {
+            assertTrue(what + ": " + e.getMessage(), e.getMessage().contains("is damaged"));
+        }
+    }
+
+    private static void assertEvent(JournalEvent event, long sequence, EventType type, int chefId, int subject, int value) {
+        assertEquals(sequence, event.getSequence());
+        assertEquals(type, event.getType());
+        assertEquals(chefId, event.getChefId());
+        assertEquals(subject, event.getSubject());
+        assertEquals(value, event.getValue());
+    }
+}
@@ -0,0 +1,295 @@
+package com.restaurant.kitchen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A deterministic scheduler for chefs' lock steps. Each chef runs one order: it takes
+ * {@code programs[c][0]}, {@code programs[c][1]}, ... (lock ids, blocking while another chef holds
+ * one), then puts everything back in one step. One order per chef is enough to find every
+ * deadlock: locks are all free between orders, so any stuck state is reachable from a fresh start.
+ *
+ * <p>{@link #explore()} visits every reachable state breadth first. A state is just every chef's
+ * step counter (who holds what follows from that), so it packs into a long, and states reached by
+ * different interleavings are visited once. Partial-order reduction then only branches where the
+ * order matters: if some chef's next step is independent of everything the others can still do
+ * (putting equipment back, or taking a piece nobody else will ask for) only that step is explored.
+ * Deadlocks are preserved, and since every step moves one counter by one, the first deadlock found
+ * is reached by a shortest schedule.
+ *
+ * <p>{@link #randomWalks} runs random schedules instead, for kitchens too big to exhaust.
+ */
+final class InterleavingExplorer {
+
+    private final int[][] programs;
+    private final int chefs;
+    // position[c][lock]: when chef c takes that lock in its order, or -1.
+    private final int[][] position;
+    private final long[] weight;
+    private boolean reduce = true;
+
+    // BFS state, indexed by visit order.
+    private long[] states;
+    private int[] parent;
+    private int[] stepBy;
+    private double[] paths;
+    private int size;
+    private long[] table;
+    private int[] tableIndex;
+
+    private final int[] pcs;
+    private final int[] enabled;
+
+    InterleavingExplorer(int[][] programs, int locks) {
+        this.programs = programs;
+        this.chefs = programs.length;
+        this.position = new int[chefs][locks];
+        this.weight = new long[chefs];
+        long w = 1;
+        for (int c = 0; c < chefs; c++) {
+            Arrays.fill(position[c], -1);
+            for (int i = 0; i < programs[c].length; i++) {
+                position[c][programs[c][i]] = i;
+            }
+            weight[c] = w;
+            w = Math.multiplyExact(w, programs[c].length + 2);
+        }
+        this.pcs = new int[chefs];
+        this.enabled = new int[chefs];
+    }
+
+    /** Explores every interleaving instead of one per group of equivalent ones. */
+    InterleavingExplorer withoutReduction() {
+        reduce = false;
+        return this;
+    }
+
+    /** Everything reachable, with the shortest deadlocking schedule if there is one. */
+    Result explore() {
+        states = new long[1024];
+        parent = new int[1024];
+        stepBy = new int[1024];
+        paths = new double[1024];
+        table = new long[4096];
+        tableIndex = new int[4096];
+        Arrays.fill(tableIndex, -1);
+        size = 0;
+        Result result = new Result();
+        paths[add(0L, -1, -1)] = 1;
+        for (int at = 0; at < size; at++) {
+            long state = states[at];
+            decode(state);
+            int count = enabledChefs();
+            if (count == 0) {
+                result.schedules += paths[at];
+                if (!allDone()) {
+                    result.deadlocks++;
+                    if (result.deadlock == null) {
+                        result.deadlock = scheduleTo(at);
+                    }
+                }
+                continue;
+            }
+            int only = reduce ? independentStep(count) : -1;
+            for (int i = 0; i < count; i++) {
+                int c = enabled[i];
+                if (only >= 0 && c != only) {
+                    continue;
+                }
+                result.transitions++;
+                long next = state + weight[c];
+                int index = indexOf(next);
+                if (index < 0) {
+                    index = add(next, at, c);
+                }
+                paths[index] += paths[at];
+            }
+        }
+        result.states = size;
+        return result;
+    }
+
+    /** {@code walks} random schedules; {@link Result#deadlock} is the first one that got stuck. */
+    Result randomWalks(long walks, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] schedule = new int[maxSteps()];
+        Result result = new Result();
+        for (long walk = 0; walk < walks; walk++) {
+            Arrays.fill(pcs, 0);
+            int steps = 0;
+            int count;
+            while ((count = enabledChefs()) > 0) {
+                int c = enabled[random.nextInt(count)];
+                pcs[c]++;
+                schedule[steps++] = c;
+                result.transitions++;
+            }
+            result.schedules++;
+            if (!allDone()) {
+                result.deadlocks++;
+                if (result.deadlock == null) {
+                    result.deadlock = Arrays.copyOf(schedule, steps);
+                }
+            }
+        }
+        return result;
+    }
+
+    /** One line per step of {@code schedule}, e.g. "Gordon#0 takes STOVE#0". */
+    List<String> describe(int[] schedule, String[] lockNames, String[] chefNames) {
+        Arrays.fill(pcs, 0);
+        List<String> lines = new ArrayList<>();
+        for (int c : schedule) {
+            int pc = pcs[c]++;
+            lines.add(pc < programs[c].length
+                    ? chefNames[c] + " takes " + lockNames[programs[c][pc]]
+                    : chefNames[c] + " puts everything back");
+        }
+        return lines;
+    }
+
+    /** Fills {@code enabled} with the chefs that can take a step and returns how many. */
+    private int enabledChefs() {
+        int count = 0;
+        for (int c = 0; c < chefs; c++) {
+            int pc = pcs[c];
+            int length = programs[c].length;
+            if (pc == length || (pc < length && holder(programs[c][pc]) < 0)) {
+                enabled[count++] = c;
+            }
+        }
+        return count;
+    }
+
+    private int holder(int lock) {
+        for (int c = 0; c < chefs; c++) {
+            int p = position[c][lock];
+            if (p >= 0 && p < pcs[c] && pcs[c] <= programs[c].length) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /** An enabled chef whose next step commutes with everything the others can still do, or -1. */
+    private int independentStep(int count) {
+        for (int i = 0; i < count; i++) {
+            int c = enabled[i];
+            int pc = pcs[c];
+            if (pc == programs[c].length) {
+                return c; // putting back: only enables others, and only this chef can do it
+            }
+            int lock = programs[c][pc];
+            boolean wanted = false;
+            for (int other = 0; other < chefs && !wanted; other++) {
+                int p = position[other][lock];
+                wanted = other != c && p >= 0 && p >= pcs[other];
+            }
+            if (!wanted) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private boolean allDone() {
+        for (int c = 0; c < chefs; c++) {
+            if (pcs[c] != programs[c].length + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decode(long state) {
+        for (int c = chefs - 1; c >= 0; c--) {
+            pcs[c] = (int) (state / weight[c]);
+            state %= weight[c];
+        }
+    }
+
+    private int maxSteps() {
+        int steps = 0;
+        for (int[] program : programs) {
+            steps += program.length + 1;
+        }
+        return steps;
+    }
+
+    private int[] scheduleTo(int index) {
+        int length = 0;
+        for (int at = index; parent[at] >= 0; at = parent[at]) {
+            length++;
+        }
+        int[] schedule = new int[length];
+        for (int at = index; parent[at] >= 0; at = parent[at]) {
+            schedule[--length] = stepBy[at];
+        }
+        return schedule;
+    }
+
+    private int add(long state, int from, int chef) {
+        if (size == states.length) {
+            states = Arrays.copyOf(states, size * 2);
+            parent = Arrays.copyOf(parent, size * 2);
+            stepBy = Arrays.copyOf(stepBy, size * 2);
+            paths = Arrays.copyOf(paths, size * 2);
+        }
+        if (size * 2 >= table.length) {
+            rehash();
+        }
+        int index = size++;
+        states[index] = state;
+        parent[index] = from;
+        stepBy[index] = chef;
+        insert(state, index);
+        return index;
+    }
+
+    private int indexOf(long state) {
+        int mask = table.length - 1;
+        for (int slot = hash(state) & mask; tableIndex[slot] >= 0; slot = (slot + 1) & mask) {
+            if (table[slot] == state) {
+                return tableIndex[slot];
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long state, int index) {
+        int mask = table.length - 1;
+        int slot = hash(state) & mask;
+        while (tableIndex[slot] >= 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = state;
+        tableIndex[slot] = index;
+    }
+
+    private void rehash() {
+        table = new long[table.length * 2];
+        tableIndex = new int[tableIndex.length * 2];
+        Arrays.fill(tableIndex, -1);
+        for (int i = 0; i < size; i++) {
+            insert(states[i], i);
+        }
+    }
+
+    private static int hash(long state) {
+        long h = state * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static final class Result {
+        int states;
+        long transitions;
+        // Complete schedules (ending finished or stuck) represented by what was explored.
+        double schedules;
+        // Stuck states for explore(), stuck walks for randomWalks().
+        long deadlocks;
+        // The shortest deadlocking schedule found (chef per step), or null.
+        int[] deadlock;
+    }
+}
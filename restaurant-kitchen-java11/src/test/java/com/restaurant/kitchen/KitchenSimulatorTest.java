@@ -1,13 +1,17 @@
 package com.restaurant.kitchen;
 
+import com.restaurant.kitchen.config.KitchenProperties;
 import com.restaurant.kitchen.model.KitchenStatus;
 import com.restaurant.kitchen.model.SimulationMode;
 import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
 import com.restaurant.kitchen.resources.Stove;
 import com.restaurant.kitchen.service.KitchenSimulator;
 import org.junit.After;
 import org.junit.Test;
 
+import java.io.UncheckedIOException;
+
 import static org.junit.Assert.*;
 
 public class KitchenSimulatorTest {
@@ -52,4 +56,36 @@ public class KitchenSimulatorTest {
                 status.isRunning() || status.isDeadlocked());
         assertNotNull("Status message should not be null", status.getMessage());
     }
+
+    @Test(timeout = 5000)
+    public void badJournalPath_failsTheStartWithoutLeavingAnythingRunning() throws InterruptedException {
+        KitchenProperties properties = new KitchenProperties();
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setPath("/no/such/directory/kitchen-journal.bin");
+        simulator = new KitchenSimulator(EquipmentRegistry.of(new Stove(), new Blender()), properties);
+
+        int detectorsBefore = liveThreadsNamed("deadlock-detector");
+        try {
+            simulator.start(SimulationMode.SAFE);
+            fail("A journal that cannot be created should fail the start");
+        } catch (UncheckedIOException expected) {
+            // the journal is opened before anything is started
+        }
+        assertTrue("No detector should be left sweeping", liveThreadsNamed("deadlock-detector") <= detectorsBefore);
+        assertFalse(simulator.getStatus().isRunning());
+
+        properties.getJournal().setEnabled(false);
+        simulator.start(SimulationMode.SAFE);
+        assertTrue(simulator.getStatus().isRunning());
+    }
+
+    private static int liveThreadsNamed(String name) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(name) && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
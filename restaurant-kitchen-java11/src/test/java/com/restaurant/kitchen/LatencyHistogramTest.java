@@ -0,0 +1,83 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private static final long MICRO = 1_000;
+
+    @Test
+    public void percentilesAreWithinThreePercent() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 us to 100 ms, evenly spread, so the true p-th percentile is p * 1 ms.
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * MICRO);
+        }
+        for (double percentile : new double[]{1, 25, 50, 90, 99, 99.9}) {
+            long exact = (long) Math.ceil(percentile * 1_000) * MICRO;
+            long reported = histogram.valueAtPercentile(percentile);
+            assertTrue("p" + percentile + " reported " + reported + " ns for " + exact + " ns",
+                    reported >= exact && reported <= exact * 1.03);
+        }
+        assertEquals(100_000 * MICRO, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void countMaxAndMeanAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(1_000_000);
+        histogram.record(2_000_000);
+        histogram.record(-5); // clock hiccup, counted as zero
+
+        assertEquals(4, histogram.count());
+        assertEquals(2_000_000, histogram.maxNanos());
+        assertEquals(3_000_010 / 4.0, histogram.meanNanos(), 0);
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 0; v < 64; v++) {
+            histogram.record(v);
+        }
+        assertEquals(31, histogram.valueAtPercentile(50));
+        assertEquals(63, histogram.valueAtPercentile(100));
+    }
+
+    @Test
+    public void emptyAndResetHistogramsReportZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        assertEquals(0, histogram.meanNanos(), 0);
+
+        histogram.record(5 * MICRO);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.maxNanos());
+        assertEquals(0, histogram.valueAtPercentile(50));
+    }
+
+    @Test(timeout = 10000)
+    public void concurrentRecordsAreAllCounted() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long base = (t + 1) * MICRO;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(base + i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200_000, histogram.count());
+        assertEquals(4 * MICRO + 49_999, histogram.maxNanos());
+    }
+}
@@ -0,0 +1,116 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.ArrivalPattern;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.LoadProfile;
+import com.restaurant.kitchen.orders.LoadGenerator;
+import com.restaurant.kitchen.orders.OrderQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class LoadGeneratorTest {
+
+    private static final List<Dish> MENU = Collections.singletonList(new Dish("Soup", EquipmentType.STOVE));
+    private static final long MAX_BYTES = 64;
+
+    private Path root;
+    private Path replays;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("kitchen");
+        replays = Files.createDirectory(root.resolve("replays"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void readsAReplayFromTheReplayDirectory() throws IOException {
+        write(replays.resolve("lunch.csv"), "# offsetMillis,dish", "0,Soup", "50", "100,Soup");
+        LoadGenerator generator = generator("lunch.csv");
+        assertFalse(generator.isFinished());
+    }
+
+    @Test
+    public void refusesFilesOutsideTheReplayDirectory() throws IOException {
+        Path secret = write(root.resolve("secret.txt"), "root:x:0:0");
+        for (String name : Arrays.asList(secret.toString(), "../secret.txt", "nested/../../secret.txt")) {
+            String message = rejection(name);
+            assertTrue(name + ": " + message, message.startsWith("Replay files must be in"));
+            assertFalse(name + " should not echo the file: " + message, message.contains("root:x"));
+        }
+    }
+
+    @Test
+    public void refusesLinksOutOfTheReplayDirectory() throws IOException {
+        Path secret = write(root.resolve("secret.txt"), "root:x:0:0");
+        try {
+            Files.createSymbolicLink(replays.resolve("link.csv"), secret);
+        } catch (UnsupportedOperationException | IOException e) {
+            return; // no symbolic links on this file system
+        }
+        assertTrue(rejection("link.csv").startsWith("Replay files must be regular files in"));
+    }
+
+    @Test
+    public void refusesOversizedFiles() throws IOException {
+        char[] line = new char[(int) MAX_BYTES];
+        Arrays.fill(line, '1');
+        write(replays.resolve("huge.csv"), new String(line));
+        assertTrue(rejection("huge.csv").contains("larger than " + MAX_BYTES + " bytes"));
+    }
+
+    @Test
+    public void reportsTheNumberOfABadLineNotItsContents() throws IOException {
+        write(replays.resolve("bad.csv"), "0,Soup", "# comment", "root:x:0:0");
+        String message = rejection("bad.csv");
+        assertEquals("Bad replay line 3: expected offsetMillis[,dish]", message);
+    }
+
+    @Test
+    public void reportsAMissingFile() {
+        assertTrue(rejection("nowhere.csv").startsWith("There is no replay file nowhere.csv"));
+    }
+
+    private LoadGenerator generator(String file) {
+        LoadProfile profile = new LoadProfile(ArrivalPattern.REPLAY, 0);
+        profile.setReplayFile(file);
+        return new LoadGenerator(new OrderQueue(4), MENU, profile, new AtomicBoolean(true), new AtomicLong(),
+                replays, MAX_BYTES);
+    }
+
+    private String rejection(String file) {
+        try {
+            generator(file);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        fail(file + " should be refused");
+        return null;
+    }
+
+    private static Path write(Path file, String... lines) throws IOException {
+        return Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+}
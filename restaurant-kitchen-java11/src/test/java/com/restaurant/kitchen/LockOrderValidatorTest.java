@@ -0,0 +1,91 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.LockOrderViolation;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.service.LockOrderValidator;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The inversions here never overlap in time, so nobody deadlocks: the validator has to spot them
+ * from the orderings alone.
+ */
+public class LockOrderValidatorTest {
+
+    private final Stove stove = new Stove(1);
+    private final Blender blender = new Blender(1);
+    private final EquipmentRegistry kitchen = EquipmentRegistry.of(stove, blender);
+    private final LockOrderValidator validator = new LockOrderValidator(kitchen);
+
+    @Before
+    public void setUp() {
+        kitchen.setLockListener(validator);
+    }
+
+    @Test(timeout = 5000)
+    public void sameOrderEverywhere_isNotReported() throws InterruptedException {
+        takeInOrder("first", stove, blender);
+        takeInOrder("second", stove, blender);
+
+        assertEquals(0, validator.getViolationCount());
+        assertTrue(validator.getViolations().isEmpty());
+        assertEquals(1, validator.getOrderings());
+    }
+
+    @Test(timeout = 5000)
+    public void inversion_isReportedOnceWithBothStacks() throws InterruptedException {
+        takeInOrder("first", stove, blender);
+        takeInOrder("second", blender, stove);
+
+        List<LockOrderViolation> violations = validator.getViolations();
+        assertEquals(1, violations.size());
+        LockOrderViolation violation = violations.get(0);
+        assertEquals(Arrays.asList(blender.getName(), stove.getName(), blender.getName()), violation.getEquipment());
+
+        List<LockOrderViolation.Acquisition> acquisitions = violation.getAcquisitions();
+        assertEquals(2, acquisitions.size());
+        assertAcquisition(acquisitions.get(0), "second", blender, stove);
+        assertAcquisition(acquisitions.get(1), "first", stove, blender);
+
+        // The same orderings again, from other threads and in both directions: already known.
+        takeInOrder("third", blender, stove);
+        takeInOrder("fourth", stove, blender);
+        assertEquals(1, validator.getViolationCount());
+        assertEquals(1, validator.getViolations().size());
+        assertEquals(2, validator.getOrderings());
+    }
+
+    private static void assertAcquisition(LockOrderViolation.Acquisition acquisition, String thread,
+                                          Equipment held, Equipment taken) {
+        assertEquals(thread, acquisition.getThread());
+        assertEquals(held.getName(), acquisition.getHeld());
+        assertEquals(taken.getName(), acquisition.getTaken());
+        List<String> stack = acquisition.getStack();
+        assertFalse("Acquisition on " + thread + " should carry its stack", stack.isEmpty());
+        assertTrue("The stack should start at the caller, not the lock: " + stack,
+                stack.get(0).contains(LockOrderValidatorTest.class.getName()));
+    }
+
+    /** Takes {@code first} then {@code second} on a thread of its own and puts both back. */
+    private static void takeInOrder(String name, Equipment first, Equipment second) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            first.getLock().lock();
+            try {
+                second.getLock().lock();
+                second.getLock().unlock();
+            } finally {
+                first.getLock().unlock();
+            }
+        }, name);
+        thread.start();
+        thread.join();
+    }
+}
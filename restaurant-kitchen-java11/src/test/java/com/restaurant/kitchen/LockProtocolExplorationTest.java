@@ -0,0 +1,255 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentLock;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.LockListener;
+import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.strategy.LockStrategies;
+import com.restaurant.kitchen.strategy.LockStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the chefs' lock protocols under every interleaving rather than whatever the OS scheduler
+ * happens to pick. Each chef's lock steps come from the real code: {@link Chef#gatherEquipment}
+ * picks the units for a dish and the mode's {@link LockStrategy} takes them, with a listener
+ * writing down the order. {@link InterleavingExplorer} then plays those steps against each other.
+ */
+public class LockProtocolExplorationTest {
+
+    @Test(timeout = 30000)
+    public void safeMode_neverDeadlocks_whateverEachChefCooks() throws InterruptedException {
+        EquipmentRegistry kitchen = new EquipmentRegistry()
+                .install(EquipmentType.STOVE, 2, 1)
+                .install(EquipmentType.BLENDER, 1, 1)
+                .install(EquipmentType.OVEN, 1, 1);
+        for (int chefs = 2; chefs <= 4; chefs++) {
+            List<List<int[]>> orders = ordersPerChef(SimulationMode.SAFE, kitchen, chefs);
+            long states = 0;
+            double schedules = 0;
+            int combinations = 0;
+            for (int[][] programs : everyCombination(orders)) {
+                InterleavingExplorer.Result result = new InterleavingExplorer(programs, kitchen.size()).explore();
+                assertNull("SAFE deadlocked with orders " + Arrays.deepToString(programs), result.deadlock);
+                states += result.states;
+                schedules += result.schedules;
+                combinations++;
+            }
+            assertTrue(String.format("SAFE, %d chefs: %d order mixes, %d states, %.3g reduced schedules explored",
+                    chefs, combinations, states, schedules), combinations > 1 && states > combinations);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void deadlockMode_shortestDeadlockIsTwoSteps() throws InterruptedException {
+        EquipmentRegistry kitchen = EquipmentRegistry.of(new Stove(), new Blender());
+        int[] shortest = null;
+        InterleavingExplorer shortestExplorer = null;
+        for (int[][] programs : everyCombination(ordersPerChef(SimulationMode.DEADLOCK, kitchen, 2))) {
+            InterleavingExplorer explorer = new InterleavingExplorer(programs, kitchen.size());
+            InterleavingExplorer.Result result = explorer.explore();
+            if (result.deadlock != null && (shortest == null || result.deadlock.length < shortest.length)) {
+                shortest = result.deadlock;
+                shortestExplorer = explorer;
+            }
+        }
+        assertNotNull("DEADLOCK mode should be able to deadlock", shortest);
+        List<String> steps = shortestExplorer.describe(shortest, lockNames(kitchen), chefNames(2));
+        assertEquals("Shortest DEADLOCK schedule " + steps, Arrays.asList("Gordon#0 takes STOVE#0", "Julia#1 takes BLENDER#0"), sorted(steps));
+    }
+
+    @Test(timeout = 30000)
+    public void partialOrderReduction_findsTheSameDeadlocksWithFewerStates() throws InterruptedException {
+        EquipmentRegistry kitchen = new EquipmentRegistry()
+                .install(EquipmentType.STOVE, 2, 1)
+                .install(EquipmentType.BLENDER, 1, 1)
+                .install(EquipmentType.OVEN, 1, 1);
+        long reducedStates = 0;
+        long fullStates = 0;
+        double fullSchedules = 0;
+        for (int[][] programs : everyCombination(ordersPerChef(SimulationMode.DEADLOCK, kitchen, 4))) {
+            InterleavingExplorer.Result reduced = new InterleavingExplorer(programs, kitchen.size()).explore();
+            InterleavingExplorer.Result full = new InterleavingExplorer(programs, kitchen.size()).withoutReduction().explore();
+            assertEquals("Deadlock found with and without reduction for " + Arrays.deepToString(programs),
+                    full.deadlock != null, reduced.deadlock != null);
+            if (full.deadlock != null) {
+                assertEquals("Shortest deadlock length for " + Arrays.deepToString(programs),
+                        full.deadlock.length, reduced.deadlock.length);
+            }
+            assertTrue(reduced.states <= full.states);
+            reducedStates += reduced.states;
+            fullStates += full.states;
+            fullSchedules += full.schedules;
+        }
+        String explored = String.format("DEADLOCK, 4 chefs: %d states reduced vs %d in full, covering %.3g schedules",
+                reducedStates, fullStates, fullSchedules);
+        assertTrue("Reduction should prune something; " + explored, reducedStates < fullStates);
+        assertTrue("Should cover millions of schedules; " + explored, fullSchedules > 1e6);
+    }
+
+    @Test(timeout = 60000)
+    public void safeMode_millionsOfRandomSchedules_eightChefs() throws InterruptedException {
+        EquipmentRegistry kitchen = new EquipmentRegistry()
+                .install(EquipmentType.STOVE, 2, 1)
+                .install(EquipmentType.BLENDER, 2, 1)
+                .install(EquipmentType.OVEN, 1, 1)
+                .install(EquipmentType.GRILL, 1, 1)
+                .install(EquipmentType.FRYER, 1, 1);
+        int chefs = 8;
+        List<List<int[]>> safe = ordersPerChef(SimulationMode.SAFE, kitchen, chefs);
+        List<List<int[]>> clashing = ordersPerChef(SimulationMode.DEADLOCK, kitchen, chefs);
+        Random pick = new Random(7);
+        long safeWalks = 0;
+        long clashingDeadlocks = 0;
+        for (int mix = 0; mix < 200; mix++) {
+            int[][] safePrograms = new int[chefs][];
+            int[][] clashingPrograms = new int[chefs][];
+            for (int c = 0; c < chefs; c++) {
+                int order = pick.nextInt(safe.get(c).size());
+                safePrograms[c] = safe.get(c).get(order);
+                clashingPrograms[c] = clashing.get(c).get(pick.nextInt(clashing.get(c).size()));
+            }
+            InterleavingExplorer.Result result = new InterleavingExplorer(safePrograms, kitchen.size())
+                    .randomWalks(5_000, mix);
+            assertNull("SAFE deadlocked with orders " + Arrays.deepToString(safePrograms), result.deadlock);
+            safeWalks += (long) result.schedules;
+            clashingDeadlocks += new InterleavingExplorer(clashingPrograms, kitchen.size())
+                    .randomWalks(5_000, mix).deadlocks;
+        }
+        assertEquals("SAFE random schedules for " + chefs + " chefs, none stuck", 1_000_000, safeWalks);
+        assertTrue("The same search should catch DEADLOCK mode; it got stuck in " + clashingDeadlocks + " of "
+                + safeWalks, clashingDeadlocks > 0);
+    }
+
+    /**
+     * For each chef, every distinct lock order the real code produces for one order: every dish on
+     * the menu, with every choice of units, taken by the mode's strategy.
+     */
+    private static List<List<int[]>> ordersPerChef(SimulationMode mode, EquipmentRegistry kitchen, int chefs)
+            throws InterruptedException {
+        LockStrategy strategy = LockStrategies.forMode(mode, chefs, kitchen);
+        List<Integer> taken = new ArrayList<>();
+        kitchen.setLockListener(new Recorder(taken));
+        List<Dish> menu = Chef.menuFor(kitchen);
+        Equipment[] needs = new Equipment[Chef.maxEquipmentPerDish(menu)];
+        List<List<int[]>> perChef = new ArrayList<>();
+        try {
+            for (int chef = 0; chef < chefs; chef++) {
+                Map<String, int[]> distinct = new LinkedHashMap<>();
+                for (Dish dish : menu) {
+                    for (Equipment[] units : unitChoices(dish, kitchen)) {
+                        // An idle kitchen: the chef walks up to exactly the units it used last.
+                        int count = Chef.gatherEquipment(chef, dish, kitchen, new Random(0), needs, units);
+                        taken.clear();
+                        strategy.acquire(needs, count);
+                        strategy.release(needs, count);
+                        int[] program = taken.stream().mapToInt(Integer::intValue).toArray();
+                        distinct.put(Arrays.toString(program), program);
+                    }
+                }
+                perChef.add(new ArrayList<>(distinct.values()));
+            }
+        } finally {
+            kitchen.setLockListener(null);
+        }
+        return perChef;
+    }
+
+    /** Every way to pick one unit of each type the dish needs, as "last used" arrays by type ordinal. */
+    private static List<Equipment[]> unitChoices(Dish dish, EquipmentRegistry kitchen) {
+        List<Equipment[]> choices = new ArrayList<>();
+        choices.add(new Equipment[EquipmentType.values().length]);
+        for (int i = 0; i < dish.getEquipmentCount(); i++) {
+            EquipmentType type = dish.getEquipment(i);
+            List<Equipment[]> extended = new ArrayList<>();
+            for (Equipment[] choice : choices) {
+                for (Equipment unit : kitchen.unitsOf(type)) {
+                    Equipment[] next = choice.clone();
+                    next[type.ordinal()] = unit;
+                    extended.add(next);
+                }
+            }
+            choices = extended;
+        }
+        return choices;
+    }
+
+    private static List<int[][]> everyCombination(List<List<int[]>> perChef) {
+        List<int[][]> combinations = new ArrayList<>();
+        combinations.add(new int[0][]);
+        for (List<int[]> options : perChef) {
+            List<int[][]> extended = new ArrayList<>();
+            for (int[][] partial : combinations) {
+                for (int[] option : options) {
+                    int[][] next = Arrays.copyOf(partial, partial.length + 1);
+                    next[partial.length] = option;
+                    extended.add(next);
+                }
+            }
+            combinations = extended;
+        }
+        return combinations;
+    }
+
+    private static String[] lockNames(EquipmentRegistry kitchen) {
+        String[] names = new String[kitchen.size()];
+        for (Equipment piece : kitchen.all()) {
+            names[piece.getRank()] = piece.getName();
+        }
+        return names;
+    }
+
+    private static String[] chefNames(int chefs) {
+        String[] names = new String[chefs];
+        for (int c = 0; c < chefs; c++) {
+            names[c] = Chef.nameFor(c) + "#" + c;
+        }
+        return names;
+    }
+
+    private static List<String> sorted(List<String> steps) {
+        List<String> copy = new ArrayList<>(steps);
+        copy.sort(null);
+        return copy;
+    }
+
+    /** Writes down the rank of every piece of equipment as it is taken. */
+    private static final class Recorder implements LockListener {
+        private final List<Integer> taken;
+
+        Recorder(List<Integer> taken) {
+            this.taken = taken;
+        }
+
+        @Override
+        public void waiting(EquipmentLock lock) {
+        }
+
+        @Override
+        public void acquired(EquipmentLock lock) {
+            taken.add(lock.getEquipment().getRank());
+        }
+
+        @Override
+        public void gaveUp(EquipmentLock lock) {
+        }
+
+        @Override
+        public void released(EquipmentLock lock) {
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.model.OrderPriority;
+import com.restaurant.kitchen.orders.OrderQueue;
+import com.restaurant.kitchen.orders.OrderTicket;
+import com.restaurant.kitchen.orders.PriorityMix;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OrderQueueTest {
+
+    private static final Dish PASTA = new Dish("Pasta", EquipmentType.STOVE, EquipmentType.BLENDER);
+    private static final Dish SOUP = new Dish("Soup", EquipmentType.STOVE);
+
+    @Test(timeout = 5000)
+    public void takeBatch_startsWithTheOldestTicketAndTopsUpFromItsRecipe() throws InterruptedException {
+        OrderQueue rail = new OrderQueue(16);
+        rail.put(new OrderTicket(1, PASTA, 100));
+        rail.put(new OrderTicket(2, SOUP, 200));
+        rail.put(new OrderTicket(3, PASTA, 300));
+        rail.put(new OrderTicket(4, PASTA, 400));
+
+        OrderTicket[] batch = new OrderTicket[4];
+        assertEquals(3, rail.takeBatch(batch, 4, 0, TimeUnit.MILLISECONDS));
+        assertArrayEquals(new long[]{1, 3, 4}, numbers(batch, 3));
+        assertEquals(1, rail.size());
+
+        assertEquals(1, rail.takeBatch(batch, 4, 0, TimeUnit.MILLISECONDS));
+        assertEquals(2, batch[0].getNumber());
+        assertEquals(0, rail.size());
+    }
+
+    @Test(timeout = 5000)
+    public void takeBatch_neverExceedsTheBatchSize() throws InterruptedException {
+        OrderQueue rail = new OrderQueue(16);
+        for (int i = 1; i <= 5; i++) {
+            rail.put(new OrderTicket(i, SOUP, i));
+        }
+        OrderTicket[] batch = new OrderTicket[8];
+        assertEquals(2, rail.takeBatch(batch, 2, 0, TimeUnit.MILLISECONDS));
+        assertArrayEquals(new long[]{1, 2}, numbers(batch, 2));
+        assertEquals(3, rail.size());
+    }
+
+    @Test(timeout = 5000)
+    public void takeBatch_lingersForMoreOfTheSameRecipe() throws InterruptedException {
+        OrderQueue rail = new OrderQueue(16);
+        rail.put(new OrderTicket(1, PASTA, 100));
+        Thread waiter = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                rail.put(new OrderTicket(2, SOUP, 200));
+                rail.put(new OrderTicket(3, PASTA, 300));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        OrderTicket[] batch = new OrderTicket[2];
+        assertEquals(2, rail.takeBatch(batch, 2, 2, TimeUnit.SECONDS));
+        assertArrayEquals("The soup does not join a pasta batch", new long[]{1, 3}, numbers(batch, 2));
+        waiter.join();
+        assertEquals(1, rail.size());
+    }
+
+    @Test(timeout = 5000)
+    public void pollBatch_returnsNothingFromAnEmptyRail() throws InterruptedException {
+        OrderQueue rail = new OrderQueue(4);
+        OrderTicket[] batch = new OrderTicket[4];
+        assertEquals(0, rail.pollBatch(batch, 4, 0, 0, TimeUnit.MILLISECONDS));
+        assertEquals(0, rail.pollBatch(batch, 4, 0, 20, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout = 5000)
+    public void clear_makesRoomForWaitingProducers() throws InterruptedException {
+        OrderQueue rail = new OrderQueue(1);
+        rail.put(new OrderTicket(1, SOUP, 1));
+        Thread producer = new Thread(() -> {
+            try {
+                rail.put(new OrderTicket(2, SOUP, 2));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(50);
+        assertTrue("A full rail should hold the producer back", producer.isAlive());
+
+        rail.clear();
+        producer.join(2000);
+        assertFalse(producer.isAlive());
+        OrderTicket[] batch = new OrderTicket[1];
+        assertEquals(1, rail.takeBatch(batch, 1, 0, TimeUnit.MILLISECONDS));
+        assertEquals(2, batch[0].getNumber());
+    }
+
+    @Test(timeout = 5000)
+    public void takeBatch_servesTheEarliestServeByFirst() throws InterruptedException {
+        PriorityMix mix = new PriorityMix(10, 10, 1000);
+        long second = TimeUnit.SECONDS.toNanos(1);
+        OrderQueue rail = new OrderQueue(16);
+        // Waited long enough to be due before even the VIP placed after it.
+        rail.put(ticket(mix, 1, OrderPriority.BATCH_PREP, -3 * second));
+        rail.put(ticket(mix, 2, OrderPriority.NORMAL, 0));
+        rail.put(ticket(mix, 3, OrderPriority.VIP, 500));
+        rail.put(ticket(mix, 4, OrderPriority.BATCH_PREP, 600));
+
+        OrderTicket[] batch = new OrderTicket[1];
+        long[] served = new long[4];
+        for (int i = 0; i < served.length; i++) {
+            assertEquals(1, rail.takeBatch(batch, 1, 0, TimeUnit.MILLISECONDS));
+            served[i] = batch[0].getNumber();
+        }
+        assertArrayEquals(new long[]{1, 3, 2, 4}, served);
+    }
+
+    private static OrderTicket ticket(PriorityMix mix, long number, OrderPriority priority, long placedAtNanos) {
+        return new OrderTicket(number, SOUP, placedAtNanos, priority, mix.serveBy(priority, placedAtNanos));
+    }
+
+    private static long[] numbers(OrderTicket[] batch, int count) {
+        long[] numbers = new long[count];
+        for (int i = 0; i < count; i++) {
+            numbers[i] = batch[i].getNumber();
+        }
+        return numbers;
+    }
+}
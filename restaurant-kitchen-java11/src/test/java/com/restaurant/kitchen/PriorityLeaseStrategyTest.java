@@ -0,0 +1,158 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.model.ChefState;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.OrderPriority;
+import com.restaurant.kitchen.orders.OrderQueue;
+import com.restaurant.kitchen.orders.OrderTicket;
+import com.restaurant.kitchen.orders.PriorityMix;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.strategy.PriorityLeaseStrategy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Real chefs queueing for a single blender, so the only dish on the menu is one-piece and the
+ * order in which chefs get the blender is the order in which they finish.
+ */
+public class PriorityLeaseStrategyTest {
+
+    private static final long AGING_MILLIS = 1000;
+    private static final PriorityMix MIX = new PriorityMix(10, 10, AGING_MILLIS);
+
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final KitchenStats stats = new KitchenStats();
+    private final List<Integer> finished = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> threads = new ArrayList<>();
+
+    private EquipmentRegistry kitchen;
+    private Equipment blender;
+    private PriorityLeaseStrategy strategy;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(2000);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void higherPriorityIsGrantedFirst() throws InterruptedException {
+        setUp(20, 0);
+        Equipment[] held = {blender};
+        strategy.acquire(held, 1);
+
+        long now = System.nanoTime();
+        awaitQueued(startChef(0, ticket(OrderPriority.NORMAL, now)));
+        awaitQueued(startChef(1, ticket(OrderPriority.VIP, now)));
+        strategy.release(held, 1);
+
+        awaitFinished(2);
+        assertEquals("The VIP queued last but should be served first", Arrays.asList(1, 0), finished);
+        assertEquals(3, strategy.getGrants());
+        assertEquals(2, strategy.getQueuedGrants());
+    }
+
+    @Test(timeout = 5000)
+    public void agedOrderOvertakesANewerVip() throws InterruptedException {
+        setUp(20, 0);
+        Equipment[] held = {blender};
+        strategy.acquire(held, 1);
+
+        long now = System.nanoTime();
+        awaitQueued(startChef(0, ticket(OrderPriority.VIP, now)));
+        // Placed three aging steps ago, so due one step before the VIP despite two steps of handicap.
+        awaitQueued(startChef(1, ticket(OrderPriority.BATCH_PREP, now - TimeUnit.MILLISECONDS.toNanos(3 * AGING_MILLIS))));
+        strategy.release(held, 1);
+
+        awaitFinished(2);
+        assertEquals("The long-waiting batch prep should beat the newer VIP", Arrays.asList(1, 0), finished);
+    }
+
+    @Test(timeout = 5000)
+    public void overrunningHolderIsSentBack() throws InterruptedException {
+        long useMillis = 400;
+        setUp(useMillis, 20);
+        Chef cook = startChef(0, ticket(OrderPriority.NORMAL, System.nanoTime()));
+        while (cook.getState() != ChefState.COOKING) {
+            Thread.sleep(1);
+        }
+
+        long waitStart = System.nanoTime();
+        Equipment[] wanted = {blender};
+        strategy.acquire(wanted, 1);
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart);
+        try {
+            assertTrue("Should get the blender soon after the 20 ms lease, not after the " + useMillis
+                    + " ms use; waited " + waitedMillis + " ms", waitedMillis < useMillis / 2);
+            assertEquals(1, strategy.getPreemptions());
+        } finally {
+            strategy.release(wanted, 1);
+        }
+
+        awaitFinished(1);
+        assertEquals("The aborted order should be retried and served", Collections.singletonList(0), finished);
+        assertEquals(1, stats.getRecoveries());
+        assertEquals(1, stats.getOrdersCompleted());
+    }
+
+    private void setUp(long useMillis, long leaseMillis) {
+        blender = new Blender(useMillis);
+        kitchen = EquipmentRegistry.of(blender);
+        strategy = new PriorityLeaseStrategy(kitchen, leaseMillis);
+    }
+
+    private OrderTicket ticket(OrderPriority priority, long placedAtNanos) {
+        Dish dish = Chef.menuFor(kitchen).get(0);
+        return new OrderTicket(1, dish, placedAtNanos, priority, MIX.serveBy(priority, placedAtNanos));
+    }
+
+    /** A chef that cooks the one ticket and notes when it is done. */
+    private Chef startChef(int id, OrderTicket ticket) throws InterruptedException {
+        OrderQueue rail = new OrderQueue(1);
+        rail.put(ticket);
+        Chef chef = new Chef(id, kitchen, strategy, stats, running);
+        chef.takeOrdersFrom(rail, 1, 0);
+        Thread thread = new Thread(() -> {
+            try {
+                chef.processOrder();
+                finished.add(id);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "chef-" + id);
+        threads.add(thread);
+        thread.start();
+        return chef;
+    }
+
+    /** Until the chef is parked in the blender's grant queue. */
+    private void awaitQueued(Chef chef) throws InterruptedException {
+        Thread thread = threads.get(threads.size() - 1);
+        while (chef.getState() != ChefState.WAITING || thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitFinished(int count) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(count, finished.size());
+    }
+}
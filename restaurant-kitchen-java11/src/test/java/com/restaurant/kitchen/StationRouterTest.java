@@ -0,0 +1,108 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.EquipmentType;
+import com.restaurant.kitchen.orders.OrderTicket;
+import com.restaurant.kitchen.orders.StationRouter;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StationRouterTest {
+
+    private static final Dish PASTA = new Dish("Pasta", EquipmentType.STOVE, EquipmentType.BLENDER);
+    private static final Dish SOUP = new Dish("Soup", EquipmentType.STOVE);
+    private static final List<Dish> MENU = Arrays.asList(PASTA, SOUP);
+
+    private long nextNumber = 1;
+
+    @Test
+    public void homeOf_spreadsTheMenuOverTheStations() {
+        StationRouter router = new StationRouter(2, 16, MENU, true);
+        assertEquals(0, router.homeOf(PASTA));
+        assertEquals(1, router.homeOf(SOUP));
+        assertEquals("A dish off the menu goes to the first station",
+                0, router.homeOf(new Dish("Toast", EquipmentType.OVEN)));
+    }
+
+    @Test(timeout = 5000)
+    public void put_overflowsOnlyOnceHomeIsBackedUp() throws InterruptedException {
+        StationRouter router = new StationRouter(2, 16, MENU, false);
+        for (int i = 0; i <= StationRouter.OVERFLOW_SLACK; i++) {
+            router.put(ticket(PASTA));
+        }
+        assertEquals(StationRouter.OVERFLOW_SLACK + 1, router.queued(0));
+        assertEquals(0, router.queued(1));
+
+        router.put(ticket(PASTA));
+        assertEquals("Home is more than the slack ahead of the shortest rail", 1, router.queued(1));
+        assertEquals(StationRouter.OVERFLOW_SLACK + 1, router.getRoutedHome(0));
+        assertEquals(1, router.getOverflowIn(1));
+        assertEquals(0, router.getRoutedHome(1));
+    }
+
+    @Test(timeout = 5000)
+    public void idleStation_stealsFromTheLongestRail() throws InterruptedException {
+        StationRouter router = new StationRouter(3, 16, MENU, true);
+        router.put(ticket(PASTA));
+        router.put(ticket(PASTA));
+        router.put(ticket(PASTA));
+        router.put(ticket(SOUP));
+
+        OrderTicket[] batch = new OrderTicket[2];
+        assertEquals(2, router.station(2).takeBatch(batch, 2, 0, TimeUnit.MILLISECONDS));
+        assertEquals(PASTA, batch[0].getDish());
+        assertEquals(PASTA, batch[1].getDish());
+        assertEquals(2, router.getStolen(2));
+        assertEquals(2, router.getStolenAway(0));
+        assertEquals(0, router.getStolenAway(1));
+        assertEquals(1, router.queued(0));
+    }
+
+    @Test(timeout = 5000)
+    public void station_takesFromItsOwnRailFirst() throws InterruptedException {
+        StationRouter router = new StationRouter(2, 16, MENU, true);
+        router.put(ticket(PASTA));
+        router.put(ticket(PASTA));
+        router.put(ticket(SOUP));
+
+        OrderTicket[] batch = new OrderTicket[2];
+        assertEquals(1, router.station(1).takeBatch(batch, 2, 0, TimeUnit.MILLISECONDS));
+        assertEquals(SOUP, batch[0].getDish());
+        assertEquals(0, router.getStolen(1));
+        assertEquals(2, router.queued(0));
+    }
+
+    @Test(timeout = 5000)
+    public void withoutStealing_anIdleStationWaitsForItsOwnTickets() throws InterruptedException {
+        StationRouter router = new StationRouter(2, 16, MENU, false);
+        router.put(ticket(PASTA));
+        OrderTicket[] batch = new OrderTicket[1];
+        Thread idle = new Thread(() -> {
+            try {
+                router.station(1).takeBatch(batch, 1, 0, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        idle.start();
+        Thread.sleep(50);
+        assertTrue("Station 1 should not touch station 0's rail", idle.isAlive());
+        assertEquals(1, router.queued(0));
+
+        router.put(ticket(SOUP));
+        idle.join(2000);
+        assertFalse(idle.isAlive());
+        assertEquals(SOUP, batch[0].getDish());
+        assertEquals(0, router.getStolen(1));
+    }
+
+    private OrderTicket ticket(Dish dish) {
+        long number = nextNumber++;
+        return new OrderTicket(number, dish, number);
+    }
+}
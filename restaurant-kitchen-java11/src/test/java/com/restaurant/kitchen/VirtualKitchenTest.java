@@ -0,0 +1,83 @@
+package com.restaurant.kitchen;
+
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.SimulationMode;
+import com.restaurant.kitchen.model.SimulationReport;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.sim.VirtualKitchen;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class VirtualKitchenTest {
+
+    private static final long USE_MILLIS = 5;
+
+    @Test(timeout = 10000)
+    public void sameSeed_sameRun() {
+        for (SimulationMode mode : new SimulationMode[]{SimulationMode.SAFE, SimulationMode.TRY_LOCK,
+                SimulationMode.WAITER, SimulationMode.COARSE, SimulationMode.RECOVERY}) {
+            SimulationReport first = run(mode, 42);
+            SimulationReport second = run(mode, 42);
+            assertTrue(mode + " should serve orders", first.getOrdersCompleted() > 0);
+            assertEquals(mode + " orders", first.getOrdersCompleted(), second.getOrdersCompleted());
+            assertEquals(mode + " events", first.getEventsProcessed(), second.getEventsProcessed());
+            assertEquals(mode + " recoveries", first.getRecoveries(), second.getRecoveries());
+            assertEquals(mode + " mean wait", first.getMeanWaitMillis(), second.getMeanWaitMillis(), 0);
+            assertEquals(mode + " p99 wait", first.getP99WaitMillis(), second.getP99WaitMillis(), 0);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void sameSeed_sameDeadlock() {
+        SimulationReport first = run(SimulationMode.DEADLOCK, 7);
+        SimulationReport second = run(SimulationMode.DEADLOCK, 7);
+        assertTrue("Four chefs on a shared stove and blender should deadlock in a minute", first.isDeadlocked());
+        assertTrue(second.isDeadlocked());
+        assertEquals(first.getDeadlockedAtSeconds(), second.getDeadlockedAtSeconds(), 0);
+        assertEquals(first.getOrdersCompleted(), second.getOrdersCompleted());
+        assertEquals(first.getDeadlockCycles().size(), second.getDeadlockCycles().size());
+        for (int i = 0; i < first.getDeadlockCycles().size(); i++) {
+            DeadlockCycle a = first.getDeadlockCycles().get(i);
+            DeadlockCycle b = second.getDeadlockCycles().get(i);
+            assertEquals(a.getChefs(), b.getChefs());
+            assertEquals(a.getEquipment(), b.getEquipment());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void differentSeeds_differentRuns() {
+        SimulationReport first = run(SimulationMode.TRY_LOCK, 1);
+        SimulationReport second = run(SimulationMode.TRY_LOCK, 2);
+        assertNotEquals("Another seed should pick other dishes and backoffs",
+                first.getEventsProcessed(), second.getEventsProcessed());
+    }
+
+    @Test
+    public void aKitchenRunsOnlyOnce() {
+        VirtualKitchen kitchen = kitchen(SimulationMode.SAFE, 1);
+        kitchen.run(1);
+        try {
+            kitchen.run(1);
+            fail("A second run should be refused");
+        } catch (IllegalStateException expected) {
+            // single-use
+        }
+    }
+
+    private static SimulationReport run(SimulationMode mode, long seed) {
+        return kitchen(mode, seed).run(60);
+    }
+
+    private static VirtualKitchen kitchen(SimulationMode mode, long seed) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("stove", 1);
+        counts.put("blender", 1);
+        return new VirtualKitchen(EquipmentRegistry.fromCounts(counts, USE_MILLIS), mode,
+                VictimPolicy.YOUNGEST_ORDER, 4, 100, seed);
+    }
+}
@@ -0,0 +1,193 @@
+package com.restaurant.kitchen.service;
+
+import com.restaurant.kitchen.journal.EventJournal;
+import com.restaurant.kitchen.journal.EventType;
+import com.restaurant.kitchen.journal.JournalEvent;
+import com.restaurant.kitchen.metrics.KitchenStats;
+import com.restaurant.kitchen.model.DeadlockCycle;
+import com.restaurant.kitchen.model.Dish;
+import com.restaurant.kitchen.model.VictimPolicy;
+import com.restaurant.kitchen.orders.OrderQueue;
+import com.restaurant.kitchen.orders.OrderTicket;
+import com.restaurant.kitchen.resources.Blender;
+import com.restaurant.kitchen.resources.Chef;
+import com.restaurant.kitchen.resources.Equipment;
+import com.restaurant.kitchen.resources.EquipmentRegistry;
+import com.restaurant.kitchen.resources.Stove;
+import com.restaurant.kitchen.strategy.LockStrategy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Two real chefs on a stove and a blender: chef 0 takes the stove first and chef 1 the blender,
+ * and neither reaches for its second piece until both hold their first. The sweeps are run by
+ * hand, so the test decides when the detector looks.
+ */
+public class WaitForGraphDetectorTest {
+
+    private final Stove stove = new Stove(1);
+    private final Blender blender = new Blender(1);
+    private final EquipmentRegistry kitchen = EquipmentRegistry.of(stove, blender);
+    private final KitchenStats stats = new KitchenStats();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private final WaitForGraphDetector detector = new WaitForGraphDetector(1000);
+    private final BothHoldOne strategy = new BothHoldOne();
+
+    private Path file;
+    private EventJournal journal;
+    private Thread first;
+    private Thread second;
+
+    @Before
+    public void setUp() throws IOException {
+        kitchen.setLockListener(detector);
+        file = Files.createTempFile("kitchen", ".journal");
+        journal = EventJournal.create(file, 64);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        running.set(false);
+        for (Thread thread : new Thread[]{first, second}) {
+            if (thread != null) {
+                thread.interrupt();
+                thread.join();
+            }
+        }
+        journal.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test(timeout = 5000)
+    public void aCycleIsPublishedOnlyWhenTwoSweepsAgree() throws InterruptedException {
+        detector.sweep();
+        assertTrue(detector.latest().isEmpty());
+
+        deadlock(chef(0), chef(1));
+
+        detector.sweep();
+        assertTrue("One sighting is not enough", detector.latest().isEmpty());
+
+        detector.sweep();
+        List<DeadlockCycle> cycles = detector.latest();
+        assertEquals(1, cycles.size());
+        DeadlockCycle cycle = cycles.get(0);
+        assertEquals(2, cycle.getChefs().size());
+        Map<String, String> wants = new HashMap<>();
+        for (int i = 0; i < cycle.getChefs().size(); i++) {
+            wants.put(cycle.getChefs().get(i), cycle.getEquipment().get(i));
+        }
+        Map<String, String> expected = new HashMap<>();
+        expected.put(Chef.nameFor(0), blender.getName());
+        expected.put(Chef.nameFor(1), stove.getName());
+        assertEquals(expected, wants);
+    }
+
+    @Test(timeout = 5000)
+    public void recoveryAbortsTheYoungestOrder() throws InterruptedException {
+        assertVictim(VictimPolicy.YOUNGEST_ORDER, chef(0), chef(1), 1);
+    }
+
+    @Test(timeout = 5000)
+    public void recoveryAbortsTheLowestPriorityEvenWhenOlder() throws InterruptedException {
+        Chef older = chef(0);
+        Chef senior = chef(1);
+        senior.setPriority(5);
+        assertVictim(VictimPolicy.LOWEST_PRIORITY, older, senior, 0);
+    }
+
+    private void assertVictim(VictimPolicy policy, Chef older, Chef younger, int victim) throws InterruptedException {
+        detector.setCycleHandler(new DeadlockResolver(policy));
+        deadlock(older, younger);
+
+        detector.sweep();
+        assertEquals("Nobody is aborted on the first sighting", 0, stats.getRecoveries());
+        assertTrue(stove.getLock().hasQueuedThread(second) && blender.getLock().hasQueuedThread(first));
+
+        detector.sweep();
+        first.join();
+        second.join();
+
+        assertEquals(1, stats.getRecoveries());
+        List<Integer> aborted = journal.tail(64).stream()
+                .filter(event -> event.getType() == EventType.ABORTED)
+                .map(JournalEvent::getChefId)
+                .collect(Collectors.toList());
+        assertEquals(List.of(victim), aborted);
+        assertEquals(2, journal.tail(64).stream().filter(event -> event.getType() == EventType.COMPLETED).count());
+    }
+
+    /** Starts both chefs on one carbonara each and returns once each waits for the other's piece. */
+    private void deadlock(Chef older, Chef younger) throws InterruptedException {
+        first = cook(older);
+        while (stove.getLock().owner() != first) {
+            Thread.sleep(1);
+        }
+        second = cook(younger);
+        while (!stove.getLock().hasQueuedThread(second) || !blender.getLock().hasQueuedThread(first)) {
+            Thread.sleep(1);
+        }
+    }
+
+    private Chef chef(int id) throws InterruptedException {
+        Dish carbonara = Chef.menuFor(kitchen).stream()
+                .filter(dish -> dish.getName().equals("Spaghetti Carbonara"))
+                .findFirst().orElseThrow();
+        OrderQueue rail = new OrderQueue(1);
+        rail.put(new OrderTicket(id, carbonara, System.nanoTime()));
+        Chef chef = new Chef(id, kitchen, strategy, stats, running);
+        chef.takeOrdersFrom(rail, 1, 0);
+        chef.setJournal(journal);
+        return chef;
+    }
+
+    private static Thread cook(Chef chef) {
+        Thread thread = new Thread(() -> {
+            try {
+                chef.processOrder();
+            } catch (InterruptedException e) {
+                // torn down by the test
+            }
+        }, chef.getName());
+        thread.start();
+        return thread;
+    }
+
+    /** Locks in the chef's preferred order, but only goes for the second piece once both chefs hold one. */
+    private static final class BothHoldOne implements LockStrategy {
+
+        private final CountDownLatch bothHoldOne = new CountDownLatch(2);
+
+        @Override
+        public void acquire(Equipment[] equipment, int count) throws InterruptedException {
+            equipment[0].getLock().lockInterruptibly();
+            bothHoldOne.countDown();
+            try {
+                bothHoldOne.await();
+                equipment[1].getLock().lockInterruptibly();
+            } catch (InterruptedException e) {
+                equipment[0].getLock().unlock();
+                throw e;
+            }
+        }
+
+        @Override
+        public void release(Equipment[] equipment, int count) {
+            equipment[1].getLock().unlock();
+            equipment[0].getLock().unlock();
+        }
+    }
+}
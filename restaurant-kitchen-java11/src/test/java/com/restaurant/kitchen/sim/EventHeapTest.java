@@ -0,0 +1,65 @@
+package com.restaurant.kitchen.sim;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EventHeapTest {
+
+    @Test
+    public void popsInTimeOrder() {
+        EventHeap heap = new EventHeap();
+        Random random = new Random(7);
+        // More than the initial 64 slots, so the arrays grow on the way.
+        for (int i = 0; i < 1000; i++) {
+            heap.push(random.nextInt(10_000), i);
+        }
+        assertEquals(1000, heap.size());
+
+        long previous = Long.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            long time = heap.peekTime();
+            assertTrue("Popped " + time + " after " + previous, time >= previous);
+            previous = time;
+            heap.pop();
+        }
+        assertEquals(0, heap.size());
+    }
+
+    @Test
+    public void simultaneousEventsComeOutInSchedulingOrder() {
+        EventHeap heap = new EventHeap();
+        heap.push(50, 1);
+        heap.push(20, 2);
+        heap.push(50, 3);
+        heap.push(20, 4);
+        heap.push(50, 5);
+
+        long[] expected = {2, 4, 1, 3, 5};
+        for (long payload : expected) {
+            assertEquals(payload, heap.peekPayload());
+            heap.pop();
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void interleavedPushesAndPopsStayOrdered() {
+        EventHeap heap = new EventHeap();
+        heap.push(30, 30);
+        heap.push(10, 10);
+        assertEquals(10, heap.peekTime());
+        heap.pop();
+        heap.push(20, 20);
+        heap.push(40, 40);
+        assertEquals(20, heap.peekPayload());
+        heap.pop();
+        assertEquals(30, heap.peekPayload());
+        heap.pop();
+        assertEquals(40, heap.peekPayload());
+        heap.pop();
+        assertTrue(heap.isEmpty());
+    }
+}